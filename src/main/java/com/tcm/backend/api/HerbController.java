@@ -2,15 +2,21 @@ package com.tcm.backend.api;
 
 import com.tcm.backend.dto.*;
 import com.tcm.backend.service.HerbService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.List;
 
 @RestController
@@ -160,6 +166,29 @@ public class HerbController {
         }
     }
 
+    /**
+     * Writes the payload from a view of the cache's buffer; a cache hit makes no per-request copy of the image.
+     */
+    @GetMapping("/{herbId}/images/{imageId}/content")
+    public void getImageContent(@PathVariable Integer herbId,
+                                @PathVariable Integer imageId,
+                                HttpServletResponse response) throws IOException {
+        HerbImageContentDto content;
+        try {
+            content = herbService.getImageContent(herbId, imageId);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ByteBuffer data = content.data();
+        response.setContentType(MediaType.parseMediaType(content.mime()).toString());
+        response.setContentLength(data.remaining());
+        if (content.contentHash() != null) {
+            response.setHeader(HttpHeaders.ETAG, "\"" + content.contentHash() + "\"");
+        }
+        Channels.newChannel(response.getOutputStream()).write(data);
+    }
+
     @DeleteMapping("/{herbId}/images/{imageId}")
     public ResponseEntity<ApiResponse<Void>> removeImageFromHerb(@PathVariable Integer herbId,
                                                                  @PathVariable Integer imageId) {
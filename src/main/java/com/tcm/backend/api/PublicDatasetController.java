@@ -0,0 +1,119 @@
+package com.tcm.backend.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.dto.PublishReleaseDto;
+import com.tcm.backend.publisher.DatasetManifestFactory;
+import com.tcm.backend.publisher.DatasetObjectKeys;
+import com.tcm.backend.publisher.DatasetStorageClient;
+import com.tcm.backend.publisher.DatasetVariant;
+import com.tcm.backend.publisher.LatestManifestHolder;
+import com.tcm.backend.service.PublishReleaseService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Unauthenticated dataset downloads for the mobile app. Clients read the manifest, download the archive with
+ * {@code Range} requests and verify each piece against the per-chunk SHA-256 list in the manifest, resuming from
+ * the first chunk that does not match.
+ */
+@RestController
+@RequestMapping("/public/v1/datasets")
+public class PublicDatasetController {
+
+    private static final String ARCHIVE_CONTENT_TYPE = "application/zip";
+
+    @Autowired
+    private PublishReleaseService publishReleaseService;
+
+    @Autowired
+    private DatasetStorageClient datasetStorageClient;
+
+    @Autowired
+    private LatestManifestHolder latestManifestHolder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Polled constantly by the app, so it is served from {@link LatestManifestHolder} and never hits the database.
+     * Before the first publish every poll is a plain 404, without an exception or a log line.
+     */
+    @GetMapping("/latest")
+    public ResponseEntity<byte[]> latestManifest() {
+        return latestManifestHolder.get()
+                .map(latest -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cacheControl(CacheControl.noCache())
+                        .eTag(latest.etag())
+                        .body(latest.json()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{versionName}/manifest")
+    public ResponseEntity<String> manifest(@PathVariable String versionName) {
+        return manifest(publishReleaseService.getPublished(versionName), CacheControl.noCache().cachePublic());
+    }
+
+    /**
+     * Archives on local storage are served here; for remote storage the client is redirected to the object URL,
+     * which serves ranges itself. {@code variant} selects one of the archives listed under {@code variants} in the
+     * manifest.
+     */
+    @GetMapping("/{versionName}/archive")
+    public void archive(@PathVariable String versionName,
+                        @RequestParam(defaultValue = "full") String variant,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PublishReleaseDto release = publishReleaseService.getPublished(versionName);
+        DatasetVariant datasetVariant = DatasetVariant.fromKey(variant);
+        String objectKey = DatasetObjectKeys.variantArchiveKey(release.versionName(), datasetVariant);
+        String etag;
+        String url;
+        if (datasetVariant == DatasetVariant.FULL) {
+            etag = etag(release);
+            url = release.storageUrl();
+        } else {
+            JsonNode entry = objectMapper.readTree(release.manifestJson()).path("variants").path(datasetVariant.key());
+            if (entry.isMissingNode()) {
+                throw new IllegalArgumentException("Variant " + datasetVariant.key() + " is not published for release "
+                        + release.versionName());
+            }
+            etag = "\"" + entry.path("checksum_sha256").asText() + "\"";
+            url = entry.path("url").asText();
+        }
+        Optional<Path> archivePath = datasetStorageClient.localPath(objectKey);
+        if (archivePath.isEmpty()) {
+            response.sendRedirect(url);
+            return;
+        }
+        RangedFileResponse.send(request, response, archivePath.get(), etag, ARCHIVE_CONTENT_TYPE, objectKey);
+    }
+
+    private static ResponseEntity<String> manifest(PublishReleaseDto release, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .eTag(DatasetManifestFactory.etag(release.manifestJson()))
+                .body(release.manifestJson());
+    }
+
+    /**
+     * Strong ETag of the full archive from its SHA-256, so it only changes when the archive bytes do.
+     */
+    private static String etag(PublishReleaseDto release) {
+        return "\"" + release.checksum() + "\"";
+    }
+}
@@ -0,0 +1,34 @@
+package com.tcm.backend.api;
+
+import com.tcm.backend.dto.ApiResponse;
+import com.tcm.backend.dto.PublishJobDto;
+import com.tcm.backend.service.PublishJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/publish/jobs")
+public class PublishJobController {
+
+    @Autowired
+    private PublishJobService publishJobService;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<PublishJobDto>> get(@PathVariable UUID id) {
+        PublishJobDto job = publishJobService.getJob(id);
+        return ResponseEntity.ok(ApiResponse.success("Publish job retrieved", job));
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<ApiResponse<PublishJobDto>> cancel(@PathVariable UUID id) {
+        PublishJobDto job = publishJobService.cancel(id);
+        return ResponseEntity.ok(ApiResponse.success("Publish job cancellation requested", job));
+    }
+}
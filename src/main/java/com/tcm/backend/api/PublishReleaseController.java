@@ -1,8 +1,10 @@
 package com.tcm.backend.api;
 
 import com.tcm.backend.dto.ApiResponse;
+import com.tcm.backend.dto.PublishJobDto;
 import com.tcm.backend.dto.PublishReleaseDto;
-import com.tcm.backend.service.DatasetPublisherService;
+import com.tcm.backend.publisher.DatasetEncoding;
+import com.tcm.backend.service.PublishJobService;
 import com.tcm.backend.service.PublishReleaseService;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
@@ -27,7 +30,7 @@ public class PublishReleaseController {
     private PublishReleaseService publishReleaseService;
 
     @Autowired
-    private DatasetPublisherService datasetPublisherService;
+    private PublishJobService publishJobService;
 
     @PostMapping
     public ResponseEntity<ApiResponse<PublishReleaseDto>> createDraft(@RequestBody Map<String, String> payload) {
@@ -35,7 +38,10 @@ public class PublishReleaseController {
         if (versionName == null || versionName.isBlank()) {
             throw new IllegalArgumentException("versionName is required");
         }
-        PublishReleaseDto draft = publishReleaseService.createDraft(versionName);
+        String encoding = payload.get("encoding");
+        DatasetEncoding datasetEncoding = encoding == null || encoding.isBlank()
+                ? null : DatasetEncoding.valueOf(encoding.toUpperCase(Locale.ROOT));
+        PublishReleaseDto draft = publishReleaseService.createDraft(versionName, datasetEncoding);
         return ResponseEntity.ok(ApiResponse.success("Draft created", draft));
     }
 
@@ -57,9 +63,27 @@ public class PublishReleaseController {
     }
 
     @PostMapping("/{id}/publish")
-    public ResponseEntity<ApiResponse<Void>> publish(@PathVariable UUID id) {
-        datasetPublisherService.publishRelease(id);
-        return ResponseEntity.ok(ApiResponse.success("Release published", null));
+    public ResponseEntity<ApiResponse<PublishJobDto>> publish(@PathVariable UUID id) {
+        PublishJobDto job = publishJobService.enqueue(id);
+        return ResponseEntity.accepted().body(ApiResponse.success("Publish job queued", job));
+    }
+
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<ApiResponse<PublishJobDto>> retry(@PathVariable UUID id) {
+        PublishJobDto job = publishJobService.retry(id);
+        return ResponseEntity.accepted().body(ApiResponse.success("Publish job queued", job));
+    }
+
+    @PostMapping("/{id}/pin")
+    public ResponseEntity<ApiResponse<PublishReleaseDto>> pin(@PathVariable UUID id) {
+        PublishReleaseDto release = publishReleaseService.setPinned(id, true);
+        return ResponseEntity.ok(ApiResponse.success("Release pinned", release));
+    }
+
+    @PostMapping("/{id}/unpin")
+    public ResponseEntity<ApiResponse<PublishReleaseDto>> unpin(@PathVariable UUID id) {
+        PublishReleaseDto release = publishReleaseService.setPinned(id, false);
+        return ResponseEntity.ok(ApiResponse.success("Release unpinned", release));
     }
 
     @GetMapping
@@ -0,0 +1,151 @@
+package com.tcm.backend.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sends an immutable file with a strong ETag, honouring {@code If-None-Match}, a single-range {@code Range} and
+ * {@code If-Range}. The body goes through Tomcat's sendfile when the connector offers it and through
+ * {@link FileChannel#transferTo} into the response stream otherwise, which copies through a small transfer buffer;
+ * the file is never buffered whole.
+ */
+final class RangedFileResponse {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Inclusive byte range; {@link #UNSATISFIABLE} when the requested range starts past the end of the file.
+     */
+    record ByteRange(long start, long end) {
+
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        long length() {
+            return end - start + 1;
+        }
+
+        /**
+         * @return the range to send, {@link #UNSATISFIABLE}, or null when the header is malformed or asks for
+         * several ranges and should be ignored in favour of the full file
+         */
+        static ByteRange parse(String header, long fileLength) {
+            if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+                return null;
+            }
+            String spec = header.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix == 0 || fileLength == 0) {
+                        return UNSATISFIABLE;
+                    }
+                    return new ByteRange(Math.max(0, fileLength - suffix), fileLength - 1);
+                }
+                long start = Long.parseLong(spec.substring(0, dash));
+                // Before the end check: an open end past the file becomes fileLength - 1, which is below start
+                if (start >= fileLength) {
+                    return UNSATISFIABLE;
+                }
+                long end = dash == spec.length() - 1 ? fileLength - 1 : Long.parseLong(spec.substring(dash + 1));
+                if (end < start) {
+                    return null;
+                }
+                return new ByteRange(start, Math.min(end, fileLength - 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private RangedFileResponse() {
+    }
+
+    static void send(HttpServletRequest request, HttpServletResponse response, Path file, String etag,
+                     String contentType, String filename) throws IOException {
+        long fileLength = Files.size(file);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteRange range = null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // Only a strong validator equal to the current ETag keeps the Range; a date or stale ETag means "send it all"
+        if (ifRange == null || ifRange.trim().equals(etag)) {
+            range = ByteRange.parse(request.getHeader(HttpHeaders.RANGE), fileLength);
+        }
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+            return;
+        }
+        if (range == null) {
+            range = new ByteRange(0, fileLength - 1);
+            response.setStatus(HttpServletResponse.SC_OK);
+        } else {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.start() + "-" + range.end() + "/" + fileLength);
+        }
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setContentLengthLong(range.length());
+        if (HttpMethod.HEAD.matches(request.getMethod()) || range.length() == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    throw new IOException("File " + file + " shrank while it was being sent");
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,6 +1,8 @@
 package com.tcm.backend.config.security;
 
 import com.tcm.backend.domain.AdminUser;
+import com.tcm.backend.service.PermissionRegistry;
+import com.tcm.backend.service.PermissionSet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.PermissionEvaluator;
@@ -14,17 +16,22 @@ import java.io.Serializable;
 @Slf4j
 public class CustomPermissionEvaluator implements PermissionEvaluator {
 
+    private final PermissionRegistry permissionRegistry;
+
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
         if (authentication == null || permission == null) {
             return false;
         }
 
-        if (!(authentication.getPrincipal() instanceof AdminUser)) {
+        if (!(authentication.getPrincipal() instanceof AdminUser user)) {
             return false;
         }
 
-        AdminUser user = (AdminUser) authentication.getPrincipal();
+        if (authentication instanceof PermissionAuthenticationToken token) {
+            return token.getPermissionSet().contains(permissionRegistry.permissionId(permission.toString()));
+        }
+
         String permissionName = permission.toString().toUpperCase();
 
         log.debug("Evaluating permission: {} for user: {}", permissionName, user.getEmail());
@@ -39,35 +46,39 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
             return false;
         }
 
-        if (!(authentication.getPrincipal() instanceof AdminUser)) {
+        if (!(authentication.getPrincipal() instanceof AdminUser user)) {
             return false;
         }
 
-        AdminUser user = (AdminUser) authentication.getPrincipal();
-        String permissionName = permission.toString().toUpperCase();
-        String resourceType = targetType.toLowerCase();
+        String permissionName = permission.toString();
 
-        log.debug("Evaluating permission: {} on resource: {} with ID: {} for user: {}",
-                permissionName, resourceType, targetId, user.getEmail());
-
-        // Check if user has the specific permission for the resource type
-        String fullPermissionName = resourceType.toUpperCase() + "_" + permissionName;
-        if (user.hasPermission(fullPermissionName)) {
-            return true;
+        if (log.isDebugEnabled()) {
+            log.debug("Evaluating permission: {} on resource: {} with ID: {} for user: {}",
+                    permissionName, targetType, targetId, user.getEmail());
         }
 
-        // Check if user has the generic permission
-        if (user.hasPermission(permissionName)) {
-            return true;
-        }
+        if (authentication instanceof PermissionAuthenticationToken token) {
+            PermissionSet granted = token.getPermissionSet();
+            if (granted.contains(permissionRegistry.permissionId(targetType, permissionName))
+                    || granted.contains(permissionRegistry.permissionId(permissionName))) {
+                return true;
+            }
+        } else {
+            // Check if user has the specific permission for the resource type
+            String upperCaseName = permissionName.toUpperCase();
+            if (user.hasPermission(targetType.toUpperCase() + "_" + upperCaseName)) {
+                return true;
+            }
 
-        // Special case: Users can always view their own profile
-        if ("user".equals(resourceType) && "READ".equals(permissionName.toUpperCase())) {
-            return targetId != null && targetId.toString().equals(user.getId());
+            // Check if user has the generic permission
+            if (user.hasPermission(upperCaseName)) {
+                return true;
+            }
         }
 
-        // Special case: Users can modify their own profile (limited fields)
-        if ("user".equals(resourceType) && "WRITE".equals(permissionName.toUpperCase())) {
+        // Special case: Users can always view and modify (limited fields of) their own profile
+        if ("user".equalsIgnoreCase(targetType)
+                && ("READ".equalsIgnoreCase(permissionName) || "WRITE".equalsIgnoreCase(permissionName))) {
             return targetId != null && targetId.toString().equals(user.getId());
         }
 
@@ -1,16 +1,18 @@
 package com.tcm.backend.config.security;
 
-import com.tcm.backend.domain.AdminUser;
-import com.tcm.backend.repository.AdminUserRepository;
 import com.tcm.backend.service.JwtTokenService;
+import com.tcm.backend.service.PermissionRegistry;
+import com.tcm.backend.service.PrincipalCache;
+import com.tcm.backend.service.PrincipalSnapshot;
+import com.tcm.backend.service.TokenRevocationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -18,6 +20,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Optional;
 
 @Component
@@ -26,7 +29,16 @@ import java.util.Optional;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenService jwtTokenService;
-    private final AdminUserRepository adminUserRepository;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final PermissionRegistry permissionRegistry;
+
+    /**
+     * Builds the principal from the access token claims instead of loading the user; disabled, locked and changed
+     * users are caught by {@link TokenRevocationRegistry}.
+     */
+    @Value("${app.security.stateless-authentication:true}")
+    private boolean statelessAuthentication;
 
     @Override
     protected void doFilterInternal(
@@ -37,37 +49,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (jwt != null && jwtTokenService.isTokenValid(jwt)) {
-                String userId = jwtTokenService.getUserIdFromToken(jwt);
-                String tokenType = jwtTokenService.getTokenType(jwt);
-
-                // Only allow access tokens for authentication (not refresh tokens)
-                if ("access".equals(tokenType) && userId != null) {
-                    Optional<AdminUser> optionalUser = adminUserRepository.findByIdAndIsEnabledTrue(userId);
-
-                    if (optionalUser.isPresent()) {
-                        AdminUser user = optionalUser.get();
-
-                        // Check if user account is still valid
-                        if (user.isAccountNonLocked() && user.isCredentialsNonExpired()) {
-                            UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
-                            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                            SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                            log.debug("Set authentication for user: {} with roles: {}",
-                                    user.getEmail(), user.getRoleNames());
-                        } else {
-                            log.warn("User account not valid: {} (locked: {}, credentials expired: {})",
-                                    user.getEmail(), !user.isAccountNonLocked(), !user.isCredentialsNonExpired());
-                        }
-                    } else {
-                        log.warn("User not found or disabled for token: {}", userId);
-                    }
-                } else if (tokenType != null && !"access".equals(tokenType)) {
-                    log.warn("Invalid token type for authentication: {}", tokenType);
-                }
+            if (jwt != null) {
+                // One signature check per request; everything below reads the parsed claims
+                jwtTokenService.parse(jwt).ifPresent(token -> authenticate(token, request));
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
@@ -76,6 +60,55 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void authenticate(JwtTokenService.ParsedToken token, HttpServletRequest request) {
+        // Only allow access tokens for authentication (not refresh tokens)
+        if (!token.isAccessToken()) {
+            if (token.type() != null) {
+                log.warn("Invalid token type for authentication: {}", token.type());
+            }
+            return;
+        }
+        String userId = token.userId();
+        if (userId == null) {
+            return;
+        }
+        if (tokenRevocationRegistry.isRevoked(userId, token.issuedAt())) {
+            log.debug("Rejected revoked access token of user: {}", userId);
+            return;
+        }
+        if (statelessAuthentication) {
+            setAuthentication(PrincipalSnapshot.fromClaims(token, permissionRegistry), request);
+            return;
+        }
+
+        Optional<PrincipalSnapshot> optionalUser = principalCache.get(userId);
+        if (optionalUser.isEmpty()) {
+            log.warn("User not found or disabled for token: {}", userId);
+            return;
+        }
+        PrincipalSnapshot user = optionalUser.get();
+
+        // Check if user account is still valid
+        Instant now = Instant.now();
+        if (user.accountNonLocked(now) && user.credentialsNonExpired(now)) {
+            setAuthentication(user, request);
+        } else {
+            log.warn("User account not valid: {} (locked: {}, credentials expired: {})",
+                    user.email(), !user.accountNonLocked(now), !user.credentialsNonExpired(now));
+        }
+    }
+
+    private void setAuthentication(PrincipalSnapshot user, HttpServletRequest request) {
+        PermissionAuthenticationToken authentication =
+            new PermissionAuthenticationToken(user.principal(), user.authorities(), user.permissionSet());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        log.debug("Set authentication for user: {} with roles: {}",
+                user.email(), user.permissionsByRole().keySet());
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         // Try Authorization header first
         String bearerToken = request.getHeader("Authorization");
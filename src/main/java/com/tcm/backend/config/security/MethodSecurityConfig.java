@@ -1,9 +1,9 @@
 package com.tcm.backend.config.security;
 
+import com.tcm.backend.service.PermissionRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 
@@ -13,10 +13,12 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 public class MethodSecurityConfig {
 
     private final CustomPermissionEvaluator permissionEvaluator;
+    private final PermissionRegistry permissionRegistry;
 
     @Bean
     public MethodSecurityExpressionHandler methodSecurityExpressionHandler() {
-        DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
+        PermissionMethodSecurityExpressionHandler expressionHandler =
+                new PermissionMethodSecurityExpressionHandler(permissionRegistry);
         expressionHandler.setPermissionEvaluator(permissionEvaluator);
         return expressionHandler;
     }
@@ -0,0 +1,31 @@
+package com.tcm.backend.config.security;
+
+import com.tcm.backend.service.PermissionSet;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.Serial;
+import java.util.Collection;
+
+/**
+ * Authenticated token that also carries the principal's authorities as a {@link PermissionSet}, so
+ * {@link CustomPermissionEvaluator} and {@link PermissionSecurityExpressionRoot} check them with a bit test.
+ */
+public class PermissionAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final PermissionSet permissionSet;
+
+    public PermissionAuthenticationToken(Object principal,
+                                         Collection<? extends GrantedAuthority> authorities,
+                                         PermissionSet permissionSet) {
+        super(principal, null, authorities);
+        this.permissionSet = permissionSet;
+    }
+
+    public PermissionSet getPermissionSet() {
+        return permissionSet;
+    }
+}
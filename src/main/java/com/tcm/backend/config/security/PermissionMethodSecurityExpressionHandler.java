@@ -0,0 +1,39 @@
+package com.tcm.backend.config.security;
+
+import com.tcm.backend.service.PermissionRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Supplier;
+
+/**
+ * Evaluates method security expressions against a {@link PermissionSecurityExpressionRoot}.
+ */
+public class PermissionMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    private final PermissionRegistry permissionRegistry;
+
+    public PermissionMethodSecurityExpressionHandler(PermissionRegistry permissionRegistry) {
+        this.permissionRegistry = permissionRegistry;
+    }
+
+    @Override
+    public EvaluationContext createEvaluationContext(Supplier<Authentication> authentication, MethodInvocation mi) {
+        StandardEvaluationContext context =
+                (StandardEvaluationContext) super.createEvaluationContext(authentication, mi);
+        context.setRootObject(new PermissionSecurityExpressionRoot(
+                (MethodSecurityExpressionOperations) context.getRootObject().getValue(), permissionRegistry));
+        return context;
+    }
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+                                                                              MethodInvocation invocation) {
+        return new PermissionSecurityExpressionRoot(super.createSecurityExpressionRoot(authentication, invocation),
+                permissionRegistry);
+    }
+}
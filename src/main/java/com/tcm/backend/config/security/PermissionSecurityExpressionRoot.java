@@ -0,0 +1,150 @@
+package com.tcm.backend.config.security;
+
+import com.tcm.backend.service.PermissionRegistry;
+import com.tcm.backend.service.PermissionSet;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Root object of {@code @PreAuthorize} and related expressions. Role and authority checks against a
+ * {@link PermissionAuthenticationToken} are bit tests on its {@link PermissionSet}; Spring's own root, which walks
+ * the granted authorities, is only asked for other authentications and for everything else.
+ */
+public class PermissionSecurityExpressionRoot implements MethodSecurityExpressionOperations {
+
+    public final boolean permitAll = true;
+    public final boolean denyAll = false;
+    public final String read = "read";
+    public final String write = "write";
+    public final String create = "create";
+    public final String delete = "delete";
+    public final String admin = "administration";
+
+    private final MethodSecurityExpressionOperations delegate;
+    private final PermissionRegistry permissionRegistry;
+
+    public PermissionSecurityExpressionRoot(MethodSecurityExpressionOperations delegate,
+                                            PermissionRegistry permissionRegistry) {
+        this.delegate = delegate;
+        this.permissionRegistry = permissionRegistry;
+    }
+
+    @Override
+    public boolean hasAuthority(String authority) {
+        PermissionSet granted = permissionSet();
+        return granted != null ? granted.contains(permissionRegistry.authorityId(authority))
+                : delegate.hasAuthority(authority);
+    }
+
+    @Override
+    public boolean hasAnyAuthority(String... authorities) {
+        PermissionSet granted = permissionSet();
+        if (granted == null) {
+            return delegate.hasAnyAuthority(authorities);
+        }
+        for (String authority : authorities) {
+            if (granted.contains(permissionRegistry.authorityId(authority))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasRole(String role) {
+        PermissionSet granted = permissionSet();
+        return granted != null ? granted.contains(permissionRegistry.roleId(role)) : delegate.hasRole(role);
+    }
+
+    @Override
+    public boolean hasAnyRole(String... roles) {
+        PermissionSet granted = permissionSet();
+        if (granted == null) {
+            return delegate.hasAnyRole(roles);
+        }
+        for (String role : roles) {
+            if (granted.contains(permissionRegistry.roleId(role))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private PermissionSet permissionSet() {
+        return getAuthentication() instanceof PermissionAuthenticationToken token ? token.getPermissionSet() : null;
+    }
+
+    @Override
+    public Authentication getAuthentication() {
+        return delegate.getAuthentication();
+    }
+
+    public Object getPrincipal() {
+        return getAuthentication().getPrincipal();
+    }
+
+    @Override
+    public boolean permitAll() {
+        return true;
+    }
+
+    @Override
+    public boolean denyAll() {
+        return false;
+    }
+
+    @Override
+    public boolean isAnonymous() {
+        return delegate.isAnonymous();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return delegate.isAuthenticated();
+    }
+
+    @Override
+    public boolean isRememberMe() {
+        return delegate.isRememberMe();
+    }
+
+    @Override
+    public boolean isFullyAuthenticated() {
+        return delegate.isFullyAuthenticated();
+    }
+
+    @Override
+    public boolean hasPermission(Object target, Object permission) {
+        return delegate.hasPermission(target, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Object targetId, String targetType, Object permission) {
+        return delegate.hasPermission(targetId, targetType, permission);
+    }
+
+    @Override
+    public void setFilterObject(Object filterObject) {
+        delegate.setFilterObject(filterObject);
+    }
+
+    @Override
+    public Object getFilterObject() {
+        return delegate.getFilterObject();
+    }
+
+    @Override
+    public void setReturnObject(Object returnObject) {
+        delegate.setReturnObject(returnObject);
+    }
+
+    @Override
+    public Object getReturnObject() {
+        return delegate.getReturnObject();
+    }
+
+    @Override
+    public Object getThis() {
+        return delegate.getThis();
+    }
+}
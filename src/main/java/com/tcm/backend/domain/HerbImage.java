@@ -5,6 +5,10 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
+/**
+ * Image metadata only. The binary content lives in {@link HerbImagePayload} so that loading a herb graph
+ * never pulls image bytes from the database.
+ */
 @Data
 @Entity
 @Table(name = "herb_images", 
@@ -31,7 +35,10 @@ public class HerbImage {
     @Column(name = "mime", nullable = false)
     private String mime;
 
-    @Lob
-    @Column(name = "data", nullable = false, columnDefinition = "MEDIUMBLOB")
-    private byte[] data;
-}
\ No newline at end of file
+    @Column(name = "size_bytes")
+    private Integer sizeBytes;
+
+    @Size(max = 64)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+}
@@ -0,0 +1,33 @@
+package com.tcm.backend.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Binary content of a {@link HerbImage}, sharing its primary key. Rows are removed by the database when the
+ * owning image is deleted, so cascading deletes never have to load the blob.
+ */
+@Data
+@Entity
+@Table(name = "herb_image_payloads")
+public class HerbImagePayload {
+
+    @Id
+    private Integer imageId;
+
+    @MapsId
+    @ToString.Exclude
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "image_id",
+                foreignKey = @ForeignKey(name = "fk_herb_image_payloads_image"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private HerbImage image;
+
+    @Lob
+    @ToString.Exclude
+    @Column(name = "data", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] data;
+}
@@ -0,0 +1,88 @@
+package com.tcm.backend.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Persistent publish request for one release, executed by the background publish worker.
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Entity
+@Table(name = "publish_jobs", indexes = @Index(name = "idx_publish_jobs_status", columnList = "status, created_at"))
+public class PublishJob extends AbstractAuditableEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Version
+    private Long version;
+
+    @Column(name = "release_id", nullable = false)
+    private UUID releaseId;
+
+    @Size(max = 128)
+    @Column(name = "worker_id", length = 128)
+    private String workerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stage", length = 16)
+    private Stage stage;
+
+    @Column(name = "herbs_exported", nullable = false)
+    private long herbsExported;
+
+    @Column(name = "bytes_written", nullable = false)
+    private long bytesWritten;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Size(max = 1000)
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public boolean isFinished() {
+        return status == JobStatus.SUCCEEDED || status == JobStatus.FAILED || status == JobStatus.CANCELLED;
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED
+    }
+
+    public enum Stage {
+        EXPORT,
+        DELTA,
+        UPLOAD,
+        MANIFEST
+    }
+}
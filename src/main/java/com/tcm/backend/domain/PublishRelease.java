@@ -1,5 +1,6 @@
 package com.tcm.backend.domain;
 
+import com.tcm.backend.publisher.DatasetEncoding;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -7,6 +8,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
@@ -20,7 +22,8 @@ import java.util.UUID;
 @Data
 @EqualsAndHashCode(callSuper=false)
 @Entity
-@Table(name = "publish_release")
+@Table(name = "publish_release",
+        indexes = @Index(name = "idx_publish_release_unpublished", columnList = "status, storage_url, created_at"))
 public class PublishRelease extends AbstractAuditableEntity {
 
     @Id
@@ -50,6 +53,56 @@ public class PublishRelease extends AbstractAuditableEntity {
     @Column(name = "storage_url")
     private String storageUrl;
 
+    /**
+     * Encoding of the full archive; null uses {@code publisher.export.encoding}.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "encoding", length = 16)
+    private DatasetEncoding encoding;
+
+    /**
+     * {@code DatasetFingerprint} of the archive contents; a later release with the same fingerprint reuses the
+     * stored archive instead of exporting again.
+     */
+    @Size(max = 64)
+    @Column(name = "content_fingerprint", length = 64)
+    private String contentFingerprint;
+
+    @Size(max = 32)
+    @Column(name = "delta_base_version")
+    private String deltaBaseVersion;
+
+    @Column(name = "delta_chain_length", nullable = false)
+    private int deltaChainLength;
+
+    /**
+     * Node that claimed this release for publishing, and until when. Claimed and renewed with conditional
+     * updates in {@code PublishReleaseRepository}; an expired lease can be taken over by another node.
+     */
+    @Size(max = 128)
+    @Column(name = "publish_lease_owner", length = 128)
+    private String publishLeaseOwner;
+
+    @Column(name = "publish_lease_until")
+    private Instant publishLeaseUntil;
+
+    /**
+     * Last publish stage whose results survived a failed attempt, with those results as JSON. A retry with
+     * unchanged content resumes after this stage; cleared once the release is published.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "checkpoint_stage", length = 16)
+    private PublishJob.Stage checkpointStage;
+
+    @Column(name = "checkpoint_json", columnDefinition = "TEXT")
+    private String checkpointJson;
+
+    /**
+     * Pinned releases (the current latest or a rollback target) are never archived by retention.
+     */
+    @Column(name = "pinned", nullable = false)
+    private boolean pinned;
+
     @Column(name = "approved_at")
     private Instant approvedAt;
 
@@ -60,6 +113,7 @@ public class PublishRelease extends AbstractAuditableEntity {
         DRAFT,
         READY_FOR_REVIEW,
         APPROVED,
-        FAILED
+        FAILED,
+        ARCHIVED
     }
 }
@@ -0,0 +1,30 @@
+package com.tcm.backend.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Latest access token cut-off of a user. Not tied to {@code admin_users}, so the revocation made when a user is
+ * deleted still reaches the other nodes after the user row is gone.
+ */
+@Data
+@Entity
+@Table(name = "token_revocations")
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+
+    @Id
+    @Column(name = "user_id", columnDefinition = "CHAR(36)")
+    private String userId;
+
+    @Column(name = "valid_after", nullable = false)
+    private Instant validAfter;
+}
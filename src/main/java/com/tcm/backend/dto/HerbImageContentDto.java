@@ -0,0 +1,11 @@
+package com.tcm.backend.dto;
+
+import java.nio.ByteBuffer;
+
+public record HerbImageContentDto(
+        String filename,
+        String mime,
+        String contentHash,
+        ByteBuffer data
+) {
+}
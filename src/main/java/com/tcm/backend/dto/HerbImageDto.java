@@ -7,9 +7,11 @@ public record HerbImageDto(
         Integer id,
         @NotBlank @Size(max = 255) String filename,
         @NotBlank @Size(max = 64) String mime,
+        Integer sizeBytes,
+        String contentHash,
         byte[] data
 ) {
     public HerbImageDto {
-        // Validation handled by annotations
+        // Validation handled by annotations; data is only populated on upload
     }
-}
\ No newline at end of file
+}
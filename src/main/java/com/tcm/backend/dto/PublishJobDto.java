@@ -0,0 +1,23 @@
+package com.tcm.backend.dto;
+
+import com.tcm.backend.domain.PublishJob.JobStatus;
+import com.tcm.backend.domain.PublishJob.Stage;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record PublishJobDto(
+        UUID id,
+        UUID releaseId,
+        String workerId,
+        JobStatus status,
+        Stage stage,
+        long herbsExported,
+        long bytesWritten,
+        boolean cancelRequested,
+        String errorMessage,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt
+) {
+}
@@ -1,6 +1,7 @@
 package com.tcm.backend.dto;
 
 import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
+import com.tcm.backend.publisher.DatasetEncoding;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -12,9 +13,11 @@ public record PublishReleaseDto(
         UUID id,
         @NotBlank @Size(max = 32) String versionName,
         @NotNull ReleaseStatus status,
+        DatasetEncoding encoding,
         String manifestJson,
         String checksum,
         String storageUrl,
+        boolean pinned,
         Instant approvedAt,
         UUID approvedBy
 ) {
@@ -4,8 +4,14 @@ import com.tcm.backend.domain.*;
 import com.tcm.backend.dto.*;
 import org.springframework.stereotype.Component;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -33,7 +39,11 @@ public class HerbMapper {
         );
     }
 
-    public void updateEntityFromDto(HerbDto dto, Herb herb) {
+    /**
+     * Applies the DTO to the entity and returns the image bytes that still have to be written, keyed by filename.
+     * Images that are sent back without data keep their stored payload.
+     */
+    public Map<String, byte[]> updateEntityFromDto(HerbDto dto, Herb herb) {
         herb.setSourceUrl(dto.sourceUrl());
         herb.setNameZh(dto.nameZh());
         herb.setNamePinyin(dto.namePinyin());
@@ -45,9 +55,10 @@ public class HerbMapper {
         // Handle related entities - clear existing and add new ones
         updateFlavors(dto.flavors(), herb);
         updateFormulas(dto.formulas(), herb);
-        updateImages(dto.images(), herb);
+        Map<String, byte[]> imageData = updateImages(dto.images(), herb);
         updateIndications(dto.indications(), herb);
         updateMeridians(dto.meridians(), herb);
+        return imageData;
     }
 
     public Herb toEntity(HerbDto dto) {
@@ -74,6 +85,43 @@ public class HerbMapper {
         return herb;
     }
 
+    public HerbImageDto toImageDto(HerbImage image) {
+        return new HerbImageDto(image.getId(), image.getFilename(), image.getMime(),
+                image.getSizeBytes(), image.getContentHash(), null);
+    }
+
+    public HerbImage toImageEntity(HerbImageDto dto, Herb herb) {
+        HerbImage image = new HerbImage();
+        image.setHerb(herb);
+        image.setFilename(dto.filename());
+        image.setMime(dto.mime());
+        applyImageData(image, dto.data());
+        return image;
+    }
+
+    public HerbImagePayload toImagePayload(HerbImage image, byte[] data) {
+        HerbImagePayload payload = new HerbImagePayload();
+        payload.setImage(image);
+        payload.setData(data);
+        return payload;
+    }
+
+    private void applyImageData(HerbImage image, byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Image data is required for " + image.getFilename());
+        }
+        image.setSizeBytes(data.length);
+        image.setContentHash(sha256Hex(data));
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private List<HerbFlavorDto> mapFlavorsToDto(List<HerbFlavor> flavors) {
         if (flavors == null) {
             return new ArrayList<>();
@@ -97,7 +145,7 @@ public class HerbMapper {
             return new ArrayList<>();
         }
         return images.stream()
-                .map(image -> new HerbImageDto(image.getId(), image.getFilename(), image.getMime(), image.getData()))
+                .map(this::toImageDto)
                 .collect(Collectors.toList());
     }
 
@@ -153,23 +201,37 @@ public class HerbMapper {
         }
     }
 
-    private void updateImages(List<HerbImageDto> imageDtos, Herb herb) {
+    private Map<String, byte[]> updateImages(List<HerbImageDto> imageDtos, Herb herb) {
         if (herb.getImages() == null) {
             herb.setImages(new ArrayList<>());
         }
-        
+
+        Map<Integer, HerbImage> existingImages = herb.getImages().stream()
+                .filter(image -> image.getId() != null)
+                .collect(Collectors.toMap(HerbImage::getId, Function.identity()));
         herb.getImages().clear();
-        
+
+        Map<String, byte[]> imageData = new HashMap<>();
         if (imageDtos != null) {
             for (HerbImageDto dto : imageDtos) {
-                HerbImage image = new HerbImage();
+                HerbImage existing = dto.id() != null ? existingImages.get(dto.id()) : null;
+                if (existing != null && dto.data() == null) {
+                    existing.setFilename(dto.filename());
+                    existing.setMime(dto.mime());
+                    herb.getImages().add(existing);
+                    continue;
+                }
+
+                HerbImage image = existing != null ? existing : new HerbImage();
                 image.setHerb(herb);
                 image.setFilename(dto.filename());
                 image.setMime(dto.mime());
-                image.setData(dto.data());
+                applyImageData(image, dto.data());
                 herb.getImages().add(image);
+                imageData.put(dto.filename(), dto.data());
             }
         }
+        return imageData;
     }
 
     private void updateIndications(List<HerbIndicationDto> indicationDtos, Herb herb) {
@@ -0,0 +1,26 @@
+package com.tcm.backend.mapper;
+
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.dto.PublishJobDto;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PublishJobMapper {
+
+    public PublishJobDto toDto(PublishJob job) {
+        return new PublishJobDto(
+                job.getId(),
+                job.getReleaseId(),
+                job.getWorkerId(),
+                job.getStatus(),
+                job.getStage(),
+                job.getHerbsExported(),
+                job.getBytesWritten(),
+                job.isCancelRequested(),
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt()
+        );
+    }
+}
@@ -12,9 +12,11 @@ public class PublishReleaseMapper {
                 release.getId(),
                 release.getVersionName(),
                 release.getStatus(),
+                release.getEncoding(),
                 release.getManifestJson(),
                 release.getChecksum(),
                 release.getStorageUrl(),
+                release.isPinned(),
                 release.getApprovedAt(),
                 release.getApprovedBy()
         );
@@ -0,0 +1,297 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Zip archive exports with a parallel pipeline: herbs are read in one snapshot, serialised and deflated on a pool
+ * of platform threads, then appended to the archive in id order, so the output does not depend on scheduling. At
+ * most {@code max-in-flight} shards or images are buffered at any time. Every requested {@link DatasetVariant} gets
+ * its own archive from the same scan: each shard is encoded once per variant, and each image is compressed once and
+ * appended to every variant that carries images. Subclasses only decide how the herbs entry is encoded; image
+ * entries are the same for every encoding and compressed per {@link ArchiveCompressionPolicy}.
+ */
+@Slf4j
+abstract class AbstractArchiveExportService implements DatasetExportService {
+
+    protected final HerbExportReader herbExportReader;
+    private final DatasetSnapshot datasetSnapshot;
+    private final ArchiveCompressionPolicy compressionPolicy;
+
+    @Value("${publisher.export.temp-directory:${java.io.tmpdir}}")
+    private String tempDirectory;
+
+    @Value("${publisher.export.parallel.shard-size:1000}")
+    protected int shardSize;
+
+    @Value("${publisher.export.parallel.compressors:0}")
+    private int compressorParallelism;
+
+    @Value("${publisher.export.parallel.max-in-flight:16}")
+    protected int maxInFlight;
+
+    /**
+     * Framing of a herbs entry made of independently encoded shards: {@code start}, the shards joined by
+     * {@code separator}, then {@code end}.
+     */
+    protected record HerbsLayout(String entryName, byte[] start, byte[] separator, byte[] end) {
+    }
+
+    @FunctionalInterface
+    protected interface ShardSerializer {
+        byte[] serialize(List<HerbExportRecord> records);
+    }
+
+    /**
+     * @param segments one per variant, in the iteration order of the archives map
+     */
+    private record CompressedShard(int herbCount, List<DatasetArchiveWriter.DeflatedSegment> segments) {
+    }
+
+    private record CompressedImage(String entryName, DatasetArchiveWriter.EntryPayload payload) {
+    }
+
+    protected AbstractArchiveExportService(HerbExportReader herbExportReader, DatasetSnapshot datasetSnapshot,
+                                           ArchiveCompressionPolicy compressionPolicy) {
+        this.herbExportReader = herbExportReader;
+        this.datasetSnapshot = datasetSnapshot;
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    @Override
+    public Map<DatasetVariant, ExportResult> exportVariants(Set<DatasetVariant> variants, PublishProgress progress,
+                                                            HerbExportReader.RecordHandler listener) {
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("At least one dataset variant is required");
+        }
+        return datasetSnapshot.read(() -> writeArchives(EnumSet.copyOf(variants), progress, listener));
+    }
+
+    /**
+     * Writes the herbs entry of every archive, passing each herb read to {@code listener} first. Called on the
+     * thread that owns the snapshot transaction; {@code compressors} may be used for CPU work.
+     *
+     * @return number of herbs written
+     */
+    protected abstract int writeHerbs(Map<DatasetVariant, DatasetArchiveWriter> archives, ExecutorService compressors,
+                                      PublishProgress progress, HerbExportReader.RecordHandler listener)
+            throws IOException;
+
+    private Map<DatasetVariant, ExportResult> writeArchives(Set<DatasetVariant> variants, PublishProgress progress,
+                                                            HerbExportReader.RecordHandler listener) {
+        Map<DatasetVariant, Path> paths = new EnumMap<>(DatasetVariant.class);
+        Map<DatasetVariant, ChecksumOutputStream> streams = new EnumMap<>(DatasetVariant.class);
+        try (ExecutorService compressors = Executors.newFixedThreadPool(
+                compressorThreads(), Thread.ofPlatform().name("dataset-deflate-", 0).factory())) {
+            Map<DatasetVariant, DatasetArchiveWriter> archives = new EnumMap<>(DatasetVariant.class);
+            for (DatasetVariant variant : variants) {
+                Path path = DatasetArchiveFiles.createTempFile(tempDirectory, "." + variant.key() + ".zip");
+                paths.put(variant, path);
+                ChecksumOutputStream stream =
+                        new ChecksumOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+                streams.put(variant, stream);
+                archives.put(variant, new DatasetArchiveWriter(stream));
+            }
+            int herbCount = writeHerbs(archives, compressors, progress, listener);
+            int imageCount = writeImages(archives, compressors, progress);
+            for (DatasetVariant variant : variants) {
+                try (ChecksumOutputStream stream = streams.get(variant)) {
+                    archives.get(variant).close();
+                }
+            }
+            log.info("Exported {} herbs and {} images as {} {}", herbCount, imageCount, encoding(), variants);
+
+            Map<DatasetVariant, ExportResult> results = new EnumMap<>(DatasetVariant.class);
+            streams.forEach((variant, stream) -> results.put(variant, new ExportResult(paths.get(variant),
+                    stream.getDigest())));
+            progress.bytesWritten(results.values().stream().mapToLong(ExportResult::sizeBytes).sum());
+            return results;
+        } catch (CancellationException e) {
+            discard(streams, paths);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            discard(streams, paths);
+            throw new IllegalStateException("Failed to export dataset", e);
+        }
+    }
+
+    private static void discard(Map<DatasetVariant, ChecksumOutputStream> streams,
+                                Map<DatasetVariant, Path> paths) {
+        streams.values().forEach(stream -> {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // the file is deleted below
+            }
+        });
+        paths.values().forEach(DatasetArchiveFiles::deleteQuietly);
+    }
+
+    /**
+     * Reads herbs on the calling thread and hands each shard of {@code shard-size} records to the compressor pool
+     * for serialisation and deflate.
+     */
+    protected int writeShardedHerbs(Map<DatasetVariant, DatasetArchiveWriter> archives, ExecutorService compressors,
+                                    PublishProgress progress, HerbExportReader.RecordHandler listener,
+                                    HerbsLayout layout, ShardSerializer serializer) throws IOException {
+        Deque<CompletableFuture<CompressedShard>> inFlight = new ArrayDeque<>();
+        List<HerbExportRecord> shard = new ArrayList<>(shardSize);
+        int[] herbCount = {0};
+        ShardWriter shardWriter = new ShardWriter(archives, deflate(layout.separator()), progress);
+
+        DatasetArchiveWriter.DeflatedSegment start = deflate(layout.start());
+        for (DatasetArchiveWriter archive : archives.values()) {
+            archive.beginEntry(layout.entryName());
+            archive.writeSegment(start);
+        }
+        herbExportReader.readHerbs(listener.andThen(record -> {
+            shard.add(record);
+            if (shard.size() == shardSize) {
+                submitShard(shardWriter, compressors, inFlight, List.copyOf(shard), herbCount, serializer);
+                shard.clear();
+            }
+        }));
+        if (!shard.isEmpty()) {
+            submitShard(shardWriter, compressors, inFlight, List.copyOf(shard), herbCount, serializer);
+        }
+        while (!inFlight.isEmpty()) {
+            shardWriter.append(inFlight.removeFirst().join(), herbCount);
+        }
+        DatasetArchiveWriter.DeflatedSegment end = deflate(layout.end());
+        for (DatasetArchiveWriter archive : archives.values()) {
+            archive.writeSegment(end);
+            archive.endEntry();
+        }
+        return herbCount[0];
+    }
+
+    /**
+     * Serialises records as consecutive root values with {@code mapper}, for use as a {@link ShardSerializer}.
+     */
+    protected static byte[] serialize(ObjectMapper mapper, List<HerbExportRecord> records, String rootSeparator) {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.createGenerator(encoded)) {
+            if (rootSeparator != null) {
+                generator.setRootValueSeparator(new SerializedString(rootSeparator));
+            }
+            for (HerbExportRecord record : records) {
+                generator.writeObject(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encoded.toByteArray();
+    }
+
+    private void submitShard(ShardWriter shardWriter, ExecutorService compressors,
+                             Deque<CompletableFuture<CompressedShard>> inFlight, List<HerbExportRecord> records,
+                             int[] herbCount, ShardSerializer serializer) throws IOException {
+        shardWriter.progress().checkCancelled();
+        if (inFlight.size() >= maxInFlight) {
+            shardWriter.append(inFlight.removeFirst().join(), herbCount);
+        }
+        List<DatasetVariant> variants = List.copyOf(shardWriter.archives().keySet());
+        inFlight.addLast(CompletableFuture.supplyAsync(() -> new CompressedShard(records.size(), variants.stream()
+                .map(variant -> deflate(serializer.serialize(variant.apply(records))))
+                .toList()), compressors));
+    }
+
+    /**
+     * Appends compressed shards to every archive in read order, with the layout separator between shards.
+     */
+    private record ShardWriter(Map<DatasetVariant, DatasetArchiveWriter> archives,
+                               DatasetArchiveWriter.DeflatedSegment separator, PublishProgress progress) {
+
+        void append(CompressedShard shard, int[] herbCount) throws IOException {
+            if (shard.herbCount() == 0) {
+                return;
+            }
+            int index = 0;
+            for (DatasetArchiveWriter archive : archives.values()) {
+                if (herbCount[0] > 0 && separator.uncompressed().length > 0) {
+                    archive.writeSegment(separator);
+                }
+                archive.writeSegment(shard.segments().get(index++));
+            }
+            herbCount[0] += shard.herbCount();
+            progress.herbsExported(herbCount[0]);
+            progress.bytesWritten(bytesWritten(archives));
+        }
+    }
+
+    private int writeImages(Map<DatasetVariant, DatasetArchiveWriter> archives, ExecutorService compressors,
+                            PublishProgress progress) throws IOException {
+        List<DatasetArchiveWriter> imageArchives = archives.entrySet().stream()
+                .filter(entry -> entry.getKey().includesImages())
+                .map(Map.Entry::getValue)
+                .toList();
+        if (imageArchives.isEmpty()) {
+            return 0;
+        }
+        Set<String> writtenEntries = new HashSet<>();
+        Deque<CompletableFuture<CompressedImage>> inFlight = new ArrayDeque<>();
+        int imageCount = herbExportReader.readImagePayloads((image, content) -> {
+            String entryName = image.archivePath();
+            if (!writtenEntries.add(entryName)) {
+                return;
+            }
+            progress.checkCancelled();
+            byte[] data = content.readAllBytes();
+            if (inFlight.size() >= maxInFlight) {
+                appendImage(imageArchives, inFlight.removeFirst().join());
+                progress.bytesWritten(bytesWritten(archives));
+            }
+            inFlight.addLast(CompletableFuture.supplyAsync(
+                    () -> new CompressedImage(entryName, compressionPolicy.compressImage(image, data)),
+                    compressors));
+        });
+        while (!inFlight.isEmpty()) {
+            appendImage(imageArchives, inFlight.removeFirst().join());
+        }
+        return imageCount;
+    }
+
+    private static void appendImage(List<DatasetArchiveWriter> archives, CompressedImage image) throws IOException {
+        for (DatasetArchiveWriter archive : archives) {
+            archive.writeEntry(image.entryName(), image.payload());
+        }
+    }
+
+    protected static long bytesWritten(Map<DatasetVariant, DatasetArchiveWriter> archives) {
+        return archives.values().stream().mapToLong(DatasetArchiveWriter::bytesWritten).sum();
+    }
+
+    /**
+     * Deflates part of the herbs entry according to the {@link ArchiveCompressionPolicy}.
+     */
+    protected DatasetArchiveWriter.DeflatedSegment deflate(byte[] data) {
+        return compressionPolicy.compressText(data);
+    }
+
+    private int compressorThreads() {
+        return compressorParallelism > 0 ? compressorParallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
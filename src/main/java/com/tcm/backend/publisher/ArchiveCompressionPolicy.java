@@ -0,0 +1,158 @@
+package com.tcm.backend.publisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Decides how each archive entry is compressed. Images that are already compressed (JPEG, PNG, GIF, WebP) are
+ * stored as-is, since deflating them costs CPU for a few bytes at best; herbs and other images are deflated at
+ * {@code text-level}. Thread CPU time and bytes in and out are recorded per entry type and method under
+ * {@code dataset.export.compression.*}.
+ */
+@Slf4j
+@Component
+public class ArchiveCompressionPolicy {
+
+    enum EntryType {
+        HERBS,
+        IMAGE
+    }
+
+    enum Method {
+        DEFLATED,
+        STORED
+    }
+
+    private record Meters(Timer cpu, Counter bytesIn, Counter bytesOut) {
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final int textLevel;
+    private final Set<String> storedMediaTypes;
+    private final Map<EntryType, Map<Method, Meters>> meters = new EnumMap<>(EntryType.class);
+
+    public ArchiveCompressionPolicy(
+            @Value("${publisher.export.compression.text-level:6}") int textLevel,
+            @Value("${publisher.export.compression.stored-media-types:image/jpeg,image/png,image/gif,image/webp}")
+            Set<String> storedMediaTypes,
+            MeterRegistry meterRegistry) {
+        this.textLevel = textLevel;
+        this.storedMediaTypes = storedMediaTypes.stream()
+                .map(type -> type.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        for (EntryType entryType : EntryType.values()) {
+            Map<Method, Meters> byMethod = new EnumMap<>(Method.class);
+            for (Method method : Method.values()) {
+                String[] tags = {"entry", tagValue(entryType), "method", tagValue(method)};
+                byMethod.put(method, new Meters(
+                        Timer.builder("dataset.export.compression.cpu")
+                                .description("Thread CPU time spent compressing archive entries")
+                                .tags(tags)
+                                .register(meterRegistry),
+                        Counter.builder("dataset.export.compression.bytes.in")
+                                .baseUnit("bytes")
+                                .tags(tags)
+                                .register(meterRegistry),
+                        Counter.builder("dataset.export.compression.bytes.out")
+                                .baseUnit("bytes")
+                                .tags(tags)
+                                .register(meterRegistry)));
+            }
+            meters.put(entryType, byMethod);
+        }
+        log.info("Archive text entries deflated at level {}, stored media types {}", textLevel, this.storedMediaTypes);
+    }
+
+    public int textLevel() {
+        return textLevel;
+    }
+
+    /**
+     * Settings that change archive bytes, in a stable form for {@link DatasetFingerprint}.
+     */
+    String settings() {
+        return "text-level=" + textLevel + ";stored=" + String.join(",", new TreeSet<>(storedMediaTypes));
+    }
+
+    /**
+     * Deflates one segment of the herbs entry. Safe to call from any thread.
+     */
+    DatasetArchiveWriter.DeflatedSegment compressText(byte[] data) {
+        return measure(EntryType.HERBS, Method.DEFLATED, data.length,
+                () -> DatasetArchiveWriter.deflate(data, textLevel));
+    }
+
+    /**
+     * Stores already-compressed images and deflates the rest. Safe to call from any thread.
+     */
+    DatasetArchiveWriter.EntryPayload compressImage(HerbExportRecord.ImageRecord image, byte[] data) {
+        if (isPrecompressed(image, data)) {
+            return measure(EntryType.IMAGE, Method.STORED, data.length,
+                    () -> DatasetArchiveWriter.StoredPayload.of(data));
+        }
+        return measure(EntryType.IMAGE, Method.DEFLATED, data.length,
+                () -> DatasetArchiveWriter.deflate(data, textLevel));
+    }
+
+    /**
+     * Trusts the declared mime type first and falls back to magic bytes, since older images were uploaded without
+     * one.
+     */
+    boolean isPrecompressed(HerbExportRecord.ImageRecord image, byte[] data) {
+        if (image.mime() != null && storedMediaTypes.contains(image.mime().toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        return startsWith(data, 0xFF, 0xD8, 0xFF)
+                || startsWith(data, 0x89, 'P', 'N', 'G')
+                || startsWith(data, 'G', 'I', 'F', '8')
+                || (startsWith(data, 'R', 'I', 'F', 'F') && data.length >= 12
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P');
+    }
+
+    private <T extends DatasetArchiveWriter.EntryPayload> T measure(EntryType entryType, Method method,
+                                                                    long bytesIn, Supplier<T> compression) {
+        boolean cpuTimeSupported = THREADS.isCurrentThreadCpuTimeSupported();
+        long cpuStart = cpuTimeSupported ? THREADS.getCurrentThreadCpuTime() : 0;
+        T payload = compression.get();
+
+        Meters entryMeters = meters.get(entryType).get(method);
+        if (cpuTimeSupported) {
+            entryMeters.cpu().record(THREADS.getCurrentThreadCpuTime() - cpuStart, TimeUnit.NANOSECONDS);
+        }
+        entryMeters.bytesIn().increment(bytesIn);
+        entryMeters.bytesOut().increment(payload.compressedSize());
+        return payload;
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
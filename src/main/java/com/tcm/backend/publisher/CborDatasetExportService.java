@@ -0,0 +1,43 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORConstants;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Writes herbs as a CBOR (RFC 8949) indefinite-length array in {@code herbs.cbor}. Shards are plain concatenated
+ * items, so no separator is needed between them.
+ */
+@Service
+public class CborDatasetExportService extends AbstractArchiveExportService {
+
+    static final String HERBS_ENTRY = "herbs.cbor";
+
+    private static final HerbsLayout LAYOUT = new HerbsLayout(HERBS_ENTRY,
+            new byte[]{CBORConstants.BYTE_ARRAY_INDEFINITE}, new byte[0], new byte[]{CBORConstants.BYTE_BREAK});
+
+    private final ObjectMapper cborMapper;
+
+    public CborDatasetExportService(HerbExportReader herbExportReader, ObjectMapper objectMapper,
+                                    DatasetSnapshot datasetSnapshot, ArchiveCompressionPolicy compressionPolicy) {
+        super(herbExportReader, datasetSnapshot, compressionPolicy);
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    @Override
+    public DatasetEncoding encoding() {
+        return DatasetEncoding.CBOR;
+    }
+
+    @Override
+    protected int writeHerbs(Map<DatasetVariant, DatasetArchiveWriter> archives, ExecutorService compressors,
+                             PublishProgress progress, HerbExportReader.RecordHandler listener) throws IOException {
+        return writeShardedHerbs(archives, compressors, progress, listener, LAYOUT,
+                records -> serialize(cborMapper, records, null));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tcm.backend.publisher;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Counts and SHA-256 hashes every byte on its way to the underlying stream, both as a whole and per fixed-size
+ * chunk, so the archive digest is known as soon as writing finishes without reading the file back.
+ */
+public class ChecksumOutputStream extends FilterOutputStream {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final MessageDigest digest;
+    private final MessageDigest chunkDigest;
+    private final int chunkSize;
+    private final List<String> chunkChecksums = new ArrayList<>();
+    private long byteCount;
+    private int chunkBytes;
+    private DatasetDigest result;
+
+    public ChecksumOutputStream(OutputStream out) {
+        this(out, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChecksumOutputStream(OutputStream out, int chunkSize) {
+        super(out);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.digest = sha256();
+        this.chunkDigest = sha256();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (result != null) {
+            throw new IllegalStateException("Digest already computed");
+        }
+        out.write(b, off, len);
+        digest.update(b, off, len);
+        byteCount += len;
+        while (len > 0) {
+            int take = Math.min(len, chunkSize - chunkBytes);
+            chunkDigest.update(b, off, take);
+            chunkBytes += take;
+            off += take;
+            len -= take;
+            if (chunkBytes == chunkSize) {
+                completeChunk();
+            }
+        }
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public String getChecksum() {
+        return getDigest().sha256();
+    }
+
+    /**
+     * Finishes hashing. Call once all bytes are written; later writes are rejected.
+     */
+    public DatasetDigest getDigest() {
+        if (result == null) {
+            if (chunkBytes > 0) {
+                completeChunk();
+            }
+            result = new DatasetDigest(byteCount, HexFormat.of().formatHex(digest.digest()), chunkSize,
+                    List.copyOf(chunkChecksums));
+        }
+        return result;
+    }
+
+    private void completeChunk() {
+        chunkChecksums.add(HexFormat.of().formatHex(chunkDigest.digest()));
+        chunkBytes = 0;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Writes herbs as a {@link ColumnarHerbTable} encoded in CBOR in {@code herbs.columnar.cbor}. Dictionaries span the
+ * whole dataset, so one table per variant is built in memory before it is encoded; the encoded bytes are still
+ * deflated in parallel segments.
+ */
+@Service
+public class ColumnarDatasetExportService extends AbstractArchiveExportService {
+
+    static final String HERBS_ENTRY = "herbs.columnar.cbor";
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+
+    private final ObjectMapper cborMapper;
+
+    public ColumnarDatasetExportService(HerbExportReader herbExportReader, ObjectMapper objectMapper,
+                                        DatasetSnapshot datasetSnapshot, ArchiveCompressionPolicy compressionPolicy) {
+        super(herbExportReader, datasetSnapshot, compressionPolicy);
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    @Override
+    public DatasetEncoding encoding() {
+        return DatasetEncoding.COLUMNAR;
+    }
+
+    @Override
+    protected int writeHerbs(Map<DatasetVariant, DatasetArchiveWriter> archives, ExecutorService compressors,
+                             PublishProgress progress, HerbExportReader.RecordHandler listener) throws IOException {
+        Map<DatasetVariant, ColumnarHerbTable.Builder> tables = new EnumMap<>(DatasetVariant.class);
+        archives.keySet().forEach(variant -> tables.put(variant, new ColumnarHerbTable.Builder()));
+        int[] herbCount = {0};
+        herbExportReader.readHerbs(listener.andThen(record -> {
+            tables.forEach((variant, table) -> table.add(variant.apply(record)));
+            if (++herbCount[0] % shardSize == 0) {
+                progress.checkCancelled();
+                progress.herbsExported(herbCount[0]);
+            }
+        }));
+
+        for (Map.Entry<DatasetVariant, DatasetArchiveWriter> entry : archives.entrySet()) {
+            byte[] encoded = cborMapper.writeValueAsBytes(tables.remove(entry.getKey()).build());
+            writeSegmented(entry.getValue(), encoded, compressors);
+        }
+
+        progress.herbsExported(herbCount[0]);
+        progress.bytesWritten(bytesWritten(archives));
+        return herbCount[0];
+    }
+
+    private void writeSegmented(DatasetArchiveWriter archive, byte[] encoded, ExecutorService compressors)
+            throws IOException {
+        Deque<CompletableFuture<DatasetArchiveWriter.DeflatedSegment>> inFlight = new ArrayDeque<>();
+        archive.beginEntry(HERBS_ENTRY);
+        for (int offset = 0; offset < encoded.length; offset += SEGMENT_SIZE) {
+            byte[] segment = Arrays.copyOfRange(encoded, offset, Math.min(encoded.length, offset + SEGMENT_SIZE));
+            if (inFlight.size() >= maxInFlight) {
+                archive.writeSegment(inFlight.removeFirst().join());
+            }
+            inFlight.addLast(CompletableFuture.supplyAsync(() -> deflate(segment), compressors));
+        }
+        while (!inFlight.isEmpty()) {
+            archive.writeSegment(inFlight.removeFirst().join());
+        }
+        archive.endEntry();
+    }
+}
@@ -0,0 +1,210 @@
+package com.tcm.backend.publisher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Column-oriented layout of the herb list. Each string attribute has its own dictionary of distinct values and a
+ * column of indices into it ({@code -1} for null). List attributes add an offsets column: herb {@code i} owns
+ * {@code indices[offsets[i]..offsets[i + 1])}. Repeated values such as flavours, meridians and mime types are
+ * stored once.
+ */
+record ColumnarHerbTable(
+        int[] ids,
+        StringColumn sourceUrl,
+        StringColumn nameZh,
+        StringColumn namePinyin,
+        StringColumn descZh,
+        StringColumn descEn,
+        StringColumn appearance,
+        StringColumn property,
+        ListColumn flavors,
+        ListColumn formulas,
+        ListColumn indications,
+        ListColumn meridians,
+        ImageColumns images
+) {
+
+    static final int NULL_INDEX = -1;
+
+    record StringColumn(List<String> dictionary, int[] indices) {
+
+        String get(int row) {
+            int index = indices[row];
+            return index == NULL_INDEX ? null : dictionary.get(index);
+        }
+    }
+
+    record ListColumn(List<String> dictionary, int[] offsets, int[] indices) {
+
+        List<String> get(int row) {
+            List<String> values = new ArrayList<>(offsets[row + 1] - offsets[row]);
+            for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                values.add(indices[i] == NULL_INDEX ? null : dictionary.get(indices[i]));
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Images flattened across herbs; {@code offsets} maps herbs to image rows like a {@link ListColumn}.
+     */
+    record ImageColumns(int[] offsets, int[] ids, StringColumn filename, StringColumn mime, int[] sizeBytes,
+                        StringColumn contentHash) {
+    }
+
+    int herbCount() {
+        return ids.length;
+    }
+
+    /**
+     * Rebuilds the row-oriented records, as a client decoding the archive would.
+     */
+    List<HerbExportRecord> toRecords() {
+        List<HerbExportRecord> records = new ArrayList<>(ids.length);
+        for (int row = 0; row < ids.length; row++) {
+            List<HerbExportRecord.ImageRecord> herbImages = new ArrayList<>();
+            for (int i = images.offsets()[row]; i < images.offsets()[row + 1]; i++) {
+                int size = images.sizeBytes()[i];
+                herbImages.add(new HerbExportRecord.ImageRecord(images.ids()[i], images.filename().get(i),
+                        images.mime().get(i), size == NULL_INDEX ? null : size, images.contentHash().get(i)));
+            }
+            records.add(new HerbExportRecord(ids[row], sourceUrl.get(row), nameZh.get(row), namePinyin.get(row),
+                    descZh.get(row), descEn.get(row), appearance.get(row), property.get(row), flavors.get(row),
+                    formulas.get(row), indications.get(row), meridians.get(row), herbImages));
+        }
+        return records;
+    }
+
+    static final class Builder {
+
+        private final IntColumn ids = new IntColumn();
+        private final StringColumnBuilder sourceUrl = new StringColumnBuilder();
+        private final StringColumnBuilder nameZh = new StringColumnBuilder();
+        private final StringColumnBuilder namePinyin = new StringColumnBuilder();
+        private final StringColumnBuilder descZh = new StringColumnBuilder();
+        private final StringColumnBuilder descEn = new StringColumnBuilder();
+        private final StringColumnBuilder appearance = new StringColumnBuilder();
+        private final StringColumnBuilder property = new StringColumnBuilder();
+        private final ListColumnBuilder flavors = new ListColumnBuilder();
+        private final ListColumnBuilder formulas = new ListColumnBuilder();
+        private final ListColumnBuilder indications = new ListColumnBuilder();
+        private final ListColumnBuilder meridians = new ListColumnBuilder();
+        private final IntColumn imageOffsets = new IntColumn();
+        private final IntColumn imageIds = new IntColumn();
+        private final StringColumnBuilder imageFilename = new StringColumnBuilder();
+        private final StringColumnBuilder imageMime = new StringColumnBuilder();
+        private final IntColumn imageSizeBytes = new IntColumn();
+        private final StringColumnBuilder imageContentHash = new StringColumnBuilder();
+
+        Builder() {
+            imageOffsets.add(0);
+        }
+
+        void add(HerbExportRecord record) {
+            ids.add(record.id());
+            sourceUrl.add(record.sourceUrl());
+            nameZh.add(record.nameZh());
+            namePinyin.add(record.namePinyin());
+            descZh.add(record.descZh());
+            descEn.add(record.descEn());
+            appearance.add(record.appearance());
+            property.add(record.property());
+            flavors.add(record.flavors());
+            formulas.add(record.formulas());
+            indications.add(record.indications());
+            meridians.add(record.meridians());
+            for (HerbExportRecord.ImageRecord image : record.images()) {
+                imageIds.add(image.id());
+                imageFilename.add(image.filename());
+                imageMime.add(image.mime());
+                imageSizeBytes.add(image.sizeBytes() != null ? image.sizeBytes() : NULL_INDEX);
+                imageContentHash.add(image.contentHash());
+            }
+            imageOffsets.add(imageIds.size);
+        }
+
+        int size() {
+            return ids.size;
+        }
+
+        ColumnarHerbTable build() {
+            return new ColumnarHerbTable(ids.toArray(), sourceUrl.build(), nameZh.build(), namePinyin.build(),
+                    descZh.build(), descEn.build(), appearance.build(), property.build(), flavors.build(),
+                    formulas.build(), indications.build(), meridians.build(),
+                    new ImageColumns(imageOffsets.toArray(), imageIds.toArray(), imageFilename.build(),
+                            imageMime.build(), imageSizeBytes.toArray(), imageContentHash.build()));
+        }
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> indexByValue = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final Function<String, Integer> nextIndex = value -> {
+            values.add(value);
+            return values.size() - 1;
+        };
+
+        int indexOf(String value) {
+            return value == null ? NULL_INDEX : indexByValue.computeIfAbsent(value, nextIndex);
+        }
+    }
+
+    private static final class StringColumnBuilder {
+
+        private final Dictionary dictionary = new Dictionary();
+        private final IntColumn indices = new IntColumn();
+
+        void add(String value) {
+            indices.add(dictionary.indexOf(value));
+        }
+
+        StringColumn build() {
+            return new StringColumn(List.copyOf(dictionary.values), indices.toArray());
+        }
+    }
+
+    private static final class ListColumnBuilder {
+
+        private final Dictionary dictionary = new Dictionary();
+        private final IntColumn offsets = new IntColumn();
+        private final IntColumn indices = new IntColumn();
+
+        ListColumnBuilder() {
+            offsets.add(0);
+        }
+
+        void add(List<String> values) {
+            for (String value : values) {
+                indices.add(dictionary.indexOf(value));
+            }
+            offsets.add(indices.size);
+        }
+
+        ListColumn build() {
+            return new ListColumn(List.copyOf(dictionary.values), offsets.toArray(), indices.toArray());
+        }
+    }
+
+    private static final class IntColumn {
+
+        private int[] values = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
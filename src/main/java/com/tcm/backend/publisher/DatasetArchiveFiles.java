@@ -0,0 +1,40 @@
+package com.tcm.backend.publisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+
+final class DatasetArchiveFiles {
+
+    private DatasetArchiveFiles() {
+    }
+
+    static Path createTempFile(String directory, String suffix) {
+        try {
+            Path path = Path.of(directory);
+            Files.createDirectories(path);
+            return Files.createTempFile(path, "dataset-", suffix);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create dataset export file", e);
+        }
+    }
+
+    /**
+     * Entry for archives written with {@code ZipOutputStream}, stamped with {@link DatasetArchiveWriter#ENTRY_TIME}
+     * instead of the current time.
+     */
+    static ZipEntry zipEntry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTimeLocal(DatasetArchiveWriter.ENTRY_TIME);
+        return entry;
+    }
+
+    static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // best effort cleanup of a partial export
+        }
+    }
+}
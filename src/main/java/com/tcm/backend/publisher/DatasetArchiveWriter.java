@@ -0,0 +1,322 @@
+package com.tcm.backend.publisher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Minimal zip writer for entries that were compressed elsewhere. A deflated entry is a sequence of raw deflate
+ * segments ending on a sync flush, so segments compressed independently on different threads concatenate into one
+ * valid deflate stream (the same trick pigz uses). Stored entries arrive complete with their CRC. The writer itself
+ * only copies bytes. Every entry carries the same fixed timestamp, so identical content gives identical archives.
+ *
+ * <p>Archives with more than 65535 entries, or with entries or a central directory starting beyond 4 GiB, get the
+ * zip64 records for those values only; smaller archives are plain zip. A single entry must still be under 4 GiB.
+ */
+final class DatasetArchiveWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_FIELD = 0x0001;
+    private static final int VERSION_NEEDED = 20;
+    private static final int VERSION_NEEDED_ZIP64 = 45;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+    private static final int FLAG_UTF8 = 0x800;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int MAX_ENTRIES_WITHOUT_ZIP64 = 0xFFFF;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+    /** Timestamp written on every entry; the earliest a DOS date can hold. */
+    static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+    /** Empty final fixed-Huffman block terminating a sync-flushed deflate stream. */
+    private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+
+    private final OutputStream outputStream;
+    private final int dosTime;
+    private final List<CentralEntry> centralDirectory = new ArrayList<>();
+    private long position;
+    private OpenEntry openEntry;
+
+    /**
+     * Complete content of a single-segment entry, prepared off the writer thread.
+     */
+    sealed interface EntryPayload permits DeflatedSegment, StoredPayload {
+
+        long compressedSize();
+    }
+
+    /**
+     * Raw deflate output of one chunk of an entry, together with the uncompressed bytes for the entry CRC.
+     */
+    record DeflatedSegment(byte[] compressed, byte[] uncompressed) implements EntryPayload {
+
+        @Override
+        public long compressedSize() {
+            return compressed.length;
+        }
+    }
+
+    /**
+     * Bytes written as-is, for content that is already compressed.
+     */
+    record StoredPayload(byte[] data, long crc) implements EntryPayload {
+
+        static StoredPayload of(byte[] data) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            return new StoredPayload(data, crc.getValue());
+        }
+
+        @Override
+        public long compressedSize() {
+            return data.length;
+        }
+    }
+
+    private record OpenEntry(String name, byte[] nameBytes, long offset, CRC32 crc, long[] sizes) {
+    }
+
+    private record CentralEntry(byte[] nameBytes, int flags, int method, long crc, long compressedSize, long size,
+                                long offset) {
+    }
+
+    DatasetArchiveWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+        this.dosTime = toDosTime(ENTRY_TIME);
+    }
+
+    /**
+     * Compresses {@code data} into a sync-flushed raw deflate segment. Safe to call from any thread.
+     */
+    static DeflatedSegment deflate(byte[] data, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[Math.max(512, Math.min(data.length + 64, 64 * 1024))];
+            int written;
+            do {
+                written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                compressed.write(buffer, 0, written);
+            } while (written == buffer.length);
+            return new DeflatedSegment(compressed.toByteArray(), data);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    void writeEntry(String name, EntryPayload payload) throws IOException {
+        switch (payload) {
+            case DeflatedSegment segment -> {
+                beginEntry(name);
+                writeSegment(segment);
+                endEntry();
+            }
+            case StoredPayload stored -> writeStoredEntry(name, stored);
+        }
+    }
+
+    /**
+     * Stored entries carry their sizes and CRC in the local header, so no data descriptor follows.
+     */
+    private void writeStoredEntry(String name, StoredPayload payload) throws IOException {
+        checkCanBeginEntry();
+        long size = payload.data().length;
+        if (size > MAX_SIZE) {
+            throw new IllegalStateException("Entry " + name + " needs zip64, which is not supported");
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        CentralEntry entry = new CentralEntry(nameBytes, FLAG_UTF8, METHOD_STORED, payload.crc(), size, size, position);
+        write(localHeader(entry));
+        write(payload.data());
+        centralDirectory.add(entry);
+    }
+
+    void beginEntry(String name) throws IOException {
+        checkCanBeginEntry();
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        openEntry = new OpenEntry(name, nameBytes, position, new CRC32(), new long[2]);
+        write(localHeader(new CentralEntry(nameBytes, FLAG_DATA_DESCRIPTOR | FLAG_UTF8, METHOD_DEFLATED, 0, 0, 0,
+                position)));
+    }
+
+    void writeSegment(DeflatedSegment segment) throws IOException {
+        if (openEntry == null) {
+            throw new IllegalStateException("No open entry");
+        }
+        openEntry.crc().update(segment.uncompressed());
+        openEntry.sizes()[0] += segment.compressed().length;
+        openEntry.sizes()[1] += segment.uncompressed().length;
+        write(segment.compressed());
+    }
+
+    void endEntry() throws IOException {
+        if (openEntry == null) {
+            throw new IllegalStateException("No open entry");
+        }
+        write(FINAL_BLOCK);
+        long compressedSize = openEntry.sizes()[0] + FINAL_BLOCK.length;
+        long size = openEntry.sizes()[1];
+        if (compressedSize > MAX_SIZE || size > MAX_SIZE) {
+            throw new IllegalStateException("Entry " + openEntry.name() + " needs zip64, which is not supported");
+        }
+
+        ByteBuffer descriptor = littleEndian(16);
+        descriptor.putInt(DATA_DESCRIPTOR_SIGNATURE);
+        descriptor.putInt((int) openEntry.crc().getValue());
+        descriptor.putInt((int) compressedSize);
+        descriptor.putInt((int) size);
+        write(descriptor.array());
+
+        centralDirectory.add(new CentralEntry(openEntry.nameBytes(), FLAG_DATA_DESCRIPTOR | FLAG_UTF8,
+                METHOD_DEFLATED, openEntry.crc().getValue(), compressedSize, size, openEntry.offset()));
+        openEntry = null;
+    }
+
+    long bytesWritten() {
+        return position;
+    }
+
+    /**
+     * Writes the central directory. Does not close the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (openEntry != null) {
+            throw new IllegalStateException("Entry " + openEntry.name() + " is still open");
+        }
+        long centralOffset = position;
+        for (CentralEntry entry : centralDirectory) {
+            // The offset is the only per-entry value that can outgrow 32 bits; sizes are checked as entries end
+            boolean zip64Offset = entry.offset() > MAX_SIZE;
+            int extraLength = zip64Offset ? 12 : 0;
+            ByteBuffer header = littleEndian(46 + entry.nameBytes().length + extraLength);
+            header.putInt(CENTRAL_HEADER_SIGNATURE);
+            header.putShort((short) (zip64Offset ? VERSION_NEEDED_ZIP64 : VERSION_NEEDED));
+            header.putShort((short) (zip64Offset ? VERSION_NEEDED_ZIP64 : VERSION_NEEDED));
+            header.putShort((short) entry.flags());
+            header.putShort((short) entry.method());
+            header.putInt(dosTime);
+            header.putInt((int) entry.crc());
+            header.putInt((int) entry.compressedSize());
+            header.putInt((int) entry.size());
+            header.putShort((short) entry.nameBytes().length);
+            header.putShort((short) extraLength);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putInt(0);
+            header.putInt(zip64Offset ? (int) MAX_SIZE : (int) entry.offset());
+            header.put(entry.nameBytes());
+            if (zip64Offset) {
+                header.putShort((short) ZIP64_EXTRA_FIELD);
+                header.putShort((short) 8);
+                header.putLong(entry.offset());
+            }
+            write(header.array());
+        }
+        long centralSize = position - centralOffset;
+        int entryCount = centralDirectory.size();
+        boolean zip64 = entryCount > MAX_ENTRIES_WITHOUT_ZIP64 || centralOffset > MAX_SIZE || centralSize > MAX_SIZE;
+        if (zip64) {
+            writeZip64EndOfCentralDirectory(entryCount, centralSize, centralOffset);
+        }
+
+        ByteBuffer end = littleEndian(22);
+        end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(entryCount, MAX_ENTRIES_WITHOUT_ZIP64));
+        end.putShort((short) Math.min(entryCount, MAX_ENTRIES_WITHOUT_ZIP64));
+        end.putInt((int) Math.min(centralSize, MAX_SIZE));
+        end.putInt((int) Math.min(centralOffset, MAX_SIZE));
+        end.putShort((short) 0);
+        write(end.array());
+        outputStream.flush();
+    }
+
+    /**
+     * Zip64 end of central directory record and its locator; the plain record that follows holds the maximum
+     * values in the fields that overflowed.
+     */
+    private void writeZip64EndOfCentralDirectory(long entryCount, long centralSize, long centralOffset)
+            throws IOException {
+        long recordOffset = position;
+        ByteBuffer record = littleEndian(56);
+        record.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        record.putLong(44);
+        record.putShort((short) VERSION_NEEDED_ZIP64);
+        record.putShort((short) VERSION_NEEDED_ZIP64);
+        record.putInt(0);
+        record.putInt(0);
+        record.putLong(entryCount);
+        record.putLong(entryCount);
+        record.putLong(centralSize);
+        record.putLong(centralOffset);
+        write(record.array());
+
+        ByteBuffer locator = littleEndian(20);
+        locator.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+        locator.putInt(0);
+        locator.putLong(recordOffset);
+        locator.putInt(1);
+        write(locator.array());
+    }
+
+    private void checkCanBeginEntry() {
+        if (openEntry != null) {
+            throw new IllegalStateException("Entry " + openEntry.name() + " is still open");
+        }
+    }
+
+    /**
+     * Local file header. With a data descriptor the CRC and sizes are left zero and written after the data.
+     */
+    private byte[] localHeader(CentralEntry entry) {
+        ByteBuffer header = littleEndian(30 + entry.nameBytes().length);
+        header.putInt(LOCAL_HEADER_SIGNATURE);
+        header.putShort((short) VERSION_NEEDED);
+        header.putShort((short) entry.flags());
+        header.putShort((short) entry.method());
+        header.putInt(dosTime);
+        header.putInt((int) entry.crc());
+        header.putInt((int) entry.compressedSize());
+        header.putInt((int) entry.size());
+        header.putShort((short) entry.nameBytes().length);
+        header.putShort((short) 0);
+        header.put(entry.nameBytes());
+        return header.array();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        outputStream.write(bytes);
+        position += bytes.length;
+    }
+
+    private static ByteBuffer littleEndian(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int toDosTime(LocalDateTime time) {
+        int year = Math.max(time.getYear(), 1980);
+        return (year - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+}
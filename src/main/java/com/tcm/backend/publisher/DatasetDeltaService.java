@@ -0,0 +1,349 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishRelease;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Publishes patch archives between consecutive releases. Every release stores a {@link DatasetIndex}; the next
+ * release diffs the live data against it and ships only upserted herbs, removed ids and new image payloads. Each
+ * published {@link DatasetVariant} gets its own patch, written from the same scan, so a client patches the archive
+ * it actually holds. The patches are fed by the export's herb scan through a {@link DeltaBuilder}, so building them
+ * does not read the herbs again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DatasetDeltaService {
+
+    static final String DELTA_ENTRY = "delta.json";
+
+    private final HerbExportReader herbExportReader;
+    private final DatasetStorageClient datasetStorageClient;
+    private final ObjectMapper objectMapper;
+    private final ArchiveCompressionPolicy compressionPolicy;
+
+    @Value("${publisher.export.temp-directory:${java.io.tmpdir}}")
+    private String tempDirectory;
+
+    @Value("${publisher.delta.max-chain-length:10}")
+    private int maxChainLength;
+
+    public record DeltaResult(String baseVersion, String url, DatasetDigest digest, int chainLength) {
+
+        public Map<String, Object> toManifestEntry() {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("base_version", baseVersion);
+            entry.put("url", url);
+            entry.put("size_bytes", digest.sizeBytes());
+            entry.put("checksum_sha256", digest.sha256());
+            entry.put("chunks", digest.toManifestEntry());
+            entry.put("chain_length", chainLength);
+            return entry;
+        }
+    }
+
+    /**
+     * Patch archive of one variant, written to a temporary file.
+     */
+    public record DeltaArchive(Path archivePath, DatasetDigest digest) {
+    }
+
+    /**
+     * Index and patch archives built from one snapshot, not yet stored; {@code archives} is empty when there is no
+     * usable base. Closing removes the temp files.
+     */
+    public record PreparedDelta(DatasetIndex index, String baseVersion, int chainLength,
+                                Map<DatasetVariant, DeltaArchive> archives) implements AutoCloseable {
+
+        public long sizeBytes() {
+            return archives.values().stream().mapToLong(archive -> archive.digest().sizeBytes()).sum();
+        }
+
+        @Override
+        public void close() {
+            archives.values().forEach(archive -> DatasetArchiveFiles.deleteQuietly(archive.archivePath()));
+        }
+    }
+
+    /**
+     * Content index and per-variant patch archives of one release, fed the herbs in ascending id order by a scan
+     * that reads them anyway, such as the export. Only reads the dataset; feed and finish it inside the same
+     * {@link DatasetSnapshot} as the export so both describe one point in time. Closing an unfinished builder
+     * discards its temp files.
+     */
+    public final class DeltaBuilder implements AutoCloseable {
+
+        private final PublishRelease release;
+        private final PublishRelease base;
+        private final DatasetIndex baseIndex;
+        private final DatasetIndex index;
+        private final Map<DatasetVariant, Path> paths = new EnumMap<>(DatasetVariant.class);
+        private final Map<DatasetVariant, ChecksumOutputStream> streams = new EnumMap<>(DatasetVariant.class);
+        private final Map<DatasetVariant, ZipOutputStream> zips = new EnumMap<>(DatasetVariant.class);
+        private final Map<DatasetVariant, JsonGenerator> generators = new EnumMap<>(DatasetVariant.class);
+        private int upserts;
+        private boolean done;
+
+        private DeltaBuilder(PublishRelease release, PublishRelease base, DatasetIndex baseIndex) {
+            this.release = release;
+            this.base = base;
+            this.baseIndex = baseIndex;
+            this.index = DatasetIndex.empty(release.getVersionName());
+        }
+
+        private void open(Set<DatasetVariant> variants) throws IOException {
+            if (baseIndex == null) {
+                return;
+            }
+            for (DatasetVariant variant : variants) {
+                Path path = DatasetArchiveFiles.createTempFile(tempDirectory, "." + variant.key() + ".delta.zip");
+                paths.put(variant, path);
+                ChecksumOutputStream stream =
+                        new ChecksumOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+                streams.put(variant, stream);
+                ZipOutputStream zipOutputStream = new ZipOutputStream(stream);
+                zips.put(variant, zipOutputStream);
+                zipOutputStream.setLevel(compressionPolicy.textLevel());
+                zipOutputStream.putNextEntry(DatasetArchiveFiles.zipEntry(DELTA_ENTRY));
+
+                JsonGenerator generator = objectMapper.createGenerator(zipOutputStream);
+                generators.put(variant, generator);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartObject();
+                generator.writeStringField("base_version", baseIndex.version());
+                generator.writeStringField("target_version", release.getVersionName());
+                generator.writeArrayFieldStart("upserted_herbs");
+            }
+        }
+
+        /**
+         * Indexes one herb and, if its record changed since the base, upserts it in every variant, even one whose
+         * cut of the herb did not change.
+         *
+         * @param recordHash {@link #recordHash} of the record
+         */
+        public void add(HerbExportRecord record, String recordHash) throws IOException {
+            index.add(record, recordHash);
+            if (baseIndex != null && !recordHash.equals(baseIndex.herbs().get(record.id()))) {
+                for (Map.Entry<DatasetVariant, JsonGenerator> entry : generators.entrySet()) {
+                    entry.getValue().writeObject(entry.getKey().apply(record));
+                }
+                upserts++;
+            }
+        }
+
+        /**
+         * Writes the removals and the new image payloads; variants without images list no image changes. Call
+         * after the last herb.
+         */
+        public PreparedDelta finish() {
+            if (baseIndex == null) {
+                done = true;
+                return new PreparedDelta(index, null, 0, Map.of());
+            }
+            try {
+                List<Integer> removedHerbs = baseIndex.herbs().keySet().stream()
+                        .filter(id -> !index.herbs().containsKey(id))
+                        .toList();
+                Set<String> addedImages = new TreeSet<>(index.images());
+                addedImages.removeAll(baseIndex.images());
+                Set<String> removedImages = new TreeSet<>(baseIndex.images());
+                removedImages.removeAll(index.images());
+
+                for (Map.Entry<DatasetVariant, JsonGenerator> entry : generators.entrySet()) {
+                    boolean includesImages = entry.getKey().includesImages();
+                    try (JsonGenerator generator = entry.getValue()) {
+                        generator.writeEndArray();
+                        generator.writeObjectField("removed_herb_ids", removedHerbs);
+                        generator.writeObjectField("added_images", includesImages ? addedImages : Set.of());
+                        generator.writeObjectField("removed_images", includesImages ? removedImages : Set.of());
+                        generator.writeEndObject();
+                    }
+                    zips.get(entry.getKey()).closeEntry();
+                }
+                writeImages(zips.entrySet().stream()
+                        .filter(entry -> entry.getKey().includesImages())
+                        .map(Map.Entry::getValue)
+                        .toList(), addedImages);
+                for (ZipOutputStream zipOutputStream : zips.values()) {
+                    zipOutputStream.close();
+                }
+
+                Map<DatasetVariant, DeltaArchive> archives = new EnumMap<>(DatasetVariant.class);
+                streams.forEach((variant, stream) -> archives.put(variant,
+                        new DeltaArchive(paths.get(variant), stream.getDigest())));
+                PreparedDelta delta = new PreparedDelta(index, base.getVersionName(), base.getDeltaChainLength() + 1,
+                        archives);
+                done = true;
+                log.info("Built delta {} -> {} for {} with {} upserts, {} removals and {} images ({} bytes)",
+                        base.getVersionName(), release.getVersionName(), archives.keySet(), upserts,
+                        removedHerbs.size() + removedImages.size(), addedImages.size(), delta.sizeBytes());
+                return delta;
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw new IllegalStateException("Failed to build dataset delta", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (done) {
+                return;
+            }
+            done = true;
+            zips.values().forEach(zipOutputStream -> {
+                try {
+                    zipOutputStream.close();
+                } catch (IOException ignored) {
+                    // the file is deleted below
+                }
+            });
+            paths.values().forEach(DatasetArchiveFiles::deleteQuietly);
+        }
+    }
+
+    /**
+     * Starts the content index of {@code release} and, when {@code base} has an index and its delta chain is
+     * shorter than the configured maximum, one patch archive from {@code base} per variant.
+     */
+    public DeltaBuilder startDelta(PublishRelease release, PublishRelease base, Set<DatasetVariant> variants) {
+        DeltaBuilder builder = new DeltaBuilder(release, base, loadBaseIndex(base).orElse(null));
+        try {
+            builder.open(variants);
+            return builder;
+        } catch (IOException | RuntimeException e) {
+            builder.close();
+            throw new IllegalStateException("Failed to start dataset delta", e);
+        }
+    }
+
+    /**
+     * Hash of a herb record in the content index, from its JSON serialisation.
+     */
+    static String recordHash(byte[] serializedRecord) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(serializedRecord));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Stores the content index and, if they were built, the patch archives.
+     *
+     * @return the stored delta per variant, or empty when clients have to download the full archives
+     */
+    public Map<DatasetVariant, DeltaResult> storeDelta(PreparedDelta delta) {
+        storeIndex(delta.index());
+        Map<DatasetVariant, DeltaResult> results = new EnumMap<>(DatasetVariant.class);
+        delta.archives().forEach((variant, archive) -> {
+            DatasetStorageClient.StorageResult storageResult = datasetStorageClient.storeArchive(
+                    DatasetObjectKeys.variantDeltaKey(delta.index().version(), variant), archive.archivePath(),
+                    archive.digest());
+            results.put(variant, new DeltaResult(delta.baseVersion(), storageResult.url(), storageResult.digest(),
+                    delta.chainLength()));
+        });
+        return results;
+    }
+
+    /**
+     * Stores the content index of {@code base} as the index of {@code release}, for a release that republishes the
+     * base archive unchanged, so the following release can still be diffed against it.
+     */
+    public void copyIndex(PublishRelease base, PublishRelease release) {
+        readIndex(base.getVersionName()).ifPresent(index ->
+                storeIndex(new DatasetIndex(release.getVersionName(), index.herbs(), index.images())));
+    }
+
+    private Optional<DatasetIndex> loadBaseIndex(PublishRelease base) {
+        if (base == null) {
+            return Optional.empty();
+        }
+        if (base.getDeltaChainLength() >= maxChainLength) {
+            log.info("Delta chain from {} reached {} releases, next release is full only",
+                    base.getVersionName(), base.getDeltaChainLength());
+            return Optional.empty();
+        }
+        Optional<DatasetIndex> index = readIndex(base.getVersionName());
+        if (index.isEmpty()) {
+            log.info("Release {} has no content index, skipping delta", base.getVersionName());
+        }
+        return index;
+    }
+
+    private Optional<DatasetIndex> readIndex(String versionName) {
+        Optional<InputStream> indexStream = datasetStorageClient.openDataset(DatasetObjectKeys.indexKey(versionName));
+        if (indexStream.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = indexStream.get()) {
+            return Optional.of(objectMapper.readValue(inputStream, DatasetIndex.class));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read content index of release " + versionName, e);
+        }
+    }
+
+    private void writeImages(List<ZipOutputStream> zipOutputStreams, Set<String> contentKeys) {
+        if (zipOutputStreams.isEmpty()) {
+            return;
+        }
+        Set<String> writtenEntries = new TreeSet<>();
+        herbExportReader.readImagePayloads(contentKeys, (image, content) -> {
+            String entryName = image.archivePath();
+            if (!writtenEntries.add(entryName)) {
+                return;
+            }
+            byte[] data = content.readAllBytes();
+            boolean precompressed = compressionPolicy.isPrecompressed(image, data);
+            for (ZipOutputStream zipOutputStream : zipOutputStreams) {
+                ZipEntry entry = DatasetArchiveFiles.zipEntry(entryName);
+                if (precompressed) {
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCompressedSize(data.length);
+                    entry.setCrc(DatasetArchiveWriter.StoredPayload.of(data).crc());
+                }
+                zipOutputStream.putNextEntry(entry);
+                zipOutputStream.write(data);
+                zipOutputStream.closeEntry();
+            }
+        });
+    }
+
+    private void storeIndex(DatasetIndex index) {
+        byte[] indexBytes;
+        try {
+            indexBytes = objectMapper.writeValueAsBytes(index);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise content index", e);
+        }
+        datasetStorageClient.storeDataset(DatasetObjectKeys.indexKey(index.version()),
+                new ByteArrayInputStream(indexBytes), indexBytes.length);
+    }
+}
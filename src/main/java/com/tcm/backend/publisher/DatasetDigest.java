@@ -0,0 +1,19 @@
+package com.tcm.backend.publisher;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size and SHA-256 of an archive plus the SHA-256 of each fixed-size chunk, so clients can verify and resume
+ * partial downloads chunk by chunk. The last chunk may be shorter than {@code chunkSize}.
+ */
+public record DatasetDigest(long sizeBytes, String sha256, int chunkSize, List<String> chunkSha256) {
+
+    public Map<String, Object> toManifestEntry() {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("size", chunkSize);
+        entry.put("sha256", chunkSha256);
+        return entry;
+    }
+}
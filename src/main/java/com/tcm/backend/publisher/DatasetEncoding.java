@@ -0,0 +1,9 @@
+package com.tcm.backend.publisher;
+
+public enum DatasetEncoding {
+    JSON,
+    SMILE,
+    CBOR,
+    COLUMNAR,
+    SQLITE
+}
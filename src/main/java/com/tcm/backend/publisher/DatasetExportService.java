@@ -1,11 +1,65 @@
 package com.tcm.backend.publisher;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
 public interface DatasetExportService {
 
-    ExportResult exportDataset();
+    DatasetEncoding encoding();
 
-    record ExportResult(InputStream datasetStream, long sizeBytes) {
+    default ExportResult exportDataset() {
+        return exportDataset(PublishProgress.NONE);
+    }
+
+    /**
+     * Writes the full archive, reporting herb and byte counts to {@code progress} and checking it for cancellation
+     * between batches.
+     */
+    default ExportResult exportDataset(PublishProgress progress) {
+        return exportVariants(EnumSet.of(DatasetVariant.FULL), progress).get(DatasetVariant.FULL);
+    }
+
+    /**
+     * Writes one archive per variant from a single read of the data.
+     */
+    default Map<DatasetVariant, ExportResult> exportVariants(Set<DatasetVariant> variants, PublishProgress progress) {
+        return exportVariants(variants, progress, HerbExportReader.RecordHandler.NONE);
+    }
+
+    /**
+     * Like {@link #exportVariants(Set, PublishProgress)}, and hands every herb to {@code listener} as it is read,
+     * on the reading thread and in id order, so callers can derive more from the export's scan instead of reading
+     * the herbs again.
+     */
+    Map<DatasetVariant, ExportResult> exportVariants(Set<DatasetVariant> variants, PublishProgress progress,
+                                                     HerbExportReader.RecordHandler listener);
+
+    /**
+     * Archive written to a temporary file. The digest is captured while the archive is written; closing the
+     * result removes the file if storage has not already taken it.
+     */
+    record ExportResult(Path archivePath, DatasetDigest digest) implements AutoCloseable {
+
+        public long sizeBytes() {
+            return digest.sizeBytes();
+        }
+
+        public String checksum() {
+            return digest.sha256();
+        }
+
+        public InputStream openStream() throws IOException {
+            return Files.newInputStream(archivePath);
+        }
+
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(archivePath);
+        }
     }
 }
@@ -0,0 +1,89 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * SHA-256 over everything that determines the bytes of the archives: the herb records in id order, the image
+ * content keys they reference, the encoding, the variant set and the export settings. Archives are deterministic,
+ * so two releases with the same fingerprint have identical archives and the later one can reuse the earlier
+ * artifacts. A publish fingerprints the herbs as its export reads them, through an {@link Accumulator};
+ * {@link #compute} reads them on its own and is only worth it when there may be nothing to export.
+ */
+@Component
+@RequiredArgsConstructor
+public class DatasetFingerprint {
+
+    /** Bump when the archive layout changes in a way the inputs below do not capture. */
+    private static final int FORMAT_VERSION = 1;
+
+    private final HerbExportReader herbExportReader;
+    private final ObjectMapper objectMapper;
+    private final ArchiveCompressionPolicy compressionPolicy;
+
+    @Value("${publisher.export.parallel.shard-size:1000}")
+    private int shardSize;
+
+    /**
+     * Fingerprint over herbs fed in ascending id order, each with its JSON serialisation.
+     */
+    static final class Accumulator {
+
+        private final MessageDigest digest = sha256();
+        private boolean complete = true;
+
+        private Accumulator(String settings) {
+            digest.update(settings.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void add(HerbExportRecord record, byte[] serializedRecord) {
+            digest.update(serializedRecord);
+            if (record.images().stream().anyMatch(image -> image.contentHash() == null)) {
+                complete = false;
+            }
+        }
+
+        /**
+         * Call once, after the last herb.
+         *
+         * @return empty when some image has no content hash, since its bytes could then change unnoticed
+         */
+        Optional<String> finish() {
+            return complete ? Optional.of(HexFormat.of().formatHex(digest.digest())) : Optional.empty();
+        }
+    }
+
+    Accumulator start(DatasetEncoding encoding, Set<DatasetVariant> variants) {
+        return new Accumulator("format=" + FORMAT_VERSION + ";encoding=" + encoding + ";variants="
+                + new TreeSet<>(variants) + ";shard-size=" + shardSize + ";" + compressionPolicy.settings() + "\n");
+    }
+
+    /**
+     * Reads inside the caller's {@link DatasetSnapshot} so the fingerprint matches the export it guards.
+     *
+     * @return empty when some image has no content hash, since its bytes could then change unnoticed
+     */
+    public Optional<String> compute(DatasetEncoding encoding, Set<DatasetVariant> variants) {
+        Accumulator accumulator = start(encoding, variants);
+        herbExportReader.readHerbs(record -> accumulator.add(record, objectMapper.writeValueAsBytes(record)));
+        return accumulator.finish();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
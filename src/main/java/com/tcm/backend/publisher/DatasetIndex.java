@@ -0,0 +1,22 @@
+package com.tcm.backend.publisher;
+
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Content index of a published dataset: a hash per herb record and the content keys of every image. Stored next to
+ * each release so the following release can be diffed against it without re-reading the old archive.
+ */
+record DatasetIndex(String version, SortedMap<Integer, String> herbs, SortedSet<String> images) {
+
+    static DatasetIndex empty(String version) {
+        return new DatasetIndex(version, new TreeMap<>(), new TreeSet<>());
+    }
+
+    void add(HerbExportRecord record, String recordHash) {
+        herbs.put(record.id(), recordHash);
+        record.images().forEach(image -> images.add(image.contentKey()));
+    }
+}
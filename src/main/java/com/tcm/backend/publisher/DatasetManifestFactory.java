@@ -6,8 +6,13 @@ import com.tcm.backend.domain.PublishRelease;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
@@ -17,20 +22,58 @@ public class DatasetManifestFactory {
     private final ObjectMapper objectMapper;
     private final Clock clock;
 
-    public String createManifest(PublishRelease release, long sizeBytes, String checksum, String url, String minAppVersion) {
+    /**
+     * The top-level {@code url} and {@code delta} describe the full archive. Each variant entry carries the patch
+     * for that variant, if one was published, so clients never apply a full-archive patch to a cut-down archive.
+     */
+    public String createManifest(PublishRelease release, DatasetEncoding encoding, DatasetDigest digest, String url,
+                                 String minAppVersion, Map<DatasetVariant, DatasetDeltaService.DeltaResult> deltas,
+                                 Map<DatasetVariant, DatasetStorageClient.StorageResult> variants) {
         Instant createdAt = Instant.now(clock);
-        Map<String, Object> manifest = Map.of(
-                "version", release.getVersionName(),
-                "created_at", createdAt.toString(),
-                "size_bytes", sizeBytes,
-                "checksum_sha256", checksum,
-                "url", url,
-                "min_app_version", minAppVersion
-        );
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("version", release.getVersionName());
+        manifest.put("created_at", createdAt.toString());
+        manifest.put("encoding", encoding.name());
+        manifest.put("size_bytes", digest.sizeBytes());
+        manifest.put("checksum_sha256", digest.sha256());
+        manifest.put("chunks", digest.toManifestEntry());
+        manifest.put("url", url);
+        manifest.put("min_app_version", minAppVersion);
+        DatasetDeltaService.DeltaResult fullDelta = deltas.get(DatasetVariant.FULL);
+        if (fullDelta != null) {
+            manifest.put("delta", fullDelta.toManifestEntry());
+        }
+        Map<String, Object> variantEntries = new LinkedHashMap<>();
+        variants.forEach((variant, stored) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("url", stored.url());
+            entry.put("size_bytes", stored.digest().sizeBytes());
+            entry.put("checksum_sha256", stored.checksum());
+            entry.put("chunks", stored.digest().toManifestEntry());
+            DatasetDeltaService.DeltaResult delta = deltas.get(variant);
+            if (delta != null) {
+                entry.put("delta", delta.toManifestEntry());
+            }
+            variantEntries.put(variant.key(), entry);
+        });
+        manifest.put("variants", variantEntries);
         try {
             return objectMapper.writeValueAsString(manifest);
         } catch (JsonProcessingException e) {
             throw new IllegalStateException("Failed to serialise manifest", e);
         }
     }
+
+    /**
+     * Strong ETag from the SHA-256 of the manifest bytes. A release that reuses the previous archive keeps its
+     * checksum but has a manifest of its own, so the archive checksum cannot stand in for it.
+     */
+    public static String etag(String manifestJson) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(manifestJson.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
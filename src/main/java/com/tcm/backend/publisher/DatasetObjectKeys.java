@@ -0,0 +1,51 @@
+package com.tcm.backend.publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage keys of the objects published for one release.
+ */
+public final class DatasetObjectKeys {
+
+    private DatasetObjectKeys() {
+    }
+
+    public static String archiveKey(String versionName) {
+        return versionName + ".zip";
+    }
+
+    /**
+     * The full variant keeps the plain archive key so existing clients and storage layouts are unaffected.
+     */
+    public static String variantArchiveKey(String versionName, DatasetVariant variant) {
+        return variant == DatasetVariant.FULL ? archiveKey(versionName) : versionName + "." + variant.key() + ".zip";
+    }
+
+    public static String deltaKey(String versionName) {
+        return versionName + ".delta.zip";
+    }
+
+    /**
+     * Like {@link #variantArchiveKey}, the full variant keeps the plain delta key.
+     */
+    public static String variantDeltaKey(String versionName, DatasetVariant variant) {
+        return variant == DatasetVariant.FULL
+                ? deltaKey(versionName)
+                : versionName + "." + variant.key() + ".delta.zip";
+    }
+
+    public static String indexKey(String versionName) {
+        return versionName + ".index.json";
+    }
+
+    public static List<String> all(String versionName) {
+        List<String> keys = new ArrayList<>();
+        for (DatasetVariant variant : DatasetVariant.values()) {
+            keys.add(variantArchiveKey(versionName, variant));
+            keys.add(variantDeltaKey(versionName, variant));
+        }
+        keys.add(indexKey(versionName));
+        return keys;
+    }
+}
@@ -1,34 +1,39 @@
 package com.tcm.backend.publisher;
 
-import com.tcm.backend.domain.PublishRelease;
 import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
 import com.tcm.backend.repository.PublishReleaseRepository;
-import com.tcm.backend.service.DatasetPublisherService;
+import com.tcm.backend.service.PublishJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
 import java.util.List;
+import java.util.UUID;
 
+/**
+ * Queues approved releases that have not been published yet. Safe to run on every node: the candidate query only
+ * narrows the work, and each release is queued by whichever node wins its publish lease.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class DatasetPublishScheduler {
 
     private final PublishReleaseRepository publishReleaseRepository;
-    private final DatasetPublisherService datasetPublisherService;
+    private final PublishJobService publishJobService;
+    private final Clock clock;
 
     @Scheduled(cron = "0 */15 * * * *")
     public void publishScheduledReleases() {
-        List<PublishRelease> releases = publishReleaseRepository.findAll().stream()
-                .filter(release -> release.getStatus() == ReleaseStatus.APPROVED && release.getStorageUrl() == null)
-                .toList();
-        releases.forEach(release -> {
+        List<UUID> releaseIds = publishReleaseRepository.findClaimableIds(ReleaseStatus.APPROVED, clock.instant());
+        releaseIds.forEach(releaseId -> {
             try {
-                datasetPublisherService.publishRelease(release.getId());
+                publishJobService.enqueueIfUnclaimed(releaseId)
+                        .ifPresent(job -> log.info("Queued release {} as publish job {}", releaseId, job.id()));
             } catch (Exception e) {
-                log.error("Failed to publish release {}", release.getVersionName(), e);
+                log.error("Failed to queue release {} for publishing", releaseId, e);
             }
         });
     }
@@ -0,0 +1,89 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps the newest {@code keep-releases} published releases plus any pinned ones, archives the rest and deletes
+ * their objects, then collects stored content nothing refers to any more. Reclaimed bytes are counted in
+ * {@code dataset.storage.reclaimed}.
+ */
+@Slf4j
+@Component
+public class DatasetRetentionService {
+
+    private final PublishReleaseRepository publishReleaseRepository;
+    private final DatasetStorageClient storageClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int keepReleases;
+    private final Counter reclaimedBytes;
+
+    public DatasetRetentionService(PublishReleaseRepository publishReleaseRepository,
+                                   DatasetStorageClient storageClient,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${publisher.retention.keep-releases:5}") int keepReleases,
+                                   MeterRegistry meterRegistry) {
+        if (keepReleases < 1) {
+            throw new IllegalArgumentException("publisher.retention.keep-releases must be at least 1");
+        }
+        this.publishReleaseRepository = publishReleaseRepository;
+        this.storageClient = storageClient;
+        this.transactionTemplate = transactionTemplate;
+        this.keepReleases = keepReleases;
+        this.reclaimedBytes = Counter.builder("dataset.storage.reclaimed")
+                .description("Bytes freed in dataset storage by retention")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${publisher.retention.cron:0 30 3 * * *}")
+    public void applyRetention() {
+        List<PublishRelease> published = publishReleaseRepository
+                .findByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus.APPROVED);
+        long reclaimed = 0;
+        int archived = 0;
+        for (PublishRelease release : published.subList(Math.min(keepReleases, published.size()), published.size())) {
+            if (release.isPinned()) {
+                continue;
+            }
+            try {
+                reclaimed += archive(release);
+                archived++;
+            } catch (Exception e) {
+                log.error("Failed to archive release {}", release.getVersionName(), e);
+            }
+        }
+        reclaimed += storageClient.collectUnreferenced();
+        reclaimedBytes.increment(reclaimed);
+        log.info("Retention archived {} releases and reclaimed {} bytes", archived, reclaimed);
+    }
+
+    /**
+     * Marks the release archived before deleting its objects, so it stops being offered as a download or delta
+     * base first.
+     */
+    private long archive(PublishRelease release) {
+        transactionTemplate.executeWithoutResult(status -> publishReleaseRepository.findById(release.getId())
+                .ifPresent(current -> {
+                    current.setStatus(ReleaseStatus.ARCHIVED);
+                    current.setStorageUrl(null);
+                    publishReleaseRepository.save(current);
+                }));
+        long freed = 0;
+        for (String objectKey : DatasetObjectKeys.all(release.getVersionName())) {
+            freed += storageClient.deleteDataset(objectKey);
+        }
+        log.info("Archived release {}", release.getVersionName());
+        return freed;
+    }
+}
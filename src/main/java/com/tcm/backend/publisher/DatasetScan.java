@@ -0,0 +1,65 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * What a publish derives from the herbs besides the archives: the content fingerprint and the delta. Installed as
+ * the export's listener, so a publish reads the herb tables once, and serialises each record once for both. The
+ * delta is an optimisation; if it fails the scan drops it and the export carries on.
+ */
+@Slf4j
+class DatasetScan implements HerbExportReader.RecordHandler {
+
+    private final ObjectMapper objectMapper;
+    private final DatasetFingerprint.Accumulator fingerprint;
+    private DatasetDeltaService.DeltaBuilder delta;
+
+    /**
+     * @param delta null to build no delta
+     */
+    DatasetScan(ObjectMapper objectMapper, DatasetFingerprint.Accumulator fingerprint,
+                DatasetDeltaService.DeltaBuilder delta) {
+        this.objectMapper = objectMapper;
+        this.fingerprint = fingerprint;
+        this.delta = delta;
+    }
+
+    @Override
+    public void accept(HerbExportRecord record) throws IOException {
+        byte[] serializedRecord = objectMapper.writeValueAsBytes(record);
+        fingerprint.add(record, serializedRecord);
+        if (delta != null) {
+            try {
+                delta.add(record, DatasetDeltaService.recordHash(serializedRecord));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to build delta at herb {}, clients will download the full archive", record.id(), e);
+                discardDelta();
+            }
+        }
+    }
+
+    /**
+     * Call once, after the scan.
+     */
+    Optional<String> fingerprint() {
+        return fingerprint.finish();
+    }
+
+    /**
+     * @return the delta fed by the scan, to be finished by the caller, or null if there is none
+     */
+    DatasetDeltaService.DeltaBuilder delta() {
+        return delta;
+    }
+
+    void discardDelta() {
+        if (delta != null) {
+            delta.close();
+            delta = null;
+        }
+    }
+}
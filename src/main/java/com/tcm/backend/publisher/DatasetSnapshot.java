@@ -0,0 +1,32 @@
+package com.tcm.backend.publisher;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs dataset reads in one read-only transaction so every query of an export sees the same point in time.
+ * InnoDB serves REPEATABLE READ from an MVCC snapshot, so editors keep writing while the export runs. Nested
+ * calls join the outer snapshot, which lets the publisher cover the full archive and its delta with one read.
+ */
+@Component
+public class DatasetSnapshot {
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DatasetSnapshot(PlatformTransactionManager transactionManager,
+                           @Value("${publisher.export.snapshot-isolation:REPEATABLE_READ}") Isolation isolation) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(isolation.value());
+        this.transactionTemplate.setName("dataset-snapshot");
+    }
+
+    public <T> T read(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+}
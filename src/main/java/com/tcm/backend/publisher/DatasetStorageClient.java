@@ -1,11 +1,68 @@
 package com.tcm.backend.publisher;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
 
 public interface DatasetStorageClient {
 
     StorageResult storeDataset(String objectKey, InputStream datasetStream, long contentLength);
 
-    record StorageResult(String url, String checksum) {
+    /**
+     * Stores an archive whose digest was computed while it was written, without reading it again. The client
+     * may move the file instead of copying it.
+     */
+    StorageResult storeArchive(String objectKey, Path archivePath, DatasetDigest digest);
+
+    /**
+     * Opens a previously stored object, or returns empty when it does not exist.
+     */
+    Optional<InputStream> openDataset(String objectKey);
+
+    /**
+     * Stores the content of an existing object under another key, e.g. to republish an unchanged archive for a new
+     * release. Stores that can share content override this to avoid the copy.
+     */
+    default StorageResult copyDataset(String sourceKey, String targetKey) {
+        InputStream source = openDataset(sourceKey)
+                .orElseThrow(() -> new IllegalStateException("Dataset " + sourceKey + " not found"));
+        try (source) {
+            return storeDataset(targetKey, source, -1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to copy dataset " + sourceKey, e);
+        }
+    }
+
+    /**
+     * File backing a stored object when it lives on the local file system, so it can be sent without copying
+     * through the heap. Remote stores return empty and are downloaded from their storage URL instead.
+     */
+    default Optional<Path> localPath(String objectKey) {
+        return Optional.empty();
+    }
+
+    /**
+     * Removes an object if it exists.
+     *
+     * @return bytes freed right away; content still shared with other objects is only freed by
+     * {@link #collectUnreferenced()}
+     */
+    long deleteDataset(String objectKey);
+
+    /**
+     * Frees stored content that no object refers to any more.
+     *
+     * @return bytes reclaimed
+     */
+    default long collectUnreferenced() {
+        return 0;
+    }
+
+    record StorageResult(String url, DatasetDigest digest) {
+
+        public String checksum() {
+            return digest.sha256();
+        }
     }
 }
@@ -0,0 +1,63 @@
+package com.tcm.backend.publisher;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cut-down archives published next to the full one, so clients can download only what they display. All variants
+ * of a release are written from the same scan of the data.
+ */
+public enum DatasetVariant {
+    FULL(true),
+    /** Chinese descriptions only. */
+    ZH(true),
+    /** English descriptions only. */
+    EN(true),
+    /** Both languages, no image files and no image references. */
+    TEXT_ONLY(false);
+
+    private final boolean includesImages;
+
+    DatasetVariant(boolean includesImages) {
+        this.includesImages = includesImages;
+    }
+
+    public boolean includesImages() {
+        return includesImages;
+    }
+
+    /**
+     * Name used in object keys, manifests and the download API, e.g. {@code text-only}.
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public static DatasetVariant fromKey(String key) {
+        for (DatasetVariant variant : values()) {
+            if (variant.key().equalsIgnoreCase(key)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dataset variant: " + key);
+    }
+
+    public HerbExportRecord apply(HerbExportRecord record) {
+        return switch (this) {
+            case FULL -> record;
+            case ZH -> new HerbExportRecord(record.id(), record.sourceUrl(), record.nameZh(), record.namePinyin(),
+                    record.descZh(), null, record.appearance(), record.property(), record.flavors(),
+                    record.formulas(), record.indications(), record.meridians(), record.images());
+            case EN -> new HerbExportRecord(record.id(), record.sourceUrl(), record.nameZh(), record.namePinyin(),
+                    null, record.descEn(), record.appearance(), record.property(), record.flavors(),
+                    record.formulas(), record.indications(), record.meridians(), record.images());
+            case TEXT_ONLY -> new HerbExportRecord(record.id(), record.sourceUrl(), record.nameZh(),
+                    record.namePinyin(), record.descZh(), record.descEn(), record.appearance(), record.property(),
+                    record.flavors(), record.formulas(), record.indications(), record.meridians(), List.of());
+        };
+    }
+
+    public List<HerbExportRecord> apply(List<HerbExportRecord> records) {
+        return this == FULL ? records : records.stream().map(this::apply).toList();
+    }
+}
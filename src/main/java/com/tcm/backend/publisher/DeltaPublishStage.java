@@ -0,0 +1,43 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finishes the content index and the per-variant patch archives that the export's scan fed, in the same snapshot,
+ * adding removals and new images. The delta is an optimisation on top of the full archive, so a failure here only
+ * costs clients bandwidth.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeltaPublishStage implements PublishStage {
+
+    @Override
+    public PublishJob.Stage stage() {
+        return PublishJob.Stage.DELTA;
+    }
+
+    @Override
+    public boolean readsSnapshot() {
+        return true;
+    }
+
+    @Override
+    public Result run(PublishContext context, PublishProgress progress) {
+        if (context.isReusesPrevious() || context.getDeltaBuilder() == null) {
+            return Result.NONE;
+        }
+        try {
+            DatasetDeltaService.PreparedDelta delta = context.getDeltaBuilder().finish();
+            context.setPreparedDelta(delta);
+            return new Result(0, delta.sizeBytes());
+        } catch (RuntimeException e) {
+            log.warn("Failed to build delta for release {}, clients will download the full archive",
+                    context.getRelease().getVersionName(), e);
+            return Result.NONE;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishRelease;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads, encodes, compresses and checksums every variant archive in one pass; those steps run concurrently inside
+ * the exporter, with a bounded number of shards in flight. The same pass fingerprints the content and feeds the
+ * delta through a {@link DatasetScan}, so the herbs are read once per publish. When the fingerprint matches the
+ * previous release, its archives are reused and the new ones discarded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExportPublishStage implements PublishStage {
+
+    private final List<DatasetExportService> datasetExportServices;
+    private final DatasetFingerprint datasetFingerprint;
+    private final DatasetDeltaService datasetDeltaService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${publisher.delta.enabled:true}")
+    private boolean deltaEnabled;
+
+    @Override
+    public PublishJob.Stage stage() {
+        return PublishJob.Stage.EXPORT;
+    }
+
+    @Override
+    public boolean readsSnapshot() {
+        return true;
+    }
+
+    @Override
+    public Result run(PublishContext context, PublishProgress progress) {
+        // Only known up front when the pipeline checked a checkpoint
+        if (matchesPrevious(context)) {
+            return reusePrevious(context);
+        }
+        DatasetScan scan = new DatasetScan(objectMapper,
+                datasetFingerprint.start(context.getEncoding(), context.getVariants()), startDelta(context));
+        Map<DatasetVariant, DatasetExportService.ExportResult> exports;
+        try {
+            exports = exporterFor(context.getEncoding()).exportVariants(context.getVariants(), progress, scan);
+        } catch (RuntimeException e) {
+            scan.discardDelta();
+            throw e;
+        }
+        context.setFingerprint(scan.fingerprint().orElse(null));
+        if (matchesPrevious(context)) {
+            scan.discardDelta();
+            discard(exports);
+            return reusePrevious(context);
+        }
+        context.setExports(exports);
+        context.setDeltaBuilder(scan.delta());
+        return new Result(0, exports.values().stream()
+                .mapToLong(DatasetExportService.ExportResult::sizeBytes)
+                .sum());
+    }
+
+    private DatasetDeltaService.DeltaBuilder startDelta(PublishContext context) {
+        if (!deltaEnabled) {
+            return null;
+        }
+        try {
+            return datasetDeltaService.startDelta(context.getRelease(), context.getPrevious(), context.getVariants());
+        } catch (RuntimeException e) {
+            log.warn("Failed to start delta for release {}, clients will download the full archive",
+                    context.getRelease().getVersionName(), e);
+            return null;
+        }
+    }
+
+    private static boolean matchesPrevious(PublishContext context) {
+        PublishRelease previous = context.getPrevious();
+        return context.getFingerprint() != null && previous != null
+                && context.getFingerprint().equals(previous.getContentFingerprint());
+    }
+
+    private static Result reusePrevious(PublishContext context) {
+        log.info("Release {} has the same content as {}, reusing its archives",
+                context.getRelease().getVersionName(), context.getPrevious().getVersionName());
+        context.setReusesPrevious(true);
+        return Result.NONE;
+    }
+
+    private static void discard(Map<DatasetVariant, DatasetExportService.ExportResult> exports) {
+        for (DatasetExportService.ExportResult export : exports.values()) {
+            try {
+                export.close();
+            } catch (IOException e) {
+                log.warn("Failed to delete unused archive {}", export.archivePath(), e);
+            }
+        }
+    }
+
+    private DatasetExportService exporterFor(DatasetEncoding encoding) {
+        return datasetExportServices.stream()
+                .filter(exporter -> exporter.encoding() == encoding)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No dataset exporter for encoding " + encoding));
+    }
+}
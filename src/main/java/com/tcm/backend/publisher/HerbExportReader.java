@@ -0,0 +1,302 @@
+package com.tcm.backend.publisher;
+
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the herb dataset with forward-only JDBC cursors. Herbs and each child table are scanned once, ordered by
+ * herb id, and merged in lockstep, so the export issues a fixed number of queries regardless of dataset size and
+ * only holds the current herb in memory.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HerbExportReader {
+
+    private static final String HERBS_SQL =
+            "SELECT id, source_url, name_zh, name_pinyin, desc_zh, desc_en, appearance, property FROM herbs "
+                    + "WHERE id >= ? AND id < ? ORDER BY id";
+    private static final String FLAVORS_SQL = childSql("herb_flavors");
+    private static final String FORMULAS_SQL = childSql("herb_formulas");
+    private static final String INDICATIONS_SQL = childSql("herb_indications");
+    private static final String MERIDIANS_SQL = childSql("herb_meridians");
+    private static final String IMAGES_SQL =
+            "SELECT herb_id, id, filename, mime, size_bytes, content_hash FROM herb_images "
+                    + "WHERE herb_id >= ? AND herb_id < ? ORDER BY herb_id, id";
+    private static final String IMAGE_PAYLOADS_SQL =
+            "SELECT i.id, i.filename, i.mime, i.size_bytes, i.content_hash, p.data "
+                    + "FROM herb_image_payloads p JOIN herb_images i ON i.id = p.image_id";
+    private static final int IN_CLAUSE_SIZE = 200;
+
+    private static final RowMapper<String> VALUE_MAPPER = (rs, rowNum) -> rs.getString("value");
+    private static final RowMapper<HerbExportRecord.ImageRecord> IMAGE_MAPPER = (rs, rowNum) ->
+            new HerbExportRecord.ImageRecord(
+                    rs.getInt("id"),
+                    rs.getString("filename"),
+                    rs.getString("mime"),
+                    rs.getObject("size_bytes", Integer.class),
+                    rs.getString("content_hash"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${publisher.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Half-open herb id range, {@code [fromId, toIdExclusive)}.
+     */
+    public record HerbIdRange(long fromId, long toIdExclusive) {
+
+        public static final HerbIdRange ALL = new HerbIdRange(Integer.MIN_VALUE, (long) Integer.MAX_VALUE + 1);
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        RecordHandler NONE = record -> {
+        };
+
+        void accept(HerbExportRecord record) throws IOException;
+
+        /**
+         * Hands each record to this handler, then to {@code next}.
+         */
+        default RecordHandler andThen(RecordHandler next) {
+            return record -> {
+                accept(record);
+                next.accept(record);
+            };
+        }
+    }
+
+    @FunctionalInterface
+    public interface PayloadHandler {
+        void accept(HerbExportRecord.ImageRecord image, InputStream content) throws IOException;
+    }
+
+    /**
+     * Streams every herb, with its child rows, to the handler in ascending id order.
+     *
+     * @return number of herbs read
+     */
+    public int readHerbs(RecordHandler handler) {
+        return readHerbs(HerbIdRange.ALL, handler);
+    }
+
+    /**
+     * Streams the herbs of one id range in ascending id order.
+     *
+     * @return number of herbs read
+     */
+    public int readHerbs(HerbIdRange range, RecordHandler handler) {
+        Integer count = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            requireCursorFetch(connection);
+            try (PreparedStatement herbStatement = openCursor(connection, HERBS_SQL, range);
+                 ResultSet herbs = herbStatement.executeQuery();
+                 ChildCursor<String> flavors = new ChildCursor<>(openCursor(connection, FLAVORS_SQL, range), VALUE_MAPPER);
+                 ChildCursor<String> formulas = new ChildCursor<>(openCursor(connection, FORMULAS_SQL, range), VALUE_MAPPER);
+                 ChildCursor<String> indications =
+                         new ChildCursor<>(openCursor(connection, INDICATIONS_SQL, range), VALUE_MAPPER);
+                 ChildCursor<String> meridians = new ChildCursor<>(openCursor(connection, MERIDIANS_SQL, range), VALUE_MAPPER);
+                 ChildCursor<HerbExportRecord.ImageRecord> images =
+                         new ChildCursor<>(openCursor(connection, IMAGES_SQL, range), IMAGE_MAPPER)) {
+                int read = 0;
+                while (herbs.next()) {
+                    int herbId = herbs.getInt("id");
+                    HerbExportRecord record = new HerbExportRecord(
+                            herbId,
+                            herbs.getString("source_url"),
+                            herbs.getString("name_zh"),
+                            herbs.getString("name_pinyin"),
+                            herbs.getString("desc_zh"),
+                            herbs.getString("desc_en"),
+                            herbs.getString("appearance"),
+                            herbs.getString("property"),
+                            flavors.take(herbId),
+                            formulas.take(herbId),
+                            indications.take(herbId),
+                            meridians.take(herbId),
+                            images.take(herbId));
+                    handle(handler, record);
+                    read++;
+                }
+                return read;
+            }
+        });
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Streams every stored image payload in ascending image id order. The content stream is only valid for the
+     * duration of the callback.
+     *
+     * @return number of payloads read
+     */
+    public int readImagePayloads(PayloadHandler handler) {
+        Integer count = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            requireCursorFetch(connection);
+            try (PreparedStatement statement = openCursor(connection, IMAGE_PAYLOADS_SQL + " ORDER BY i.id");
+                 ResultSet payloads = statement.executeQuery()) {
+                int read = 0;
+                while (payloads.next()) {
+                    handlePayload(handler, payloads, read++);
+                }
+                return read;
+            }
+        });
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Streams only the payloads whose {@link HerbExportRecord.ImageRecord#contentKey()} is in the given set.
+     *
+     * @return number of payloads read
+     */
+    public int readImagePayloads(Collection<String> contentKeys, PayloadHandler handler) {
+        List<String> hashes = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (String key : contentKeys) {
+            if (key.startsWith(HerbExportRecord.ImageRecord.ID_KEY_PREFIX)) {
+                ids.add(Integer.valueOf(key.substring(HerbExportRecord.ImageRecord.ID_KEY_PREFIX.length())));
+            } else {
+                hashes.add(key);
+            }
+        }
+        return readPayloadsWhere("i.content_hash", hashes, handler) + readPayloadsWhere("i.id", ids, handler);
+    }
+
+    private int readPayloadsWhere(String column, List<?> values, PayloadHandler handler) {
+        int[] read = {0};
+        for (int from = 0; from < values.size(); from += IN_CLAUSE_SIZE) {
+            List<?> chunk = values.subList(from, Math.min(values.size(), from + IN_CLAUSE_SIZE));
+            String sql = IMAGE_PAYLOADS_SQL + " WHERE " + column + " IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY i.id";
+            jdbcTemplate.query(connection -> {
+                requireCursorFetch(connection);
+                return openCursor(connection, sql, chunk.toArray());
+            }, (RowCallbackHandler) rs -> handlePayload(handler, rs, read[0]++));
+        }
+        return read[0];
+    }
+
+    private static void handlePayload(PayloadHandler handler, ResultSet resultSet, int rowNum) throws SQLException {
+        HerbExportRecord.ImageRecord image = IMAGE_MAPPER.mapRow(resultSet, rowNum);
+        try (InputStream content = resultSet.getBinaryStream("data")) {
+            handler.accept(image, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PreparedStatement openCursor(Connection connection, String sql, HerbIdRange range) throws SQLException {
+        return openCursor(connection, sql, range.fromId(), range.toIdExclusive());
+    }
+
+    private PreparedStatement openCursor(Connection connection, String sql, Object... parameters) throws SQLException {
+        PreparedStatement statement =
+                connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Connector/J ignores the fetch size and reads every row of every open cursor into memory unless the connection
+     * was opened with {@code useCursorFetch}, so refuse to export rather than risk running out of heap.
+     */
+    private static void requireCursorFetch(Connection connection) throws SQLException {
+        if (connection.isWrapperFor(JdbcConnection.class)
+                && !connection.unwrap(JdbcConnection.class).getPropertySet()
+                        .getBooleanProperty(PropertyKey.useCursorFetch).getValue()) {
+            throw new IllegalStateException("MySQL connection does not stream result sets; set "
+                    + "spring.datasource.hikari.data-source-properties.useCursorFetch=true");
+        }
+    }
+
+    private static String childSql(String table) {
+        return "SELECT herb_id, value FROM " + table + " WHERE herb_id >= ? AND herb_id < ? ORDER BY herb_id, id";
+    }
+
+    private static void handle(RecordHandler handler, HerbExportRecord record) {
+        try {
+            handler.accept(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forward-only cursor over a child table ordered by herb_id, consumed one herb at a time.
+     */
+    private static final class ChildCursor<T> implements AutoCloseable {
+
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final RowMapper<T> mapper;
+        private boolean hasRow;
+        private int rowNum;
+
+        ChildCursor(PreparedStatement statement, RowMapper<T> mapper) throws SQLException {
+            this.statement = statement;
+            this.mapper = mapper;
+            try {
+                this.resultSet = statement.executeQuery();
+                this.hasRow = resultSet.next();
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+
+        List<T> take(int herbId) throws SQLException {
+            List<T> rows = new ArrayList<>();
+            while (hasRow) {
+                int rowHerbId = resultSet.getInt("herb_id");
+                if (rowHerbId > herbId) {
+                    break;
+                }
+                if (rowHerbId == herbId) {
+                    rows.add(mapper.mapRow(resultSet, rowNum++));
+                }
+                hasRow = resultSet.next();
+            }
+            return rows;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                resultSet.close();
+            } finally {
+                statement.close();
+            }
+        }
+    }
+}
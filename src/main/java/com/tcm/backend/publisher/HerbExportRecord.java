@@ -0,0 +1,40 @@
+package com.tcm.backend.publisher;
+
+import java.util.List;
+
+/**
+ * Flattened herb as it appears in a published dataset. Decoupled from the JPA graph so exports never trigger
+ * lazy loading or serialise audit columns and back-references.
+ */
+public record HerbExportRecord(
+        int id,
+        String sourceUrl,
+        String nameZh,
+        String namePinyin,
+        String descZh,
+        String descEn,
+        String appearance,
+        String property,
+        List<String> flavors,
+        List<String> formulas,
+        List<String> indications,
+        List<String> meridians,
+        List<ImageRecord> images
+) {
+
+    public record ImageRecord(int id, String filename, String mime, Integer sizeBytes, String contentHash) {
+
+        static final String ID_KEY_PREFIX = "id-";
+
+        /**
+         * Key the image bytes are stored under. Content-addressed so identical images are stored once.
+         */
+        public String contentKey() {
+            return contentHash != null ? contentHash : ID_KEY_PREFIX + id;
+        }
+
+        public String archivePath() {
+            return "images/" + contentKey();
+        }
+    }
+}
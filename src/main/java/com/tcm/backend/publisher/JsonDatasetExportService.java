@@ -1,40 +1,41 @@
 package com.tcm.backend.publisher;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.tcm.backend.domain.Herb;
-import com.tcm.backend.repository.HerbRepository;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+/**
+ * Writes herbs as one JSON array in {@code herbs.json}. Shards are serialised as comma separated root values so
+ * they join into a single array.
+ */
 @Service
-@RequiredArgsConstructor
-public class JsonDatasetExportService implements DatasetExportService {
+public class JsonDatasetExportService extends AbstractArchiveExportService {
+
+    static final String HERBS_ENTRY = "herbs.json";
+
+    private static final HerbsLayout LAYOUT = new HerbsLayout(HERBS_ENTRY, new byte[]{'['}, new byte[]{','},
+            new byte[]{']'});
 
-    private final HerbRepository herbRepository;
     private final ObjectMapper objectMapper;
 
+    public JsonDatasetExportService(HerbExportReader herbExportReader, ObjectMapper objectMapper,
+                                    DatasetSnapshot datasetSnapshot, ArchiveCompressionPolicy compressionPolicy) {
+        super(herbExportReader, datasetSnapshot, compressionPolicy);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public DatasetEncoding encoding() {
+        return DatasetEncoding.JSON;
+    }
+
     @Override
-    public ExportResult exportDataset() {
-        List<Herb> herbs = herbRepository.findAll();
-        try (ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-             ZipOutputStream zipOutputStream = new ZipOutputStream(byteStream)) {
-            zipOutputStream.putNextEntry(new ZipEntry("herbs.json"));
-            objectMapper.writeValue(zipOutputStream, herbs);
-            zipOutputStream.closeEntry();
-            zipOutputStream.finish();
-            byte[] bytes = byteStream.toByteArray();
-            InputStream datasetStream = new ByteArrayInputStream(bytes);
-            return new ExportResult(datasetStream, bytes.length);
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to export dataset", e);
-        }
+    protected int writeHerbs(Map<DatasetVariant, DatasetArchiveWriter> archives, ExecutorService compressors,
+                             PublishProgress progress, HerbExportReader.RecordHandler listener) throws IOException {
+        return writeShardedHerbs(archives, compressors, progress, listener, LAYOUT,
+                records -> serialize(objectMapper, records, ","));
     }
 }
@@ -0,0 +1,60 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Manifest of the newest published release, serialised once and swapped atomically, so polling clients are
+ * served without touching the database. Refreshed after each local publish and on a fixed delay to pick up
+ * publishes made by other nodes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LatestManifestHolder {
+
+    /**
+     * @param etag strong ETag from the manifest bytes, see {@link DatasetManifestFactory#etag}
+     */
+    public record LatestManifest(String versionName, String etag, byte[] json) {
+    }
+
+    private final PublishReleaseRepository publishReleaseRepository;
+
+    private final AtomicReference<LatestManifest> latest = new AtomicReference<>();
+
+    public Optional<LatestManifest> get() {
+        return Optional.ofNullable(latest.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${publisher.latest-manifest.refresh-interval:PT30S}",
+            initialDelayString = "${publisher.latest-manifest.refresh-interval:PT30S}")
+    public void refresh() {
+        LatestManifest current = publishReleaseRepository
+                .findFirstByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus.APPROVED)
+                .filter(release -> release.getManifestJson() != null)
+                .map(LatestManifestHolder::toLatestManifest)
+                .orElse(null);
+        LatestManifest previous = latest.getAndSet(current);
+        if (current != null && (previous == null || !previous.etag().equals(current.etag()))) {
+            log.info("Latest manifest is now release {}", current.versionName());
+        }
+    }
+
+    private static LatestManifest toLatestManifest(PublishRelease release) {
+        return new LatestManifest(release.getVersionName(), DatasetManifestFactory.etag(release.getManifestJson()),
+                release.getManifestJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
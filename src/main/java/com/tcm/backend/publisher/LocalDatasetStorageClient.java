@@ -3,43 +3,239 @@ package com.tcm.backend.publisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+/**
+ * Stores datasets on the local file system, content addressed: each distinct file is written once under
+ * {@code blobs/<sha256>} and every object key is a hard link to its blob, so identical archives and indexes of
+ * different releases share disk space. Where hard links are not supported the blob is copied instead.
+ */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = "publisher.storage.type", havingValue = "local", matchIfMissing = true)
 @RequiredArgsConstructor
 public class LocalDatasetStorageClient implements DatasetStorageClient {
 
+    static final String BLOB_DIRECTORY = "blobs";
+
+    private final Clock clock;
+
     @Value("${publisher.storage.local-directory:build/datasets}")
     private String storageDirectory;
 
+    @Value("${publisher.retention.blob-grace-period:PT1H}")
+    private Duration blobGracePeriod;
+
     @Override
     public StorageResult storeDataset(String objectKey, InputStream datasetStream, long contentLength) {
+        Path tempPath = null;
+        try {
+            Path blobDirectory = blobDirectory();
+            tempPath = Files.createTempFile(blobDirectory, "upload-", ".tmp");
+            ChecksumOutputStream outputStream = new ChecksumOutputStream(Files.newOutputStream(tempPath));
+            try (outputStream) {
+                datasetStream.transferTo(outputStream);
+            }
+            return store(objectKey, tempPath, outputStream.getDigest());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to store dataset", e);
+        } finally {
+            if (tempPath != null) {
+                DatasetArchiveFiles.deleteQuietly(tempPath);
+            }
+        }
+    }
+
+    @Override
+    public StorageResult storeArchive(String objectKey, Path archivePath, DatasetDigest digest) {
         try {
-            Path targetDir = Path.of(storageDirectory);
-            Files.createDirectories(targetDir);
-            Path targetPath = targetDir.resolve(objectKey);
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            try (DigestInputStream digestInputStream = new DigestInputStream(datasetStream, digest);
-                 OutputStream outputStream = Files.newOutputStream(targetPath)) {
-                digestInputStream.transferTo(outputStream);
-            }
-            String checksum = HexFormat.of().formatHex(digest.digest());
-            log.info("Stored dataset {} ({} bytes) in {}", objectKey, contentLength, targetPath);
-            return new StorageResult(targetPath.toAbsolutePath().toString(), checksum);
-        } catch (IOException | NoSuchAlgorithmException e) {
+            return store(objectKey, archivePath, digest);
+        } catch (IOException e) {
             throw new IllegalStateException("Failed to store dataset", e);
         }
     }
+
+    /**
+     * Links the target key to the source's blob; the source is only read to compute the digest.
+     */
+    @Override
+    public StorageResult copyDataset(String sourceKey, String targetKey) {
+        Path sourcePath = Path.of(storageDirectory).resolve(sourceKey);
+        if (!Files.isRegularFile(sourcePath)) {
+            throw new IllegalStateException("Dataset " + sourceKey + " not found");
+        }
+        try {
+            ChecksumOutputStream digestStream = new ChecksumOutputStream(OutputStream.nullOutputStream());
+            try (digestStream) {
+                Files.copy(sourcePath, digestStream);
+            }
+            DatasetDigest digest = digestStream.getDigest();
+            Path blobPath = blobDirectory().resolve(digest.sha256());
+            if (Files.exists(blobPath)) {
+                Files.setLastModifiedTime(blobPath, FileTime.from(clock.instant()));
+            } else {
+                // Stored before content addressing; adopt the file as its own blob
+                link(blobPath, sourcePath);
+            }
+            return linkObject(targetKey, blobPath, digest);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to copy dataset " + sourceKey, e);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> openDataset(String objectKey) {
+        Path path = Path.of(storageDirectory).resolve(objectKey);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.newInputStream(path));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open dataset " + objectKey, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String objectKey) {
+        Path path = Path.of(storageDirectory).resolve(objectKey);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public long deleteDataset(String objectKey) {
+        Path path = Path.of(storageDirectory).resolve(objectKey);
+        try {
+            if (!Files.isRegularFile(path)) {
+                return 0;
+            }
+            long size = Files.size(path);
+            boolean shared = linkCount(path) > 1;
+            Files.delete(path);
+            log.info("Deleted dataset {}", objectKey);
+            return shared ? 0 : size;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to delete dataset " + objectKey, e);
+        }
+    }
+
+    /**
+     * Deletes blobs that no object key links to. Blobs younger than the grace period are kept, since a
+     * concurrent store may be about to link them.
+     */
+    @Override
+    public long collectUnreferenced() {
+        Path root = Path.of(storageDirectory);
+        Path blobDirectory = root.resolve(BLOB_DIRECTORY);
+        if (!Files.isDirectory(blobDirectory)) {
+            return 0;
+        }
+        try {
+            Set<Object> linkedFiles = new HashSet<>();
+            try (DirectoryStream<Path> objects = Files.newDirectoryStream(root, Files::isRegularFile)) {
+                for (Path object : objects) {
+                    Object fileKey = Files.readAttributes(object, BasicFileAttributes.class).fileKey();
+                    if (fileKey == null) {
+                        log.warn("File system under {} has no file keys, skipping blob collection", root);
+                        return 0;
+                    }
+                    linkedFiles.add(fileKey);
+                }
+            }
+
+            Instant cutoff = clock.instant().minus(blobGracePeriod);
+            long reclaimed = 0;
+            List<Path> blobs;
+            try (Stream<Path> files = Files.list(blobDirectory)) {
+                blobs = files.filter(Files::isRegularFile).toList();
+            }
+            for (Path blob : blobs) {
+                BasicFileAttributes attributes = Files.readAttributes(blob, BasicFileAttributes.class);
+                if (linkedFiles.contains(attributes.fileKey())
+                        || attributes.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                Files.deleteIfExists(blob);
+                reclaimed += attributes.size();
+                log.debug("Collected unreferenced blob {}", blob.getFileName());
+            }
+            return reclaimed;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to collect unreferenced datasets", e);
+        }
+    }
+
+    /**
+     * Moves {@code sourcePath} into the blob store unless a blob with the same digest already exists, then links
+     * the object key to the blob.
+     */
+    private StorageResult store(String objectKey, Path sourcePath, DatasetDigest digest) throws IOException {
+        Path blobPath = blobDirectory().resolve(digest.sha256());
+        if (!Files.exists(blobPath)) {
+            try {
+                Files.move(sourcePath, blobPath);
+            } catch (FileAlreadyExistsException e) {
+                // Stored concurrently by another publish; fall through and reuse it
+            }
+        }
+        if (Files.exists(sourcePath)) {
+            // Refresh the timestamp so a running collection does not take the blob while we link it
+            Files.setLastModifiedTime(blobPath, FileTime.from(clock.instant()));
+            Files.delete(sourcePath);
+            log.debug("Reusing stored content {} for {}", digest.sha256(), objectKey);
+        }
+
+        return linkObject(objectKey, blobPath, digest);
+    }
+
+    private StorageResult linkObject(String objectKey, Path blobPath, DatasetDigest digest) throws IOException {
+        Path targetPath = Path.of(storageDirectory).resolve(objectKey);
+        Files.deleteIfExists(targetPath);
+        link(targetPath, blobPath);
+        log.info("Stored dataset {} ({} bytes) in {}", objectKey, digest.sizeBytes(), targetPath);
+        return new StorageResult(targetPath.toAbsolutePath().toString(), digest);
+    }
+
+    private static void link(Path link, Path existing) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(existing, link, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path blobDirectory() throws IOException {
+        Path blobDirectory = Path.of(storageDirectory).resolve(BLOB_DIRECTORY);
+        Files.createDirectories(blobDirectory);
+        return blobDirectory;
+    }
+
+    private static int linkCount(Path path) {
+        try {
+            return (Integer) Files.getAttribute(path, "unix:nlink");
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return 1;
+        }
+    }
 }
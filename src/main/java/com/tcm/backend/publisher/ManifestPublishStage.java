@@ -0,0 +1,74 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the manifest and marks the release published, which also drops its checkpoint.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ManifestPublishStage implements PublishStage {
+
+    private final DatasetManifestFactory datasetManifestFactory;
+    private final PublishReleaseRepository publishReleaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LatestManifestHolder latestManifestHolder;
+
+    @Value("${publisher.min-app-version:1.0.0}")
+    private String minAppVersion;
+
+    @Override
+    public PublishJob.Stage stage() {
+        return PublishJob.Stage.MANIFEST;
+    }
+
+    @Override
+    public boolean retryable() {
+        return true;
+    }
+
+    @Override
+    public Result run(PublishContext context, PublishProgress progress) {
+        DatasetStorageClient.StorageResult full = context.getStored().get(DatasetVariant.FULL);
+        if (full == null) {
+            throw new IllegalStateException("Full archive of release " + context.getRelease().getVersionName()
+                    + " was not stored");
+        }
+        DatasetDeltaService.DeltaResult delta = context.getDeltas().get(DatasetVariant.FULL);
+        String manifestJson = datasetManifestFactory.createManifest(
+                context.getRelease(),
+                context.getEncoding(),
+                full.digest(),
+                full.url(),
+                minAppVersion,
+                context.getDeltas(),
+                context.getStored()
+        );
+        transactionTemplate.executeWithoutResult(status -> {
+            PublishRelease current = publishReleaseRepository.findById(context.getRelease().getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Release not found"));
+            current.setContentFingerprint(context.getFingerprint());
+            current.setDeltaBaseVersion(delta != null ? delta.baseVersion() : null);
+            current.setDeltaChainLength(delta != null ? delta.chainLength() : 0);
+            current.setManifestJson(manifestJson);
+            current.setChecksum(full.checksum());
+            current.setStorageUrl(full.url());
+            current.setCheckpointStage(null);
+            current.setCheckpointJson(null);
+            publishReleaseRepository.save(current);
+        });
+        latestManifestHolder.refresh();
+        log.info("Published release {} with checksum {}", context.getRelease().getVersionName(), full.checksum());
+        return new Result(0, manifestJson.getBytes(StandardCharsets.UTF_8).length);
+    }
+}
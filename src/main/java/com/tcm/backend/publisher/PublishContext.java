@@ -0,0 +1,95 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishRelease;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * State of one publish, filled in stage by stage. Temporary export artifacts are removed on close.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PublishContext implements AutoCloseable {
+
+    /**
+     * What a checkpoint keeps: everything later stages need from the stored objects.
+     */
+    record Checkpoint(String fingerprint, Map<DatasetVariant, DatasetStorageClient.StorageResult> stored,
+                      Map<DatasetVariant, DatasetDeltaService.DeltaResult> deltas) {
+    }
+
+    private final PublishRelease release;
+
+    /** Newest published release other than this one, or null. */
+    private final PublishRelease previous;
+
+    private final DatasetEncoding encoding;
+
+    private final Set<DatasetVariant> variants;
+
+    /** Null when the content could not be fingerprinted. */
+    @Setter
+    private String fingerprint;
+
+    /** Set when the fingerprint matches {@link #previous}, whose archives are then copied instead of exported. */
+    @Setter
+    private boolean reusesPrevious;
+
+    @Setter
+    private Map<DatasetVariant, DatasetExportService.ExportResult> exports = Map.of();
+
+    /** Fed by the export's scan, finished by the delta stage. */
+    @Setter
+    private DatasetDeltaService.DeltaBuilder deltaBuilder;
+
+    @Setter
+    private DatasetDeltaService.PreparedDelta preparedDelta;
+
+    private final Map<DatasetVariant, DatasetStorageClient.StorageResult> stored = new EnumMap<>(DatasetVariant.class);
+
+    /** Stored patch archive per variant; empty when clients have to download the full archives. */
+    private final Map<DatasetVariant, DatasetDeltaService.DeltaResult> deltas =
+            new EnumMap<>(DatasetVariant.class);
+
+    Checkpoint checkpoint() {
+        return new Checkpoint(fingerprint, Map.copyOf(stored), Map.copyOf(deltas));
+    }
+
+    void restore(Checkpoint checkpoint) {
+        stored.putAll(checkpoint.stored());
+        if (checkpoint.deltas() != null) {
+            deltas.putAll(checkpoint.deltas());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (DatasetExportService.ExportResult export : exports.values()) {
+            try {
+                export.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (deltaBuilder != null) {
+            deltaBuilder.close();
+        }
+        if (preparedDelta != null) {
+            preparedDelta.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link PublishStage} beans of a release publish in stage order. Each attempt of a stage is timed under
+ * {@code dataset.publish.stage} with its outcome, and its bytes in and out and throughput are recorded per stage.
+ * <p>
+ * Retryable stages are retried in place with a growing backoff. After a checkpoint stage the context is saved on
+ * the release; when a failed release is published again with the same content fingerprint, the pipeline restores
+ * it and skips every stage up to the checkpoint. Otherwise the export computes the fingerprint as it reads the
+ * herbs, and the pipeline does not read them on its own.
+ */
+@Slf4j
+@Component
+public class PublishPipeline {
+
+    private final List<PublishStage> stages;
+    private final DatasetSnapshot datasetSnapshot;
+    private final DatasetFingerprint datasetFingerprint;
+    private final PublishReleaseRepository publishReleaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int stageAttempts;
+    private final Duration retryBackoff;
+
+    public PublishPipeline(List<PublishStage> stages,
+                           DatasetSnapshot datasetSnapshot,
+                           DatasetFingerprint datasetFingerprint,
+                           PublishReleaseRepository publishReleaseRepository,
+                           TransactionTemplate transactionTemplate,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${publisher.pipeline.stage-attempts:3}") int stageAttempts,
+                           @Value("${publisher.pipeline.retry-backoff:PT2S}") Duration retryBackoff) {
+        if (stageAttempts < 1) {
+            throw new IllegalArgumentException("publisher.pipeline.stage-attempts must be at least 1");
+        }
+        this.stages = stages.stream().sorted(Comparator.comparing(PublishStage::stage)).toList();
+        this.datasetSnapshot = datasetSnapshot;
+        this.datasetFingerprint = datasetFingerprint;
+        this.publishReleaseRepository = publishReleaseRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.stageAttempts = stageAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * A checkpoint is checked in the same snapshot as the leading dataset-reading stages, so its fingerprint
+     * describes exactly what they export.
+     */
+    public void run(PublishContext context, PublishProgress progress) {
+        List<List<PublishStage>> groups = groupBySnapshot();
+        PublishJob.Stage[] resumeAfter = {null};
+        for (int i = 0; i < groups.size(); i++) {
+            List<PublishStage> group = groups.get(i);
+            boolean first = i == 0;
+            if (group.get(0).readsSnapshot()) {
+                datasetSnapshot.read(() -> {
+                    if (first) {
+                        resumeAfter[0] = resumeAfter(context);
+                    }
+                    group.forEach(stage -> runStage(stage, context, progress, resumeAfter[0]));
+                    return null;
+                });
+            } else {
+                if (first) {
+                    resumeAfter[0] = datasetSnapshot.read(() -> resumeAfter(context));
+                }
+                group.forEach(stage -> runStage(stage, context, progress, resumeAfter[0]));
+            }
+        }
+    }
+
+    private List<List<PublishStage>> groupBySnapshot() {
+        List<List<PublishStage>> groups = new ArrayList<>();
+        for (PublishStage stage : stages) {
+            if (groups.isEmpty() || groups.get(groups.size() - 1).get(0).readsSnapshot() != stage.readsSnapshot()) {
+                groups.add(new ArrayList<>());
+            }
+            groups.get(groups.size() - 1).add(stage);
+        }
+        return groups;
+    }
+
+    /**
+     * Fingerprints the content with a scan of its own only when the release has a checkpoint to resume from.
+     *
+     * @return the stage to resume after, or null to run every stage
+     */
+    private PublishJob.Stage resumeAfter(PublishContext context) {
+        PublishRelease release = publishReleaseRepository.findById(context.getRelease().getId()).orElse(null);
+        if (release == null || release.getCheckpointStage() == null || release.getCheckpointJson() == null) {
+            return null;
+        }
+        PublishContext.Checkpoint checkpoint;
+        try {
+            checkpoint = objectMapper.readValue(release.getCheckpointJson(), PublishContext.Checkpoint.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable checkpoint of release {}", release.getVersionName(), e);
+            return null;
+        }
+        context.setFingerprint(datasetFingerprint.compute(context.getEncoding(), context.getVariants()).orElse(null));
+        if (context.getFingerprint() == null || !context.getFingerprint().equals(checkpoint.fingerprint())) {
+            log.info("Content of release {} changed since its last attempt, publishing from the start",
+                    release.getVersionName());
+            return null;
+        }
+        context.restore(checkpoint);
+        log.info("Resuming release {} after stage {}", release.getVersionName(), release.getCheckpointStage());
+        return release.getCheckpointStage();
+    }
+
+    private void runStage(PublishStage stage, PublishContext context, PublishProgress progress,
+                          PublishJob.Stage resumeAfter) {
+        if (resumeAfter != null && stage.stage().compareTo(resumeAfter) <= 0) {
+            return;
+        }
+        progress.checkCancelled();
+        progress.stage(stage.stage());
+        for (int attempt = 1; ; attempt++) {
+            long started = System.nanoTime();
+            try {
+                PublishStage.Result result = stage.run(context, progress);
+                record(stage, started, "success", result);
+                break;
+            } catch (CancellationException e) {
+                record(stage, started, "cancelled", PublishStage.Result.NONE);
+                throw e;
+            } catch (RuntimeException e) {
+                record(stage, started, "failure", PublishStage.Result.NONE);
+                if (!stage.retryable() || attempt >= stageAttempts) {
+                    throw e;
+                }
+                log.warn("Stage {} of release {} failed on attempt {} of {}, retrying", stage.stage(),
+                        context.getRelease().getVersionName(), attempt, stageAttempts, e);
+                backOff(attempt);
+            }
+        }
+        if (stage.checkpoint() && context.getFingerprint() != null) {
+            saveCheckpoint(context, stage.stage());
+        }
+    }
+
+    private void record(PublishStage stage, long started, String outcome, PublishStage.Result result) {
+        long elapsedNanos = System.nanoTime() - started;
+        String stageTag = stage.stage().name().toLowerCase(Locale.ROOT);
+        Timer.builder("dataset.publish.stage")
+                .description("Duration of one attempt of a publish stage")
+                .tags("stage", stageTag, "outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (!"success".equals(outcome)) {
+            return;
+        }
+        summary("dataset.publish.stage.bytes.in", "bytes", stageTag).record(result.bytesIn());
+        summary("dataset.publish.stage.bytes.out", "bytes", stageTag).record(result.bytesOut());
+        long bytes = Math.max(result.bytesIn(), result.bytesOut());
+        if (bytes > 0 && elapsedNanos > 0) {
+            summary("dataset.publish.stage.throughput", "bytes.per.second", stageTag)
+                    .record(bytes * 1e9 / elapsedNanos);
+        }
+        log.info("Stage {} took {} ms ({} bytes in, {} bytes out)", stage.stage(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), result.bytesIn(), result.bytesOut());
+    }
+
+    private DistributionSummary summary(String name, String baseUnit, String stageTag) {
+        return DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .tags("stage", stageTag)
+                .register(meterRegistry);
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoff.multipliedBy(attempt).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting to retry a publish stage");
+        }
+    }
+
+    private void saveCheckpoint(PublishContext context, PublishJob.Stage stage) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(context.checkpoint());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise publish checkpoint", e);
+        }
+        transactionTemplate.executeWithoutResult(status -> publishReleaseRepository
+                .findById(context.getRelease().getId())
+                .ifPresent(release -> {
+                    release.setCheckpointStage(stage);
+                    release.setCheckpointJson(json);
+                    publishReleaseRepository.save(release);
+                }));
+    }
+}
@@ -0,0 +1,43 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishJob;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Progress sink for a running publish. Counts are cumulative; implementations must be thread-safe because
+ * exporters report from their worker threads.
+ */
+public interface PublishProgress {
+
+    PublishProgress NONE = new PublishProgress() {
+        @Override
+        public void stage(PublishJob.Stage stage) {
+        }
+
+        @Override
+        public void herbsExported(long herbCount) {
+        }
+
+        @Override
+        public void bytesWritten(long byteCount) {
+        }
+
+        @Override
+        public void checkCancelled() {
+        }
+    };
+
+    void stage(PublishJob.Stage stage);
+
+    void herbsExported(long herbCount);
+
+    void bytesWritten(long byteCount);
+
+    /**
+     * Cooperative cancellation point.
+     *
+     * @throws CancellationException when the publish has been cancelled
+     */
+    void checkCancelled();
+}
@@ -0,0 +1,44 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishJob;
+
+/**
+ * One step of publishing a release. Stages are beans run by {@link PublishPipeline} in {@link PublishJob.Stage}
+ * order and pass their results to later stages through the {@link PublishContext}.
+ */
+public interface PublishStage {
+
+    /**
+     * Bytes a stage consumed and produced, recorded with its duration under {@code dataset.publish.stage.*}.
+     */
+    record Result(long bytesIn, long bytesOut) {
+
+        public static final Result NONE = new Result(0, 0);
+    }
+
+    PublishJob.Stage stage();
+
+    /**
+     * Consecutive stages that read the dataset run inside one {@link DatasetSnapshot}, so they see the same data.
+     */
+    default boolean readsSnapshot() {
+        return false;
+    }
+
+    /**
+     * Whether a failure is retried in place. Only for stages that can safely run again after a partial attempt.
+     */
+    default boolean retryable() {
+        return false;
+    }
+
+    /**
+     * Whether the context is persisted after this stage, so a retried publish with unchanged content resumes
+     * after it. Only stages whose results outlive the process, such as stored objects, can be checkpoints.
+     */
+    default boolean checkpoint() {
+        return false;
+    }
+
+    Result run(PublishContext context, PublishProgress progress);
+}
@@ -0,0 +1,464 @@
+package com.tcm.backend.publisher;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stores datasets in an S3-compatible bucket (AWS S3, MinIO, R2 and the like), addressed path-style. Objects up
+ * to {@code part-size} are sent with one PUT; larger ones as a multipart upload whose parts are uploaded by
+ * {@code upload-parallelism} threads. A part is only read into memory once an upload slot is free, so at most
+ * {@code upload-parallelism} part buffers exist at a time. Every request carries the SHA-256 of its payload, and
+ * parts also carry it as an S3 checksum, so corrupted parts are rejected by the store. Failed requests are
+ * retried on their own; a multipart upload that still fails is aborted so no parts are left behind.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "publisher.storage.type", havingValue = "s3")
+public class S3DatasetStorageClient implements DatasetStorageClient {
+
+    /** Smallest part S3 accepts, except for the last one. */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final int MAX_PARTS = 10_000;
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+
+    private record CompletedPart(int partNumber, String etag, String checksum) {
+    }
+
+    /**
+     * Request body with its SHA-256, hashed once and used for both the signature and the part checksum.
+     */
+    private record Payload(byte[] bytes, byte[] sha256) {
+
+        static final Payload EMPTY = of(new byte[0]);
+
+        static Payload of(byte[] bytes) {
+            return new Payload(bytes, S3RequestSigner.sha256(bytes));
+        }
+
+        String base64Sha256() {
+            return Base64.getEncoder().encodeToString(sha256);
+        }
+    }
+
+    private final Clock clock;
+    private final URI endpoint;
+    private final String host;
+    private final String bucket;
+    private final String publicUrl;
+    private final int partSize;
+    private final int uploadParallelism;
+    private final int requestAttempts;
+    private final Duration retryBackoff;
+    private final Duration requestTimeout;
+    private final S3RequestSigner signer;
+    private final HttpClient httpClient;
+    private final ExecutorService uploadPool;
+
+    public S3DatasetStorageClient(Clock clock,
+                                  @Value("${publisher.storage.s3.endpoint}") URI endpoint,
+                                  @Value("${publisher.storage.s3.bucket}") String bucket,
+                                  @Value("${publisher.storage.s3.region:us-east-1}") String region,
+                                  @Value("${publisher.storage.s3.access-key}") String accessKey,
+                                  @Value("${publisher.storage.s3.secret-key}") String secretKey,
+                                  @Value("${publisher.storage.s3.public-url:}") String publicUrl,
+                                  @Value("${publisher.storage.s3.part-size:8MB}") DataSize partSize,
+                                  @Value("${publisher.storage.s3.upload-parallelism:4}") int uploadParallelism,
+                                  @Value("${publisher.storage.s3.request-attempts:3}") int requestAttempts,
+                                  @Value("${publisher.storage.s3.retry-backoff:PT1S}") Duration retryBackoff,
+                                  @Value("${publisher.storage.s3.request-timeout:PT2M}") Duration requestTimeout) {
+        if (partSize.toBytes() < MIN_PART_SIZE || partSize.toBytes() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("publisher.storage.s3.part-size must be between 5MB and 2GB");
+        }
+        if (uploadParallelism < 1 || requestAttempts < 1) {
+            throw new IllegalArgumentException("S3 upload parallelism and request attempts must be at least 1");
+        }
+        this.clock = clock;
+        this.endpoint = endpoint;
+        this.host = hostHeader(endpoint);
+        this.bucket = bucket;
+        this.publicUrl = publicUrl == null || publicUrl.isBlank()
+                ? stripTrailingSlash(endpoint.toString()) + "/" + bucket
+                : stripTrailingSlash(publicUrl);
+        this.partSize = (int) partSize.toBytes();
+        this.uploadParallelism = uploadParallelism;
+        this.requestAttempts = requestAttempts;
+        this.retryBackoff = retryBackoff;
+        this.requestTimeout = requestTimeout;
+        this.signer = new S3RequestSigner(accessKey, secretKey, region);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.uploadPool = Executors.newFixedThreadPool(uploadParallelism,
+                Thread.ofPlatform().name("s3-upload-", 0).daemon().factory());
+        log.info("Storing datasets in bucket {} at {} ({} parts, {} parallel uploads)", bucket, endpoint, partSize,
+                uploadParallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadPool.shutdownNow();
+    }
+
+    @Override
+    public StorageResult storeDataset(String objectKey, InputStream datasetStream, long contentLength) {
+        try {
+            return new StorageResult(objectUrl(objectKey), upload(objectKey, datasetStream));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to store dataset " + objectKey, e);
+        }
+    }
+
+    @Override
+    public StorageResult storeArchive(String objectKey, Path archivePath, DatasetDigest digest) {
+        try (InputStream archiveStream = Files.newInputStream(archivePath)) {
+            upload(objectKey, archiveStream);
+            return new StorageResult(objectUrl(objectKey), digest);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to store dataset " + objectKey, e);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> openDataset(String objectKey) {
+        HttpResponse<InputStream> response =
+                send("GET", objectKey, Map.of(), Map.of(), Payload.EMPTY, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 404) {
+            discard(response);
+            return Optional.empty();
+        }
+        expectSuccess(response, "GET " + objectKey);
+        return Optional.of(response.body());
+    }
+
+    /**
+     * Copies inside the bucket, then reads the copy once for its digest; nothing is uploaded. A single copy request
+     * is limited to 5 GB by S3, far above any dataset archive.
+     */
+    @Override
+    public StorageResult copyDataset(String sourceKey, String targetKey) {
+        HttpResponse<String> response = send("PUT", targetKey, Map.of(),
+                Map.of("x-amz-copy-source", S3RequestSigner.encodePath("/" + bucket + "/" + sourceKey)), Payload.EMPTY,
+                HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "copy " + sourceKey + " to " + targetKey);
+        if (response.body().contains("<Error>")) {
+            throw new IllegalStateException("Failed to copy " + sourceKey + " to " + targetKey + ": "
+                    + response.body());
+        }
+        InputStream copy = openDataset(targetKey)
+                .orElseThrow(() -> new IllegalStateException("Dataset " + targetKey + " not found after copy"));
+        ChecksumOutputStream checksum = new ChecksumOutputStream(OutputStream.nullOutputStream());
+        try (copy) {
+            copy.transferTo(checksum);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read copied dataset " + targetKey, e);
+        }
+        return new StorageResult(objectUrl(targetKey), checksum.getDigest());
+    }
+
+    @Override
+    public long deleteDataset(String objectKey) {
+        HttpResponse<Void> head =
+                send("HEAD", objectKey, Map.of(), Map.of(), Payload.EMPTY, HttpResponse.BodyHandlers.discarding());
+        if (head.statusCode() == 404) {
+            return 0;
+        }
+        expectSuccess(head, "HEAD " + objectKey);
+        long size = head.headers().firstValueAsLong("Content-Length").orElse(0);
+        HttpResponse<Void> delete =
+                send("DELETE", objectKey, Map.of(), Map.of(), Payload.EMPTY, HttpResponse.BodyHandlers.discarding());
+        if (delete.statusCode() != 404) {
+            expectSuccess(delete, "DELETE " + objectKey);
+        }
+        return size;
+    }
+
+    /**
+     * Uploads {@code source} and returns its digest, computed while the parts are read.
+     */
+    private DatasetDigest upload(String objectKey, InputStream source) throws IOException {
+        ChecksumOutputStream checksum = new ChecksumOutputStream(OutputStream.nullOutputStream());
+        Semaphore buffers = new Semaphore(uploadParallelism);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        String uploadId = null;
+        long started = System.nanoTime();
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+                acquire(buffers);
+                byte[] data = source.readNBytes(partSize);
+                if (partNumber == 1 && data.length < partSize) {
+                    buffers.release();
+                    checksum.write(data);
+                    putObject(objectKey, data);
+                    break;
+                }
+                if (data.length == 0) {
+                    buffers.release();
+                    break;
+                }
+                if (partNumber > MAX_PARTS) {
+                    buffers.release();
+                    throw new IllegalStateException("Dataset " + objectKey + " needs more than " + MAX_PARTS
+                            + " parts, increase publisher.storage.s3.part-size");
+                }
+                checksum.write(data);
+                if (uploadId == null) {
+                    uploadId = createMultipartUpload(objectKey);
+                }
+                failFast(parts);
+                String id = uploadId;
+                int number = partNumber;
+                parts.add(CompletableFuture
+                        .supplyAsync(() -> uploadPart(objectKey, id, number, data), uploadPool)
+                        .whenComplete((part, error) -> buffers.release()));
+                if (data.length < partSize) {
+                    break;
+                }
+            }
+            if (uploadId != null) {
+                completeMultipartUpload(objectKey, uploadId, parts.stream().map(CompletableFuture::join).toList());
+            }
+        } catch (IOException | RuntimeException e) {
+            if (uploadId != null) {
+                parts.forEach(part -> part.cancel(false));
+                abortMultipartUpload(objectKey, uploadId);
+            }
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        DatasetDigest digest = checksum.getDigest();
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        log.info("Uploaded {} ({} bytes, {} parts) in {} ms, {} MB/s", objectKey, digest.sizeBytes(),
+                Math.max(1, parts.size()), elapsedMillis, digest.sizeBytes() / 1000 / elapsedMillis);
+        return digest;
+    }
+
+    private void putObject(String objectKey, byte[] data) {
+        Payload payload = Payload.of(data);
+        HttpResponse<String> response = send("PUT", objectKey, Map.of(),
+                Map.of("x-amz-checksum-sha256", payload.base64Sha256()), payload,
+                HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "PUT " + objectKey);
+    }
+
+    private String createMultipartUpload(String objectKey) {
+        HttpResponse<String> response = send("POST", objectKey, Map.of("uploads", ""),
+                Map.of("x-amz-checksum-algorithm", "SHA256"), Payload.EMPTY, HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "create multipart upload of " + objectKey);
+        Matcher matcher = UPLOAD_ID.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("No upload id in response for " + objectKey + ": " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private CompletedPart uploadPart(String objectKey, String uploadId, int partNumber, byte[] data) {
+        Payload payload = Payload.of(data);
+        String partChecksum = payload.base64Sha256();
+        HttpResponse<String> response = send("PUT", objectKey,
+                Map.of("partNumber", Integer.toString(partNumber), "uploadId", uploadId),
+                Map.of("x-amz-checksum-sha256", partChecksum), payload, HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "upload part " + partNumber + " of " + objectKey);
+        String etag = response.headers().firstValue("ETag")
+                .orElseThrow(() -> new IllegalStateException("No ETag for part " + partNumber + " of " + objectKey));
+        return new CompletedPart(partNumber, etag, partChecksum);
+    }
+
+    private void completeMultipartUpload(String objectKey, String uploadId, List<CompletedPart> parts) {
+        StringBuilder body = new StringBuilder("<CompleteMultipartUpload>");
+        for (CompletedPart part : parts) {
+            body.append("<Part><PartNumber>").append(part.partNumber()).append("</PartNumber>")
+                    .append("<ETag>").append(escapeXml(part.etag())).append("</ETag>")
+                    .append("<ChecksumSHA256>").append(part.checksum()).append("</ChecksumSHA256></Part>");
+        }
+        body.append("</CompleteMultipartUpload>");
+        HttpResponse<String> response = send("POST", objectKey, Map.of("uploadId", uploadId), Map.of(),
+                Payload.of(body.toString().getBytes(StandardCharsets.UTF_8)), HttpResponse.BodyHandlers.ofString());
+        expectSuccess(response, "complete multipart upload of " + objectKey);
+        // S3 reports some failures of this call inside a 200 response
+        if (response.body().contains("<Error>")) {
+            throw new IllegalStateException("Failed to complete multipart upload of " + objectKey + ": "
+                    + response.body());
+        }
+    }
+
+    private void abortMultipartUpload(String objectKey, String uploadId) {
+        try {
+            HttpResponse<Void> response = send("DELETE", objectKey, Map.of("uploadId", uploadId), Map.of(),
+                    Payload.EMPTY, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 404) {
+                expectSuccess(response, "abort multipart upload of " + objectKey);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to abort multipart upload {} of {}; the bucket lifecycle rule has to clean it up",
+                    uploadId, objectKey, e);
+        }
+    }
+
+    /**
+     * Signs and sends one request, retrying it on I/O errors, throttling and server errors. Any other response is
+     * returned for the caller to check.
+     */
+    private <T> HttpResponse<T> send(String method, String objectKey, Map<String, String> query,
+                                     Map<String, String> headers, Payload body, HttpResponse.BodyHandler<T> handler) {
+        for (int attempt = 1; ; attempt++) {
+            Exception failure;
+            try {
+                HttpResponse<T> response = httpClient.send(request(method, objectKey, query, headers, body), handler);
+                if (response.statusCode() < 500 && response.statusCode() != 429) {
+                    return response;
+                }
+                discard(response);
+                failure = new IllegalStateException(method + " " + objectKey + " returned " + response.statusCode());
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(method + " " + objectKey + " was interrupted", e);
+            }
+            if (attempt >= requestAttempts) {
+                throw new IllegalStateException(method + " " + objectKey + " failed after " + attempt + " attempts",
+                        failure);
+            }
+            log.debug("{} {} failed on attempt {}, retrying", method, objectKey, attempt, failure);
+            sleep(retryBackoff.multipliedBy(attempt));
+        }
+    }
+
+    private HttpRequest request(String method, String objectKey, Map<String, String> query,
+                                Map<String, String> headers, Payload body) {
+        String canonicalPath = S3RequestSigner.encodePath(endpoint.getPath().replaceAll("/+$", "") + "/" + bucket
+                + "/" + objectKey);
+        String canonicalQuery = S3RequestSigner.canonicalQuery(query);
+        String payloadHash = HexFormat.of().formatHex(body.sha256());
+
+        Map<String, String> signedHeaders = new LinkedHashMap<>(headers);
+        signedHeaders.put("host", host);
+        signedHeaders.put("x-amz-date", AMZ_DATE.format(clock.instant()));
+        signedHeaders.put("x-amz-content-sha256", payloadHash);
+        String authorization = signer.authorization(method, canonicalPath, canonicalQuery, signedHeaders, payloadHash);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(endpoint.getScheme() + "://" + host + canonicalPath
+                        + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery)))
+                .timeout(requestTimeout)
+                .method(method, body.bytes().length > 0
+                        ? HttpRequest.BodyPublishers.ofByteArray(body.bytes())
+                        : HttpRequest.BodyPublishers.noBody())
+                .header("Authorization", authorization);
+        signedHeaders.forEach((name, value) -> {
+            if (!"host".equals(name)) {
+                builder.header(name, value);
+            }
+        });
+        return builder.build();
+    }
+
+    private String objectUrl(String objectKey) {
+        return publicUrl + S3RequestSigner.encodePath("/" + objectKey);
+    }
+
+    private static void expectSuccess(HttpResponse<?> response, String operation) {
+        if (response.statusCode() / 100 != 2) {
+            String detail = response.body() instanceof String text ? ": " + text : "";
+            discard(response);
+            throw new IllegalStateException(operation + " returned " + response.statusCode() + detail);
+        }
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream stream) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // Only releases the connection
+            }
+        }
+    }
+
+    /**
+     * Stops reading parts once one has failed for good, instead of uploading the rest of the file first.
+     */
+    private static void failFast(List<CompletableFuture<CompletedPart>> parts) {
+        for (CompletableFuture<CompletedPart> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                part.join();
+            }
+        }
+    }
+
+    private static void acquire(Semaphore buffers) throws InterruptedIOException {
+        try {
+            buffers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an upload slot");
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry an S3 request", e);
+        }
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Host header exactly as {@link HttpClient} sends it, since it is part of the signature.
+     */
+    private static String hostHeader(URI endpoint) {
+        int port = endpoint.getPort();
+        boolean defaultPort = port == -1
+                || ("https".equalsIgnoreCase(endpoint.getScheme()) ? port == 443 : port == 80);
+        return defaultPort ? endpoint.getHost() : endpoint.getHost() + ":" + port;
+    }
+}
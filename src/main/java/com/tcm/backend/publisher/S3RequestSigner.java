@@ -0,0 +1,129 @@
+package com.tcm.backend.publisher;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * AWS Signature Version 4 for S3 requests with a signed payload hash. Paths and query strings are encoded here
+ * once and sent exactly as signed; S3 does not normalise or double-encode object paths.
+ */
+final class S3RequestSigner {
+
+    static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String SERVICE = "s3";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    S3RequestSigner(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * @param canonicalPath encoded path, as produced by {@link #encodePath(String)}
+     * @param canonicalQuery encoded query, as produced by {@link #canonicalQuery(Map)}
+     * @param headers headers to sign, including {@code host}, {@code x-amz-date} and {@code x-amz-content-sha256}
+     * @return value of the {@code Authorization} header
+     */
+    String authorization(String method, String canonicalPath, String canonicalQuery, Map<String, String> headers,
+                         String payloadHash) {
+        Map<String, String> canonicalHeaders = new TreeMap<>();
+        headers.forEach((name, value) -> canonicalHeaders.put(name.toLowerCase(Locale.ROOT), value.trim()));
+        String amzDate = canonicalHeaders.get("x-amz-date");
+        if (amzDate == null || !canonicalHeaders.containsKey("host")) {
+            throw new IllegalArgumentException("host and x-amz-date headers are required");
+        }
+        String signedHeaders = String.join(";", canonicalHeaders.keySet());
+        String canonicalRequest = method + "\n"
+                + canonicalPath + "\n"
+                + canonicalQuery + "\n"
+                + canonicalHeaders.entrySet().stream()
+                .map(header -> header.getKey() + ":" + header.getValue() + "\n")
+                .collect(Collectors.joining())
+                + "\n"
+                + signedHeaders + "\n"
+                + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/" + SERVICE + "/aws4_request";
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n"
+                + sha256Hex(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, SERVICE);
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HEX.formatHex(hmac(signingKey, stringToSign));
+        return ALGORITHM + " Credential=" + accessKey + "/" + scope + ", SignedHeaders=" + signedHeaders
+                + ", Signature=" + signature;
+    }
+
+    /**
+     * Encodes each path segment, keeping the slashes between them.
+     */
+    static String encodePath(String path) {
+        return encode(path).replace("%2F", "/");
+    }
+
+    /**
+     * Parameters sorted by name, names and values encoded; a parameter without a value is written as {@code name=}.
+     */
+    static String canonicalQuery(Map<String, String> query) {
+        return new TreeMap<>(query).entrySet().stream()
+                .map(parameter -> encode(parameter.getKey()) + "=" + encode(parameter.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    /**
+     * RFC 3986 encoding of everything except unreserved characters, as SigV4 requires.
+     */
+    static String encode(String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(HEX.withUpperCase().toHexDigits(b));
+            }
+        }
+        return encoded.toString();
+    }
+
+    static String sha256Hex(byte[] data) {
+        return HEX.formatHex(sha256(data));
+    }
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Writes herbs as one Smile array in {@code herbs.smile}. Shared name and value back-references only resolve within
+ * one generator, so they are disabled and the header written here declares none; deflate recovers most of what
+ * they would have saved.
+ */
+@Service
+public class SmileDatasetExportService extends AbstractArchiveExportService {
+
+    static final String HERBS_ENTRY = "herbs.smile";
+
+    private static final HerbsLayout LAYOUT = new HerbsLayout(HERBS_ENTRY,
+            new byte[]{SmileConstants.HEADER_BYTE_1, SmileConstants.HEADER_BYTE_2, SmileConstants.HEADER_BYTE_3,
+                    (byte) SmileConstants.HEADER_VERSION_0, (byte) SmileConstants.TOKEN_LITERAL_START_ARRAY},
+            new byte[0],
+            new byte[]{(byte) SmileConstants.TOKEN_LITERAL_END_ARRAY});
+
+    private final ObjectMapper smileMapper;
+
+    public SmileDatasetExportService(HerbExportReader herbExportReader, ObjectMapper objectMapper,
+                                     DatasetSnapshot datasetSnapshot, ArchiveCompressionPolicy compressionPolicy) {
+        super(herbExportReader, datasetSnapshot, compressionPolicy);
+        this.smileMapper = objectMapper.copyWith(SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                .disable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .disable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build());
+    }
+
+    @Override
+    public DatasetEncoding encoding() {
+        return DatasetEncoding.SMILE;
+    }
+
+    @Override
+    protected int writeHerbs(Map<DatasetVariant, DatasetArchiveWriter> archives, ExecutorService compressors,
+                             PublishProgress progress, HerbExportReader.RecordHandler listener) throws IOException {
+        return writeShardedHerbs(archives, compressors, progress, listener, LAYOUT,
+                records -> serialize(smileMapper, records, null));
+    }
+}
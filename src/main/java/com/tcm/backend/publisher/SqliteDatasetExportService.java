@@ -0,0 +1,349 @@
+package com.tcm.backend.publisher;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds a normalised SQLite database for offline clients, with FTS5 indexes over herb names and descriptions,
+ * and ships it compressed inside a zip archive. Each variant is its own database, filled from the same scan.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SqliteDatasetExportService implements DatasetExportService {
+
+    static final String DATABASE_ENTRY = "tcm.sqlite";
+
+    private static final List<String> LOAD_PRAGMAS = List.of(
+            "PRAGMA page_size = 4096",
+            "PRAGMA journal_mode = OFF",
+            "PRAGMA synchronous = OFF",
+            "PRAGMA locking_mode = EXCLUSIVE",
+            "PRAGMA temp_store = MEMORY",
+            "PRAGMA cache_size = -65536"
+    );
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE herbs (id INTEGER PRIMARY KEY, source_url TEXT NOT NULL, name_zh TEXT, name_pinyin TEXT, "
+                    + "desc_zh TEXT, desc_en TEXT, appearance TEXT, property TEXT)",
+            "CREATE TABLE herb_flavors (herb_id INTEGER NOT NULL, position INTEGER NOT NULL, value TEXT NOT NULL, "
+                    + "PRIMARY KEY (herb_id, position)) WITHOUT ROWID",
+            "CREATE TABLE herb_formulas (herb_id INTEGER NOT NULL, position INTEGER NOT NULL, value TEXT NOT NULL, "
+                    + "PRIMARY KEY (herb_id, position)) WITHOUT ROWID",
+            "CREATE TABLE herb_indications (herb_id INTEGER NOT NULL, position INTEGER NOT NULL, value TEXT NOT NULL, "
+                    + "PRIMARY KEY (herb_id, position)) WITHOUT ROWID",
+            "CREATE TABLE herb_meridians (herb_id INTEGER NOT NULL, position INTEGER NOT NULL, value TEXT NOT NULL, "
+                    + "PRIMARY KEY (herb_id, position)) WITHOUT ROWID",
+            "CREATE TABLE herb_images (id INTEGER PRIMARY KEY, herb_id INTEGER NOT NULL, filename TEXT NOT NULL, "
+                    + "mime TEXT NOT NULL, size_bytes INTEGER, content_hash TEXT)",
+            "CREATE TABLE images (content_hash TEXT PRIMARY KEY, mime TEXT NOT NULL, data BLOB NOT NULL)"
+    );
+
+    // unicode61 handles pinyin and English; CJK text has no word breaks, so Chinese fields use the trigram tokenizer
+    private static final List<String> SEARCH_INDEXES = List.of(
+            "CREATE VIRTUAL TABLE herbs_fts USING fts5(name_pinyin, desc_en, "
+                    + "content='herbs', content_rowid='id', tokenize='unicode61 remove_diacritics 2')",
+            "CREATE VIRTUAL TABLE herbs_fts_zh USING fts5(name_zh, desc_zh, "
+                    + "content='herbs', content_rowid='id', tokenize='trigram')",
+            "INSERT INTO herbs_fts(herbs_fts) VALUES ('rebuild')",
+            "INSERT INTO herbs_fts_zh(herbs_fts_zh) VALUES ('rebuild')",
+            "INSERT INTO herbs_fts(herbs_fts) VALUES ('optimize')",
+            "INSERT INTO herbs_fts_zh(herbs_fts_zh) VALUES ('optimize')",
+            "CREATE INDEX idx_herb_images_herb ON herb_images (herb_id)",
+            "CREATE INDEX idx_herbs_name_pinyin ON herbs (name_pinyin)"
+    );
+
+    private final HerbExportReader herbExportReader;
+    private final DatasetSnapshot datasetSnapshot;
+    private final ArchiveCompressionPolicy compressionPolicy;
+
+    @Value("${publisher.export.temp-directory:${java.io.tmpdir}}")
+    private String tempDirectory;
+
+    @Value("${publisher.export.sqlite.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public DatasetEncoding encoding() {
+        return DatasetEncoding.SQLITE;
+    }
+
+    @Override
+    public Map<DatasetVariant, ExportResult> exportVariants(Set<DatasetVariant> variants, PublishProgress progress,
+                                                            HerbExportReader.RecordHandler listener) {
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("At least one dataset variant is required");
+        }
+        Map<DatasetVariant, Path> databasePaths = new EnumMap<>(DatasetVariant.class);
+        Map<DatasetVariant, Path> archivePaths = new EnumMap<>(DatasetVariant.class);
+        try {
+            for (DatasetVariant variant : EnumSet.copyOf(variants)) {
+                databasePaths.put(variant, DatasetArchiveFiles.createTempFile(tempDirectory,
+                        "." + variant.key() + ".sqlite"));
+                archivePaths.put(variant, DatasetArchiveFiles.createTempFile(tempDirectory,
+                        "." + variant.key() + ".zip"));
+            }
+            datasetSnapshot.read(() -> {
+                try {
+                    buildDatabases(databasePaths, progress, listener);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Failed to build SQLite dataset", e);
+                }
+                return null;
+            });
+            Map<DatasetVariant, ExportResult> results = new EnumMap<>(DatasetVariant.class);
+            for (DatasetVariant variant : databasePaths.keySet()) {
+                results.put(variant, zipDatabase(databasePaths.get(variant), archivePaths.get(variant)));
+            }
+            progress.bytesWritten(results.values().stream().mapToLong(ExportResult::sizeBytes).sum());
+            return results;
+        } catch (CancellationException e) {
+            archivePaths.values().forEach(DatasetArchiveFiles::deleteQuietly);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            archivePaths.values().forEach(DatasetArchiveFiles::deleteQuietly);
+            throw new IllegalStateException("Failed to export SQLite dataset", e);
+        } finally {
+            databasePaths.values().forEach(DatasetArchiveFiles::deleteQuietly);
+        }
+    }
+
+    private ExportResult zipDatabase(Path databasePath, Path archivePath) throws IOException {
+        ChecksumOutputStream checksumStream =
+                new ChecksumOutputStream(new BufferedOutputStream(Files.newOutputStream(archivePath)));
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(checksumStream)) {
+            zipOutputStream.setLevel(compressionPolicy.textLevel());
+            zipOutputStream.putNextEntry(DatasetArchiveFiles.zipEntry(DATABASE_ENTRY));
+            Files.copy(databasePath, zipOutputStream);
+            zipOutputStream.closeEntry();
+        }
+        return new ExportResult(archivePath, checksumStream.getDigest());
+    }
+
+    /**
+     * Fills one database per variant from a single read of herbs and image payloads.
+     */
+    private void buildDatabases(Map<DatasetVariant, Path> databasePaths, PublishProgress progress,
+                                HerbExportReader.RecordHandler listener) throws SQLException {
+        Map<DatasetVariant, Connection> connections = new EnumMap<>(DatasetVariant.class);
+        Map<DatasetVariant, SqliteBatchWriter> writers = new EnumMap<>(DatasetVariant.class);
+        try {
+            for (Map.Entry<DatasetVariant, Path> entry : databasePaths.entrySet()) {
+                Connection connection =
+                        DriverManager.getConnection("jdbc:sqlite:" + entry.getValue().toAbsolutePath());
+                connections.put(entry.getKey(), connection);
+                execute(connection, LOAD_PRAGMAS);
+                connection.setAutoCommit(false);
+                execute(connection, SCHEMA);
+                writers.put(entry.getKey(), new SqliteBatchWriter(connection, batchSize));
+            }
+
+            long[] herbsWritten = {0};
+            int herbCount = herbExportReader.readHerbs(listener.andThen(record -> {
+                try {
+                    for (Map.Entry<DatasetVariant, SqliteBatchWriter> entry : writers.entrySet()) {
+                        entry.getValue().addHerb(entry.getKey().apply(record));
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Failed to write herb " + record.id(), e);
+                }
+                if (++herbsWritten[0] % batchSize == 0) {
+                    progress.herbsExported(herbsWritten[0]);
+                    progress.checkCancelled();
+                }
+            }));
+            progress.herbsExported(herbCount);
+
+            List<SqliteBatchWriter> imageWriters = writers.entrySet().stream()
+                    .filter(entry -> entry.getKey().includesImages())
+                    .map(Map.Entry::getValue)
+                    .toList();
+            int imageCount = imageWriters.isEmpty() ? 0 : herbExportReader.readImagePayloads((image, content) -> {
+                progress.checkCancelled();
+                byte[] data = content.readAllBytes();
+                try {
+                    for (SqliteBatchWriter writer : imageWriters) {
+                        writer.addImage(image, data);
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Failed to write image " + image.id(), e);
+                }
+            });
+            for (SqliteBatchWriter writer : writers.values()) {
+                writer.flush();
+            }
+
+            for (Connection connection : connections.values()) {
+                execute(connection, SEARCH_INDEXES);
+                connection.commit();
+                connection.setAutoCommit(true);
+                execute(connection, List.of("PRAGMA optimize", "VACUUM"));
+            }
+            log.info("Built SQLite datasets {} with {} herbs and {} images", databasePaths.keySet(), herbCount,
+                    imageCount);
+        } finally {
+            closeAll(writers.values(), connections.values());
+        }
+    }
+
+    private static void closeAll(Collection<SqliteBatchWriter> writers, Collection<Connection> connections)
+            throws SQLException {
+        SQLException failure = null;
+        for (AutoCloseable resource : Stream.concat(writers.stream(), connections.stream()).toList()) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e instanceof SQLException sqlException ? sqlException : new SQLException(e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void execute(Connection connection, List<String> statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Prepared inserts for every dataset table, flushed together every {@code batchSize} herbs.
+     */
+    private static final class SqliteBatchWriter implements AutoCloseable {
+
+        private final int batchSize;
+        private final PreparedStatement herbs;
+        private final PreparedStatement flavors;
+        private final PreparedStatement formulas;
+        private final PreparedStatement indications;
+        private final PreparedStatement meridians;
+        private final PreparedStatement herbImages;
+        private final PreparedStatement images;
+        private int pending;
+
+        SqliteBatchWriter(Connection connection, int batchSize) throws SQLException {
+            this.batchSize = batchSize;
+            this.herbs = connection.prepareStatement("INSERT INTO herbs (id, source_url, name_zh, name_pinyin, "
+                    + "desc_zh, desc_en, appearance, property) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            this.flavors = connection.prepareStatement(valueInsert("herb_flavors"));
+            this.formulas = connection.prepareStatement(valueInsert("herb_formulas"));
+            this.indications = connection.prepareStatement(valueInsert("herb_indications"));
+            this.meridians = connection.prepareStatement(valueInsert("herb_meridians"));
+            this.herbImages = connection.prepareStatement("INSERT INTO herb_images (id, herb_id, filename, mime, "
+                    + "size_bytes, content_hash) VALUES (?, ?, ?, ?, ?, ?)");
+            this.images = connection.prepareStatement(
+                    "INSERT OR IGNORE INTO images (content_hash, mime, data) VALUES (?, ?, ?)");
+        }
+
+        private static String valueInsert(String table) {
+            return "INSERT INTO " + table + " (herb_id, position, value) VALUES (?, ?, ?)";
+        }
+
+        void addHerb(HerbExportRecord record) throws SQLException {
+            herbs.setInt(1, record.id());
+            herbs.setString(2, record.sourceUrl());
+            herbs.setString(3, record.nameZh());
+            herbs.setString(4, record.namePinyin());
+            herbs.setString(5, record.descZh());
+            herbs.setString(6, record.descEn());
+            herbs.setString(7, record.appearance());
+            herbs.setString(8, record.property());
+            herbs.addBatch();
+            addValues(flavors, record.id(), record.flavors());
+            addValues(formulas, record.id(), record.formulas());
+            addValues(indications, record.id(), record.indications());
+            addValues(meridians, record.id(), record.meridians());
+            for (HerbExportRecord.ImageRecord image : record.images()) {
+                herbImages.setInt(1, image.id());
+                herbImages.setInt(2, record.id());
+                herbImages.setString(3, image.filename());
+                herbImages.setString(4, image.mime());
+                if (image.sizeBytes() != null) {
+                    herbImages.setInt(5, image.sizeBytes());
+                } else {
+                    herbImages.setNull(5, Types.INTEGER);
+                }
+                herbImages.setString(6, image.contentKey());
+                herbImages.addBatch();
+            }
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+
+        void addImage(HerbExportRecord.ImageRecord image, byte[] data) throws SQLException {
+            // Executed per row: batching blobs would hold many payloads in memory at once
+            images.setString(1, image.contentKey());
+            images.setString(2, image.mime());
+            images.setBytes(3, data);
+            images.executeUpdate();
+        }
+
+        void flush() throws SQLException {
+            herbs.executeBatch();
+            flavors.executeBatch();
+            formulas.executeBatch();
+            indications.executeBatch();
+            meridians.executeBatch();
+            herbImages.executeBatch();
+            pending = 0;
+        }
+
+        private static void addValues(PreparedStatement statement, int herbId, List<String> values) throws SQLException {
+            for (int position = 0; position < values.size(); position++) {
+                statement.setInt(1, herbId);
+                statement.setInt(2, position);
+                statement.setString(3, values.get(position));
+                statement.addBatch();
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            SQLException failure = null;
+            for (PreparedStatement statement : List.of(herbs, flavors, formulas, indications, meridians, herbImages, images)) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishRelease;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Stores the variant archives and the delta, or copies the previous release's archives when it is reused.
+ * Variants stored by an earlier attempt are skipped, so a retry only uploads what is missing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadPublishStage implements PublishStage {
+
+    private final DatasetStorageClient datasetStorageClient;
+    private final DatasetDeltaService datasetDeltaService;
+
+    @Override
+    public PublishJob.Stage stage() {
+        return PublishJob.Stage.UPLOAD;
+    }
+
+    @Override
+    public boolean retryable() {
+        return true;
+    }
+
+    @Override
+    public boolean checkpoint() {
+        return true;
+    }
+
+    @Override
+    public Result run(PublishContext context, PublishProgress progress) {
+        String versionName = context.getRelease().getVersionName();
+        Map<DatasetVariant, DatasetStorageClient.StorageResult> stored = context.getStored();
+        long bytesIn = 0;
+        if (context.isReusesPrevious()) {
+            PublishRelease previous = context.getPrevious();
+            for (DatasetVariant variant : context.getVariants()) {
+                if (!stored.containsKey(variant)) {
+                    stored.put(variant, datasetStorageClient.copyDataset(
+                            DatasetObjectKeys.variantArchiveKey(previous.getVersionName(), variant),
+                            DatasetObjectKeys.variantArchiveKey(versionName, variant)));
+                }
+            }
+            copyIndex(previous, context.getRelease());
+        } else {
+            for (Map.Entry<DatasetVariant, DatasetExportService.ExportResult> entry : context.getExports().entrySet()) {
+                DatasetExportService.ExportResult export = entry.getValue();
+                bytesIn += export.sizeBytes();
+                if (!stored.containsKey(entry.getKey())) {
+                    progress.checkCancelled();
+                    stored.put(entry.getKey(), datasetStorageClient.storeArchive(
+                            DatasetObjectKeys.variantArchiveKey(versionName, entry.getKey()),
+                            export.archivePath(), export.digest()));
+                }
+            }
+            if (context.getDeltas().isEmpty()) {
+                context.getDeltas().putAll(storeDelta(context));
+            }
+        }
+        long bytesOut = stored.values().stream().mapToLong(result -> result.digest().sizeBytes()).sum()
+                + context.getDeltas().values().stream().mapToLong(delta -> delta.digest().sizeBytes()).sum();
+        return new Result(bytesIn, bytesOut);
+    }
+
+    /**
+     * Keeps the delta chain going after a reused release; without the index the next release is full only.
+     */
+    private void copyIndex(PublishRelease previous, PublishRelease release) {
+        try {
+            datasetDeltaService.copyIndex(previous, release);
+        } catch (RuntimeException e) {
+            log.warn("Failed to copy content index of release {} to {}", previous.getVersionName(),
+                    release.getVersionName(), e);
+        }
+    }
+
+    private Map<DatasetVariant, DatasetDeltaService.DeltaResult> storeDelta(PublishContext context) {
+        if (context.getPreparedDelta() == null) {
+            return Map.of();
+        }
+        try {
+            return datasetDeltaService.storeDelta(context.getPreparedDelta());
+        } catch (RuntimeException e) {
+            log.warn("Failed to store delta for release {}, clients will download the full archive",
+                    context.getRelease().getVersionName(), e);
+            return Map.of();
+        }
+    }
+}
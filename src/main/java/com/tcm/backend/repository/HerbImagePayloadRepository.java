@@ -0,0 +1,16 @@
+package com.tcm.backend.repository;
+
+import com.tcm.backend.domain.HerbImagePayload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HerbImagePayloadRepository extends JpaRepository<HerbImagePayload, Integer> {
+
+    @Modifying
+    @Query("UPDATE HerbImagePayload p SET p.data = :data WHERE p.imageId = :imageId")
+    int updateData(@Param("imageId") Integer imageId, @Param("data") byte[] data);
+}
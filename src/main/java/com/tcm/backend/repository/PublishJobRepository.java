@@ -0,0 +1,41 @@
+package com.tcm.backend.repository;
+
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishJob.JobStatus;
+import com.tcm.backend.domain.PublishJob.Stage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PublishJobRepository extends JpaRepository<PublishJob, UUID> {
+
+    List<PublishJob> findByStatusOrderByCreatedAtAsc(JobStatus status);
+
+    boolean existsByReleaseIdAndStatusIn(UUID releaseId, Collection<JobStatus> statuses);
+
+    List<PublishJob> findByReleaseIdAndStatusIn(UUID releaseId, Collection<JobStatus> statuses);
+
+    /**
+     * Progress heartbeat from the worker. Does not bump the entity version, so it never conflicts with a
+     * concurrent cancel request.
+     */
+    @Modifying
+    @Query("UPDATE PublishJob j SET j.stage = :stage, j.herbsExported = :herbsExported, "
+            + "j.bytesWritten = :bytesWritten, j.updatedAt = :updatedAt WHERE j.id = :id")
+    int updateProgress(@Param("id") UUID id,
+                       @Param("stage") Stage stage,
+                       @Param("herbsExported") long herbsExported,
+                       @Param("bytesWritten") long bytesWritten,
+                       @Param("updatedAt") Instant updatedAt);
+
+    @Query("SELECT j.cancelRequested FROM PublishJob j WHERE j.id = :id")
+    boolean isCancelRequested(@Param("id") UUID id);
+}
@@ -3,8 +3,13 @@ package com.tcm.backend.repository;
 import com.tcm.backend.domain.PublishRelease;
 import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +17,51 @@ import java.util.UUID;
 public interface PublishReleaseRepository extends JpaRepository<PublishRelease, UUID> {
 
     Optional<PublishRelease> findFirstByStatusOrderByCreatedAtDesc(ReleaseStatus status);
+
+    Optional<PublishRelease> findFirstByStatusAndStorageUrlIsNotNullAndIdNotOrderByCreatedAtDesc(
+            ReleaseStatus status, UUID excludedId);
+
+    Optional<PublishRelease> findFirstByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus status);
+
+    Optional<PublishRelease> findByVersionNameAndStatusAndStorageUrlIsNotNull(String versionName,
+                                                                             ReleaseStatus status);
+
+    List<PublishRelease> findByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus status);
+
+    /**
+     * Releases waiting to be published whose lease is free or expired. Served by
+     * {@code idx_publish_release_unpublished}.
+     */
+    @Query("SELECT r.id FROM PublishRelease r WHERE r.status = :status AND r.storageUrl IS NULL "
+            + "AND (r.publishLeaseUntil IS NULL OR r.publishLeaseUntil < :now) ORDER BY r.createdAt")
+    List<UUID> findClaimableIds(@Param("status") ReleaseStatus status, @Param("now") Instant now);
+
+    /**
+     * Takes the publish lease if the release is still unpublished and nobody holds an unexpired lease. The
+     * database serialises concurrent updates of the row, so at most one node sees 1.
+     *
+     * @return 1 if the lease was taken, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE PublishRelease r SET r.publishLeaseOwner = :owner, r.publishLeaseUntil = :leaseUntil "
+            + "WHERE r.id = :id AND r.status = :status AND r.storageUrl IS NULL "
+            + "AND (r.publishLeaseUntil IS NULL OR r.publishLeaseUntil < :now)")
+    int claimForPublish(@Param("id") UUID id,
+                        @Param("status") ReleaseStatus status,
+                        @Param("owner") String owner,
+                        @Param("now") Instant now,
+                        @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * @return 0 if {@code owner} no longer holds the lease
+     */
+    @Modifying
+    @Query("UPDATE PublishRelease r SET r.publishLeaseUntil = :leaseUntil "
+            + "WHERE r.id = :id AND r.publishLeaseOwner = :owner")
+    int renewPublishLease(@Param("id") UUID id, @Param("owner") String owner, @Param("leaseUntil") Instant leaseUntil);
+
+    @Modifying
+    @Query("UPDATE PublishRelease r SET r.publishLeaseOwner = NULL, r.publishLeaseUntil = NULL "
+            + "WHERE r.id = :id AND r.publishLeaseOwner = :owner")
+    int releasePublishLease(@Param("id") UUID id, @Param("owner") String owner);
 }
@@ -0,0 +1,17 @@
+package com.tcm.backend.repository;
+
+import com.tcm.backend.domain.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, String> {
+
+    @Query("SELECT r FROM TokenRevocation r WHERE r.validAfter > :since")
+    List<TokenRevocation> findRevokedSince(@Param("since") Instant since);
+}
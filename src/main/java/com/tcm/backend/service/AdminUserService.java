@@ -34,6 +34,8 @@ public class AdminUserService {
     private final UserSessionRepository userSessionRepository;
     private final PasswordService passwordService;
     private final SecurityAuditService securityAuditService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final PrincipalCache principalCache;
 
     @Transactional(readOnly = true)
     public Page<AdminUserDto> getAllUsers(Pageable pageable) {
@@ -145,10 +147,16 @@ public class AdminUserService {
         }
 
         // Update enabled status
+        boolean disabled = Boolean.FALSE.equals(request.isEnabled()) && user.getIsEnabled();
         if (request.isEnabled() != null) {
             user.setIsEnabled(request.isEnabled());
         }
 
+        // Tokens carry the email and are trusted without a lookup, so reject the current ones
+        if (disabled || emailChanged) {
+            tokenRevocationRegistry.revoke(user.getId());
+        }
+
         // Unlock account if requested
         if (Boolean.FALSE.equals(request.isLocked()) && user.getIsLocked()) {
             user.setIsLocked(false);
@@ -168,6 +176,7 @@ public class AdminUserService {
         user.setUpdatedBy(getCurrentUserId());
 
         user = adminUserRepository.save(user);
+        principalCache.invalidate(userId);
 
         // Log user update
         securityAuditService.logEvent(
@@ -198,9 +207,11 @@ public class AdminUserService {
 
         // Deactivate all sessions
         userSessionRepository.deactivateAllSessionsForUserId(userId);
+        tokenRevocationRegistry.revoke(user.getId());
 
         // Remove user (this will cascade to roles due to foreign key constraints)
         adminUserRepository.delete(user);
+        principalCache.invalidate(userId);
 
         // Log user deletion
         securityAuditService.logEvent(
@@ -225,8 +236,10 @@ public class AdminUserService {
 
         if (!user.hasRole(roleName)) {
             user.addRole(role);
+            tokenRevocationRegistry.revoke(user.getId());
             user.setUpdatedBy(getCurrentUserId());
             adminUserRepository.save(user);
+            principalCache.invalidate(userId);
 
             // Log role assignment
             securityAuditService.logEvent(
@@ -252,8 +265,10 @@ public class AdminUserService {
 
         if (user.hasRole(roleName)) {
             user.removeRole(role);
+            tokenRevocationRegistry.revoke(user.getId());
             user.setUpdatedBy(getCurrentUserId());
             adminUserRepository.save(user);
+            principalCache.invalidate(userId);
 
             // Log role removal
             securityAuditService.logEvent(
@@ -307,6 +322,7 @@ public class AdminUserService {
         user.setPasswordHash(passwordService.hashPassword(request.newPassword()));
         user.setPasswordExpiresAt(passwordService.calculatePasswordExpirationDate());
         user.setUpdatedBy(currentUserId);
+        tokenRevocationRegistry.revoke(user.getId());
 
         // If password was expired or user was locked, unlock them
         if (user.getIsLocked()) {
@@ -315,6 +331,7 @@ public class AdminUserService {
         }
 
         adminUserRepository.save(user);
+        principalCache.invalidate(userId);
 
         // Invalidate all existing sessions for this user (force re-login with new password)
         if (isChangingOwnPassword) {
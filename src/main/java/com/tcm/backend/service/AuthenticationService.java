@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -35,6 +36,8 @@ public class AuthenticationService {
     private final JwtTokenService jwtTokenService;
     private final SecurityAuditService securityAuditService;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final PrincipalCache principalCache;
 
     @Value("${app.security.lockout.duration-minutes:30}")
     private int lockoutDurationMinutes;
@@ -46,7 +49,11 @@ public class AuthenticationService {
             UserSession session
     ) {}
 
-    @Transactional
+    /**
+     * Rejected logins still commit: the failed attempt count, a lockout with its token revocation and the audit
+     * entries must survive the {@link AuthenticationException} that reports them.
+     */
+    @Transactional(noRollbackFor = AuthenticationException.class)
     public LoginResult authenticate(AuthenticationRequest request, String ipAddress, String userAgent) {
         try {
             // Find user by email
@@ -108,6 +115,10 @@ public class AuthenticationService {
             if (!passwordEncoder.matches(request.password(), user.getPasswordHash())) {
                 // Increment failed login attempts
                 user.incrementFailedLoginAttempts(lockoutDurationMinutes);
+                if (user.getIsLocked()) {
+                    tokenRevocationRegistry.revoke(user.getId());
+                    principalCache.invalidate(user.getId());
+                }
                 adminUserRepository.save(user);
 
                 securityAuditService.logEvent(
@@ -167,6 +178,8 @@ public class AuthenticationService {
         } catch (AuthenticationException e) {
             throw e;
         } catch (Exception e) {
+            // Not a rejected login, so nothing done so far may commit
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             log.error("Unexpected error during authentication", e);
             securityAuditService.logEvent(
                     SecurityAuditLog.EventType.LOGIN_FAILURE,
@@ -184,11 +197,11 @@ public class AuthenticationService {
     public AuthenticationResponse refreshToken(RefreshTokenRequest request, String ipAddress, String userAgent) {
         try {
             // Validate refresh token
-            if (!jwtTokenService.canRefresh(request.refreshToken())) {
-                throw new BadCredentialsException("Invalid refresh token");
-            }
+            JwtTokenService.ParsedToken token = jwtTokenService.parse(request.refreshToken())
+                    .filter(JwtTokenService.ParsedToken::isRefreshToken)
+                    .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
 
-            String userId = jwtTokenService.getUserIdFromToken(request.refreshToken());
+            String userId = token.userId();
             if (userId == null) {
                 throw new BadCredentialsException("Invalid refresh token");
             }
@@ -264,8 +277,10 @@ public class AuthenticationService {
     @Transactional
     public void logout(String refreshToken, String ipAddress, String userAgent) {
         try {
-            if (refreshToken != null && jwtTokenService.isTokenValid(refreshToken)) {
-                String userId = jwtTokenService.getUserIdFromToken(refreshToken);
+            Optional<JwtTokenService.ParsedToken> token =
+                    refreshToken != null ? jwtTokenService.parse(refreshToken) : Optional.empty();
+            if (token.isPresent()) {
+                String userId = token.get().userId();
                 if (userId != null) {
                     AdminUser user = adminUserRepository.findById(userId).orElse(null);
 
@@ -298,8 +313,10 @@ public class AuthenticationService {
         try {
             AdminUser user = adminUserRepository.findById(userId).orElse(null);
             if (user != null) {
-                // Deactivate all sessions for user
+                // Deactivate all sessions for user and reject their access tokens
                 userSessionRepository.deactivateAllSessionsForUserId(userId);
+                tokenRevocationRegistry.revoke(user.getId());
+                adminUserRepository.save(user);
 
                 // Log logout all
                 securityAuditService.logEvent(
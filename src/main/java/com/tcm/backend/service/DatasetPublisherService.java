@@ -1,8 +1,12 @@
 package com.tcm.backend.service;
 
+import com.tcm.backend.publisher.PublishProgress;
+
 import java.util.UUID;
 
 public interface DatasetPublisherService {
 
     void publishRelease(UUID releaseId);
+
+    void publishRelease(UUID releaseId, PublishProgress progress);
 }
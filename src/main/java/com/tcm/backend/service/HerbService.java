@@ -28,6 +28,8 @@ public interface HerbService {
     HerbFormulaDto addFormulaToHerb(Integer herbId, HerbFormulaDto formulaDto);
     
     HerbImageDto addImageToHerb(Integer herbId, HerbImageDto imageDto);
+
+    HerbImageContentDto getImageContent(Integer herbId, Integer imageId);
     
     HerbIndicationDto addIndicationToHerb(Integer herbId, HerbIndicationDto indicationDto);
     
@@ -0,0 +1,80 @@
+package com.tcm.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Image payload cache keyed by content hash and bounded by total bytes. Entries are held in direct buffers so
+ * resident images stay out of the Java heap; Caffeine's W-TinyLFU policy decides what is admitted and evicted.
+ */
+@Slf4j
+@Service
+public class ImagePayloadCache {
+
+    private static final String CACHE_NAME = "herb.image.payload";
+
+    private final Cache<String, ByteBuffer> cache;
+    private final int maxEntryBytes;
+
+    public ImagePayloadCache(@Value("${app.cache.image-payload.max-bytes:67108864}") long maxBytes,
+                             @Value("${app.cache.image-payload.max-entry-bytes:4194304}") int maxEntryBytes,
+                             MeterRegistry meterRegistry) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, ByteBuffer value) -> value.capacity())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.bytes.resident", this, ImagePayloadCache::residentBytes)
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Image payload cache limited to {} bytes ({} bytes per entry)", maxBytes, maxEntryBytes);
+    }
+
+    /**
+     * Returns a read-only view of the payload for the given content hash, invoking the loader on a miss. Concurrent
+     * misses for the same hash share one load. Payloads larger than the per-entry limit are served but never cached.
+     */
+    public ByteBuffer get(String contentHash, Supplier<byte[]> loader) {
+        if (contentHash == null) {
+            return ByteBuffer.wrap(loader.get()).asReadOnlyBuffer();
+        }
+        AtomicReference<byte[]> uncached = new AtomicReference<>();
+        ByteBuffer cached = cache.get(contentHash, key -> {
+            byte[] data = loader.get();
+            if (data.length > maxEntryBytes) {
+                // Returning null leaves the hash unmapped
+                uncached.set(data);
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+            buffer.put(data).flip();
+            return buffer.asReadOnlyBuffer();
+        });
+        // Each caller gets its own position and limit over the shared bytes
+        return cached != null ? cached.duplicate() : ByteBuffer.wrap(uncached.get()).asReadOnlyBuffer();
+    }
+
+    public double hitRatio() {
+        return cache.stats().hitRate();
+    }
+
+    public long residentBytes() {
+        cache.cleanUp();
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+}
@@ -11,9 +11,11 @@ import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -21,7 +23,63 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JwtTokenService {
 
+    /**
+     * Claims of a token whose signature and expiry have been verified. Parse a token once with
+     * {@link #parse(String)} and read everything from this instead of the per-claim {@code String} methods, each of
+     * which verifies the signature again.
+     */
+    public record ParsedToken(Claims claims) {
+
+        public String userId() {
+            return claims.getSubject();
+        }
+
+        public String email() {
+            return claims.get("email", String.class);
+        }
+
+        public String name() {
+            return claims.get("name", String.class);
+        }
+
+        public String type() {
+            return claims.get("type", String.class);
+        }
+
+        public boolean isAccessToken() {
+            return "access".equals(type());
+        }
+
+        public boolean isRefreshToken() {
+            return "refresh".equals(type());
+        }
+
+        public Set<String> roles() {
+            return stringSet("roles");
+        }
+
+        public Set<String> permissions() {
+            return stringSet("permissions");
+        }
+
+        public Instant expiresAt() {
+            return claims.getExpiration().toInstant();
+        }
+
+        public Instant issuedAt() {
+            return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Set<String> stringSet(String claim) {
+            Object value = claims.get(claim);
+            return value instanceof Collection<?> values ? Set.copyOf((Collection<String>) values) : Set.of();
+        }
+    }
+
     private final SecretKey secretKey;
+    /** Immutable and thread-safe, so one instance verifies every token. */
+    private final JwtParser jwtParser;
     private final long accessTokenExpirationMinutes;
     private final long refreshTokenExpirationDays;
     private final String issuer;
@@ -33,6 +91,9 @@ public class JwtTokenService {
             @Value("${app.jwt.issuer:tcm-app-backend}") String issuer) {
 
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.jwtParser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
         this.accessTokenExpirationMinutes = accessTokenExpirationMinutes;
         this.refreshTokenExpirationDays = refreshTokenExpirationDays;
         this.issuer = issuer;
@@ -83,13 +144,20 @@ public class JwtTokenService {
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry once.
+     *
+     * @return empty when the token is malformed, tampered with or expired
+     */
+    public Optional<ParsedToken> parse(String token) {
+        return Optional.ofNullable(validateToken(token))
+                .filter(claims -> claims.getExpiration() != null && !isTokenExpired(claims))
+                .map(ParsedToken::new);
+    }
+
     public Claims validateToken(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return jwtParser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
             log.warn("Invalid JWT token: {}", e.getMessage());
             return null;
@@ -97,8 +165,7 @@ public class JwtTokenService {
     }
 
     public boolean isTokenValid(String token) {
-        Claims claims = validateToken(token);
-        return claims != null && !isTokenExpired(claims);
+        return parse(token).isPresent();
     }
 
     public boolean isTokenExpired(Claims claims) {
@@ -106,53 +173,39 @@ public class JwtTokenService {
     }
 
     public String getUserIdFromToken(String token) {
-        Claims claims = validateToken(token);
-        return claims != null ? claims.getSubject() : null;
+        return parse(token).map(ParsedToken::userId).orElse(null);
     }
 
     public String getEmailFromToken(String token) {
-        Claims claims = validateToken(token);
-        return claims != null ? (String) claims.get("email") : null;
+        return parse(token).map(ParsedToken::email).orElse(null);
     }
 
     public String getTokenType(String token) {
-        Claims claims = validateToken(token);
-        return claims != null ? (String) claims.get("type") : null;
+        return parse(token).map(ParsedToken::type).orElse(null);
     }
 
-    @SuppressWarnings("unchecked")
     public Set<String> getRolesFromToken(String token) {
-        Claims claims = validateToken(token);
-        if (claims != null && claims.get("roles") != null) {
-            return Set.copyOf((java.util.List<String>) claims.get("roles"));
-        }
-        return Set.of();
+        return parse(token).map(ParsedToken::roles).orElse(Set.of());
     }
 
-    @SuppressWarnings("unchecked")
     public Set<String> getPermissionsFromToken(String token) {
-        Claims claims = validateToken(token);
-        if (claims != null && claims.get("permissions") != null) {
-            return Set.copyOf((java.util.List<String>) claims.get("permissions"));
-        }
-        return Set.of();
+        return parse(token).map(ParsedToken::permissions).orElse(Set.of());
     }
 
     public boolean isAccessToken(String token) {
-        return "access".equals(getTokenType(token));
+        return parse(token).filter(ParsedToken::isAccessToken).isPresent();
     }
 
     public boolean isRefreshToken(String token) {
-        return "refresh".equals(getTokenType(token));
+        return parse(token).filter(ParsedToken::isRefreshToken).isPresent();
     }
 
     public Instant getExpirationTime(String token) {
-        Claims claims = validateToken(token);
-        return claims != null ? claims.getExpiration().toInstant() : null;
+        return parse(token).map(ParsedToken::expiresAt).orElse(null);
     }
 
     public boolean canRefresh(String refreshToken) {
-        return isTokenValid(refreshToken) && isRefreshToken(refreshToken);
+        return isRefreshToken(refreshToken);
     }
 
     public long getAccessTokenExpirationMinutes() {
@@ -0,0 +1,127 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.domain.Permission;
+import com.tcm.backend.domain.Role;
+import com.tcm.backend.repository.PermissionRepository;
+import com.tcm.backend.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Dense integer ids for authority names, permissions and roles alike, so a principal's authorities fit in a
+ * {@link PermissionSet}. Names in the database are numbered at startup; a name first seen later, such as a
+ * permission created at runtime, gets the next id. Ids are never reused. Names registered as permissions are
+ * tracked apart, so {@code hasPermission} never matches a role name that shares the id space.
+ *
+ * <p>Checks look names up as written in the expression (lower case, or a role without its prefix); each such
+ * spelling is normalised once and cached, so a repeated check neither allocates nor hashes a new string.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PermissionRegistry {
+
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    private final PermissionRepository permissionRepository;
+    private final RoleRepository roleRepository;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Set<String> permissionNames = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final Map<String, Integer> permissionLookups = new ConcurrentHashMap<>();
+    private final Map<String, Integer> roleLookups = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Integer>> resourcePermissionLookups = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<String> permissions = permissionRepository.findAll().stream().map(Permission::getName).toList();
+        permissionNames.addAll(permissions);
+        Stream.concat(permissions.stream(), roleRepository.findAll().stream().map(Role::getName))
+                .sorted()
+                .forEach(this::register);
+        log.info("Numbered {} authorities", ids.size());
+    }
+
+    public int register(String authority) {
+        return ids.computeIfAbsent(authority, name -> nextId.getAndIncrement());
+    }
+
+    /**
+     * Registers a name that {@code hasPermission} may check, as opposed to a role name.
+     */
+    public int registerPermission(String permission) {
+        permissionNames.add(permission);
+        return register(permission);
+    }
+
+    public PermissionSet permissionSet(Collection<String> roles, Collection<String> permissions) {
+        return PermissionSet.of(IntStream.concat(roles.stream().mapToInt(this::register),
+                permissions.stream().mapToInt(this::registerPermission)).toArray());
+    }
+
+    /**
+     * @return the id of the exact authority name, or -1 when no principal holds it
+     */
+    public int authorityId(String authority) {
+        return ids.getOrDefault(authority, -1);
+    }
+
+    /**
+     * Permission names are matched ignoring case, as {@code hasPermission} expressions always have.
+     */
+    public int permissionId(String permission) {
+        Integer id = permissionLookups.get(permission);
+        return id != null ? id
+                : resolvePermission(permissionLookups, permission, permission.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the id of {@code RESOURCE_PERMISSION}, as {@code hasPermission(id, 'herb', 'update')} names it
+     */
+    public int permissionId(String resourceType, String permission) {
+        Map<String, Integer> lookups = resourcePermissionLookups.get(resourceType);
+        if (lookups == null) {
+            lookups = resourcePermissionLookups.computeIfAbsent(resourceType, type -> new ConcurrentHashMap<>());
+        }
+        Integer id = lookups.get(permission);
+        return id != null ? id
+                : resolvePermission(lookups, permission, (resourceType + "_" + permission).toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Roles are matched as {@code hasRole} does: case-sensitive, with the prefix added when missing.
+     */
+    public int roleId(String role) {
+        Integer id = roleLookups.get(role);
+        return id != null ? id : resolve(roleLookups, role, role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role);
+    }
+
+    private int resolvePermission(Map<String, Integer> lookups, String spelling, String permission) {
+        return permissionNames.contains(permission) ? resolve(lookups, spelling, permission) : -1;
+    }
+
+    private int resolve(Map<String, Integer> lookups, String spelling, String authority) {
+        Integer known = ids.get(authority);
+        if (known == null) {
+            // Not cached: the authority may be registered later
+            return -1;
+        }
+        lookups.put(spelling, known);
+        return known;
+    }
+}
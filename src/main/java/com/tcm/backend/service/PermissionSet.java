@@ -0,0 +1,71 @@
+package com.tcm.backend.service;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable set of authority ids assigned by {@link PermissionRegistry}; a membership check is one bit test.
+ */
+public final class PermissionSet implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final PermissionSet EMPTY = new PermissionSet(new long[0]);
+
+    private final long[] words;
+
+    private PermissionSet(long[] words) {
+        this.words = words;
+    }
+
+    public static PermissionSet of(int... ids) {
+        int max = Arrays.stream(ids).max().orElse(-1);
+        if (max < 0) {
+            return EMPTY;
+        }
+        long[] words = new long[(max >>> 6) + 1];
+        for (int id : ids) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Authority ids are not negative: " + id);
+            }
+            words[id >>> 6] |= 1L << id;
+        }
+        return new PermissionSet(words);
+    }
+
+    /**
+     * @param id an authority id, or -1 for a name no principal holds
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PermissionSet set && Arrays.equals(words, set.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionSet" + Arrays.toString(words);
+    }
+}
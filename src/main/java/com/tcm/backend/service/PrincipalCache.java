@@ -0,0 +1,89 @@
+package com.tcm.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tcm.backend.repository.AdminUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Principal snapshots of enabled users keyed by user id, for database-backed authentication. A user change
+ * invalidates the entry on this node; a revocation seen by {@link TokenRevocationRegistry} on another node makes
+ * older entries stale, and the TTL bounds anything else.
+ */
+@Slf4j
+@Service
+public class PrincipalCache {
+
+    private static final String CACHE_NAME = "auth.principal";
+
+    private final AdminUserRepository adminUserRepository;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final PermissionRegistry permissionRegistry;
+    private final Cache<String, Optional<PrincipalSnapshot>> cache;
+
+    public PrincipalCache(AdminUserRepository adminUserRepository,
+                          TokenRevocationRegistry tokenRevocationRegistry,
+                          PermissionRegistry permissionRegistry,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${app.security.principal-cache.ttl:PT1M}") Duration ttl) {
+        this.adminUserRepository = adminUserRepository;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
+        this.permissionRegistry = permissionRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @return empty when the user does not exist or is disabled
+     */
+    public Optional<PrincipalSnapshot> get(String userId) {
+        Optional<PrincipalSnapshot> cached = cache.get(userId, this::load);
+        Optional<Instant> validAfter = tokenRevocationRegistry.validAfter(userId);
+        if (cached.isPresent() && validAfter.isPresent() && cached.get().loadedAt().isBefore(validAfter.get())) {
+            cache.invalidate(userId);
+            cached = cache.get(userId, this::load);
+        }
+        return cached;
+    }
+
+    /**
+     * Drops the user's snapshot now and again after the surrounding transaction commits, so a request that loads
+     * the user before the change is visible cannot put the old state back.
+     */
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    public double hitRatio() {
+        return cache.stats().hitRate();
+    }
+
+    private Optional<PrincipalSnapshot> load(String userId) {
+        Instant loadedAt = Instant.now();
+        return adminUserRepository.findByIdAndIsEnabledTrue(userId)
+                .map(user -> PrincipalSnapshot.of(user, loadedAt, permissionRegistry));
+    }
+}
@@ -0,0 +1,111 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.domain.AdminUser;
+import com.tcm.backend.domain.Permission;
+import com.tcm.backend.domain.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of an enabled user as authentication needs it, with the authorities built once, both as granted
+ * authorities and as a {@link PermissionSet} for checks. The principal handed to Spring Security is a detached
+ * {@link AdminUser} built with the snapshot and shared by every request it authenticates; its roles and
+ * permissions are unmodifiable.
+ */
+public record PrincipalSnapshot(String id,
+                                String email,
+                                String firstName,
+                                String lastName,
+                                boolean locked,
+                                Instant lockedUntil,
+                                Instant passwordExpiresAt,
+                                Map<String, Set<String>> permissionsByRole,
+                                Set<GrantedAuthority> authorities,
+                                PermissionSet permissionSet,
+                                Instant loadedAt,
+                                AdminUser principal) {
+
+    public static PrincipalSnapshot of(AdminUser user, Instant loadedAt, PermissionRegistry permissionRegistry) {
+        Map<String, Set<String>> permissionsByRole = new HashMap<>();
+        for (Role role : user.getRoles()) {
+            permissionsByRole.put(role.getName(), role.getPermissions().stream()
+                    .map(Permission::getName)
+                    .collect(Collectors.toUnmodifiableSet()));
+        }
+        Set<GrantedAuthority> authorities = Set.copyOf(user.getAuthorities());
+        PermissionSet permissionSet = permissionRegistry.permissionSet(permissionsByRole.keySet(),
+                permissionsByRole.values().stream().flatMap(Set::stream).toList());
+        return new PrincipalSnapshot(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                Boolean.TRUE.equals(user.getIsLocked()), user.getLockedUntil(), user.getPasswordExpiresAt(),
+                Map.copyOf(permissionsByRole), authorities, permissionSet, loadedAt,
+                principal(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(), permissionsByRole));
+    }
+
+    /**
+     * What a verified access token states. The token does not say which role grants which permission, so every
+     * role carries all of them, which keeps role and permission checks unchanged.
+     */
+    public static PrincipalSnapshot fromClaims(JwtTokenService.ParsedToken token,
+                                               PermissionRegistry permissionRegistry) {
+        Set<String> permissions = token.permissions();
+        Map<String, Set<String>> permissionsByRole = token.roles().stream()
+                .collect(Collectors.toUnmodifiableMap(role -> role, role -> permissions));
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        token.roles().forEach(role -> authorities.add(new SimpleGrantedAuthority(role)));
+        permissions.forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission)));
+        PermissionSet permissionSet = permissionRegistry.permissionSet(token.roles(), permissions);
+        // The token carries the full name only
+        return new PrincipalSnapshot(token.userId(), token.email(), token.name(), null, false, null, null,
+                permissionsByRole, Set.copyOf(authorities), permissionSet,
+                token.issuedAt(), principal(token.userId(), token.email(), token.name(), null, permissionsByRole));
+    }
+
+    /**
+     * Same rule as {@link AdminUser#isAccountNonLocked()}: a lock ends by itself once its period is over.
+     */
+    public boolean accountNonLocked(Instant now) {
+        return !locked || (lockedUntil != null && now.isAfter(lockedUntil));
+    }
+
+    public boolean credentialsNonExpired(Instant now) {
+        return passwordExpiresAt == null || !now.isAfter(passwordExpiresAt);
+    }
+
+    /**
+     * The detached user for the security context; it is never saved.
+     */
+    private static AdminUser principal(String id, String email, String firstName, String lastName,
+                                       Map<String, Set<String>> permissionsByRole) {
+        AdminUser user = new AdminUser();
+        user.setId(id);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setRoles(toRoles(permissionsByRole));
+        return user;
+    }
+
+    private static Set<Role> toRoles(Map<String, Set<String>> permissionsByRole) {
+        Set<Role> roles = new HashSet<>();
+        permissionsByRole.forEach((name, permissionNames) -> {
+            Set<Permission> permissions = new HashSet<>();
+            for (String permissionName : permissionNames) {
+                Permission permission = new Permission();
+                permission.setName(permissionName);
+                permissions.add(permission);
+            }
+            Role role = new Role();
+            role.setName(name);
+            role.setPermissions(Set.copyOf(permissions));
+            roles.add(role);
+        });
+        return Set.copyOf(roles);
+    }
+}
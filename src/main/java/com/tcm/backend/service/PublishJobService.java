@@ -0,0 +1,35 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.dto.PublishJobDto;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PublishJobService {
+
+    /**
+     * Claims an approved release for this node, persists a publish job and hands it to the background worker.
+     */
+    PublishJobDto enqueue(UUID releaseId);
+
+    /**
+     * Like {@link #enqueue(UUID)}, but returns empty instead of failing when the release was published or
+     * claimed by another node in the meantime.
+     */
+    Optional<PublishJobDto> enqueueIfUnclaimed(UUID releaseId);
+
+    /**
+     * Returns a failed release to approved and queues it again. The publish resumes from the release's last
+     * checkpoint when its content has not changed.
+     */
+    PublishJobDto retry(UUID releaseId);
+
+    PublishJobDto getJob(UUID jobId);
+
+    /**
+     * Cancels a queued job immediately, or asks a running job to stop at its next cancellation point.
+     */
+    PublishJobDto cancel(UUID jobId);
+
+    boolean hasActiveJob(UUID releaseId);
+}
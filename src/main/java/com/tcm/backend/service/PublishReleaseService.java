@@ -1,6 +1,7 @@
 package com.tcm.backend.service;
 
 import com.tcm.backend.dto.PublishReleaseDto;
+import com.tcm.backend.publisher.DatasetEncoding;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -8,13 +9,23 @@ import java.util.UUID;
 
 public interface PublishReleaseService {
 
-    PublishReleaseDto createDraft(String versionName);
+    /**
+     * @param encoding archive encoding for this release, or null for the configured default
+     */
+    PublishReleaseDto createDraft(String versionName, DatasetEncoding encoding);
 
     PublishReleaseDto markReadyForReview(UUID releaseId);
 
     PublishReleaseDto approveRelease(UUID releaseId, UUID approverId);
 
+    /**
+     * Pinned releases are kept by retention regardless of age.
+     */
+    PublishReleaseDto setPinned(UUID releaseId, boolean pinned);
+
     Page<PublishReleaseDto> listReleases(Pageable pageable);
 
     PublishReleaseDto getLatestApproved();
+
+    PublishReleaseDto getPublished(String versionName);
 }
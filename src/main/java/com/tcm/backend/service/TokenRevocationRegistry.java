@@ -0,0 +1,106 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.domain.TokenRevocation;
+import com.tcm.backend.repository.TokenRevocationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory cut-off per user for access tokens, so authentication from token claims alone still honours forced
+ * logouts. Revocations made on this node apply once they commit; those made on other nodes are read from
+ * {@code token_revocations} on the next poll. That table outlives the user rows, so deleting a user logs them out
+ * everywhere. An entry is dropped once every token it rejects has
+ * expired, so the map only holds users revoked within one access token lifetime.
+ */
+@Service
+@Slf4j
+public class TokenRevocationRegistry {
+
+    /** Polls overlap so a revocation committed while the previous poll ran is not missed. */
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final Duration tokenLifetime;
+    private final Map<String, Instant> validAfter = new ConcurrentHashMap<>();
+    private volatile Instant polledAt;
+
+    public TokenRevocationRegistry(
+            TokenRevocationRepository tokenRevocationRepository,
+            @Value("${app.jwt.access-token-expiration-minutes:15}") long accessTokenExpirationMinutes) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.tokenLifetime = Duration.ofMinutes(accessTokenExpirationMinutes);
+    }
+
+    /**
+     * Rejects the user's current access tokens once the surrounding transaction commits, or at once outside a
+     * transaction, so a change that rolls back logs nobody out. The cut-off is written in the caller's transaction
+     * for other nodes to see; a refresh then issues a token with the user's current roles.
+     */
+    public void revoke(String userId) {
+        Instant cutOff = Instant.now();
+        tokenRevocationRepository.save(new TokenRevocation(userId, cutOff));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(userId, cutOff);
+                }
+            });
+        } else {
+            record(userId, cutOff);
+        }
+    }
+
+    /**
+     * Token timestamps have whole seconds, so a token issued in the same second as a revocation is rejected too.
+     */
+    public boolean isRevoked(String userId, Instant issuedAt) {
+        Instant cutOff = validAfter.get(userId);
+        if (cutOff == null) {
+            return false;
+        }
+        return issuedAt == null || !issuedAt.isAfter(cutOff.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * @return the user's latest revocation still within one access token lifetime
+     */
+    public Optional<Instant> validAfter(String userId) {
+        return Optional.ofNullable(validAfter.get(userId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.security.revocation.poll-interval:PT5S}",
+            initialDelayString = "${app.security.revocation.poll-interval:PT5S}")
+    public void refresh() {
+        Instant now = Instant.now();
+        Instant horizon = now.minus(tokenLifetime);
+        Instant since = polledAt != null ? polledAt.minus(POLL_OVERLAP) : horizon;
+        for (TokenRevocation revocation : tokenRevocationRepository.findRevokedSince(since)) {
+            record(revocation.getUserId(), revocation.getValidAfter());
+        }
+        polledAt = now;
+        validAfter.values().removeIf(cutOff -> cutOff.isBefore(horizon));
+    }
+
+    private void record(String userId, Instant cutOff) {
+        Instant previous = validAfter.get(userId);
+        validAfter.merge(userId, cutOff, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+        if (previous == null || cutOff.isAfter(previous)) {
+            log.debug("Access tokens of user {} issued before {} are revoked", userId, cutOff);
+        }
+    }
+}
@@ -2,19 +2,24 @@ package com.tcm.backend.service.impl;
 
 import com.tcm.backend.domain.PublishRelease;
 import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
-import com.tcm.backend.publisher.DatasetExportService;
-import com.tcm.backend.publisher.DatasetManifestFactory;
-import com.tcm.backend.publisher.DatasetStorageClient;
+import com.tcm.backend.publisher.DatasetEncoding;
+import com.tcm.backend.publisher.DatasetVariant;
+import com.tcm.backend.publisher.PublishContext;
+import com.tcm.backend.publisher.PublishPipeline;
+import com.tcm.backend.publisher.PublishProgress;
 import com.tcm.backend.repository.PublishReleaseRepository;
 import com.tcm.backend.service.DatasetPublisherService;
-import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.InputStream;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 
 @Slf4j
 @Service
@@ -24,47 +29,67 @@ public class DatasetPublisherServiceImpl implements DatasetPublisherService {
     private PublishReleaseRepository publishReleaseRepository;
 
     @Autowired
-    private DatasetExportService datasetExportService;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
-    private DatasetStorageClient datasetStorageClient;
+    private PublishPipeline publishPipeline;
 
-    @Autowired
-    private DatasetManifestFactory datasetManifestFactory;
+    @Value("${publisher.export.encoding:JSON}")
+    private DatasetEncoding encoding;
 
-    @Value("${publisher.min-app-version:1.0.0}")
-    private String minAppVersion;
+    @Value("${publisher.export.variants:FULL,ZH,EN,TEXT_ONLY}")
+    private List<DatasetVariant> variants;
 
     @Override
-    @Transactional
     public void publishRelease(UUID releaseId) {
-        PublishRelease release = publishReleaseRepository.findById(releaseId)
-                .orElseThrow(() -> new IllegalArgumentException("Release not found"));
-        if (release.getStatus() != ReleaseStatus.APPROVED) {
-            throw new IllegalStateException("Release must be approved before publishing");
-        }
+        publishRelease(releaseId, PublishProgress.NONE);
+    }
+
+    /**
+     * Runs the {@link PublishPipeline}; the release itself is only touched by short transactions before and
+     * after. A failure marks the release FAILED, keeping any checkpoint the pipeline saved for a retry.
+     */
+    @Override
+    public void publishRelease(UUID releaseId, PublishProgress progress) {
+        PublishRelease release = transactionTemplate.execute(status -> {
+            PublishRelease current = publishReleaseRepository.findById(releaseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Release not found"));
+            if (current.getStatus() != ReleaseStatus.APPROVED) {
+                throw new IllegalStateException("Release must be approved before publishing");
+            }
+            return current;
+        });
 
-        DatasetExportService.ExportResult exportResult = datasetExportService.exportDataset();
-        String objectKey = release.getVersionName() + ".zip";
-        try (InputStream datasetStream = exportResult.datasetStream()) {
-            DatasetStorageClient.StorageResult storageResult =
-                    datasetStorageClient.storeDataset(objectKey, datasetStream, exportResult.sizeBytes());
-            String manifestJson = datasetManifestFactory.createManifest(
-                    release,
-                    exportResult.sizeBytes(),
-                    storageResult.checksum(),
-                    storageResult.url(),
-                    minAppVersion
-            );
-            release.setManifestJson(manifestJson);
-            release.setChecksum(storageResult.checksum());
-            release.setStorageUrl(storageResult.url());
-            publishReleaseRepository.save(release);
-            log.info("Published release {} with checksum {}", release.getVersionName(), storageResult.checksum());
+        PublishRelease previous = publishReleaseRepository
+                .findFirstByStatusAndStorageUrlIsNotNullAndIdNotOrderByCreatedAtDesc(ReleaseStatus.APPROVED, releaseId)
+                .orElse(null);
+
+        try (PublishContext context =
+                     new PublishContext(release, previous, encodingOf(release), publishedVariants())) {
+            publishPipeline.run(context, progress);
+        } catch (CancellationException e) {
+            log.info("Publishing release {} was cancelled", release.getVersionName());
+            throw e;
         } catch (Exception e) {
-            release.setStatus(ReleaseStatus.FAILED);
-            publishReleaseRepository.save(release);
+            transactionTemplate.executeWithoutResult(status -> publishReleaseRepository.findById(releaseId)
+                    .ifPresent(current -> {
+                        current.setStatus(ReleaseStatus.FAILED);
+                        publishReleaseRepository.save(current);
+                    }));
             throw new IllegalStateException("Failed to publish release", e);
         }
     }
+
+    /**
+     * The full archive is always published; deltas and existing clients depend on it.
+     */
+    private Set<DatasetVariant> publishedVariants() {
+        Set<DatasetVariant> published = EnumSet.of(DatasetVariant.FULL);
+        published.addAll(variants);
+        return published;
+    }
+
+    private DatasetEncoding encodingOf(PublishRelease release) {
+        return release.getEncoding() != null ? release.getEncoding() : encoding;
+    }
 }
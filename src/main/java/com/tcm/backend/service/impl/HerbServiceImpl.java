@@ -5,6 +5,7 @@ import com.tcm.backend.dto.*;
 import com.tcm.backend.mapper.HerbMapper;
 import com.tcm.backend.repository.*;
 import com.tcm.backend.service.HerbService;
+import com.tcm.backend.service.ImagePayloadCache;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +14,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class HerbServiceImpl implements HerbService {
@@ -32,6 +35,9 @@ public class HerbServiceImpl implements HerbService {
     @Autowired
     private HerbImageRepository herbImageRepository;
 
+    @Autowired
+    private HerbImagePayloadRepository herbImagePayloadRepository;
+
     @Autowired
     private HerbIndicationRepository herbIndicationRepository;
 
@@ -41,6 +47,9 @@ public class HerbServiceImpl implements HerbService {
     @Autowired
     private HerbMapper herbMapper;
 
+    @Autowired
+    private ImagePayloadCache imagePayloadCache;
+
     @Override
     @Transactional
     public Page<HerbDto> listHerbs(Pageable pageable) {
@@ -64,8 +73,9 @@ public class HerbServiceImpl implements HerbService {
     public HerbDto updateHerb(Integer herbId, HerbDto herbDto) {
         Herb herb = herbRepository.findById(herbId)
                 .orElseThrow(() -> new IllegalArgumentException("Herb not found"));
-        herbMapper.updateEntityFromDto(herbDto, herb);
-        Herb saved = herbRepository.save(herb);
+        Map<String, byte[]> imageData = herbMapper.updateEntityFromDto(herbDto, herb);
+        Herb saved = herbRepository.saveAndFlush(herb);
+        saveImagePayloads(saved, imageData);
         return herbMapper.toDto(saved);
     }
 
@@ -158,14 +168,22 @@ public class HerbServiceImpl implements HerbService {
             throw new IllegalArgumentException("Image with this filename already exists for this herb");
         }
         
-        HerbImage image = new HerbImage();
-        image.setHerb(herb);
-        image.setFilename(imageDto.filename());
-        image.setMime(imageDto.mime());
-        image.setData(imageDto.data());
-        
+        HerbImage image = herbMapper.toImageEntity(imageDto, herb);
         HerbImage saved = herbImageRepository.save(image);
-        return new HerbImageDto(saved.getId(), saved.getFilename(), saved.getMime(), saved.getData());
+        herbImagePayloadRepository.save(herbMapper.toImagePayload(saved, imageDto.data()));
+        return herbMapper.toImageDto(saved);
+    }
+
+    @Override
+    @Transactional
+    public HerbImageContentDto getImageContent(Integer herbId, Integer imageId) {
+        HerbImage image = herbImageRepository.findById(imageId)
+                .filter(candidate -> candidate.getHerb().getId().equals(herbId))
+                .orElseThrow(() -> new IllegalArgumentException("Image not found"));
+        ByteBuffer data = imagePayloadCache.get(image.getContentHash(), () -> herbImagePayloadRepository.findById(imageId)
+                .orElseThrow(() -> new IllegalArgumentException("Image not found"))
+                .getData());
+        return new HerbImageContentDto(image.getFilename(), image.getMime(), image.getContentHash(), data);
     }
 
     @Override
@@ -270,4 +288,20 @@ public class HerbServiceImpl implements HerbService {
         
         herbMeridianRepository.delete(meridian);
     }
+
+    private void saveImagePayloads(Herb herb, Map<String, byte[]> imageData) {
+        if (imageData.isEmpty()) {
+            return;
+        }
+        for (HerbImage image : herb.getImages()) {
+            byte[] data = imageData.get(image.getFilename());
+            if (data == null) {
+                continue;
+            }
+            // Replaced images keep their payload row; only brand-new images need an insert
+            if (herbImagePayloadRepository.updateData(image.getId(), data) == 0) {
+                herbImagePayloadRepository.save(herbMapper.toImagePayload(image, data));
+            }
+        }
+    }
 }
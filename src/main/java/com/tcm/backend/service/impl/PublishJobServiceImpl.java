@@ -0,0 +1,395 @@
+package com.tcm.backend.service.impl;
+
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishJob.JobStatus;
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
+import com.tcm.backend.dto.PublishJobDto;
+import com.tcm.backend.mapper.PublishJobMapper;
+import com.tcm.backend.publisher.PublishProgress;
+import com.tcm.backend.repository.PublishJobRepository;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import com.tcm.backend.service.DatasetPublisherService;
+import com.tcm.backend.service.PublishJobService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs publish jobs on a fixed pool of worker threads. Jobs live in the database, so queued work survives a
+ * restart; live progress is kept in memory and written back on stage changes and every flush interval.
+ * <p>
+ * Several nodes may share one database. A node only queues a release after taking its publish lease with a
+ * conditional update, renews the lease with every progress flush and gives it up when the job finishes. If a node
+ * dies, its lease expires and the next node to claim the release fails the orphaned jobs.
+ */
+@Slf4j
+@Service
+public class PublishJobServiceImpl implements PublishJobService {
+
+    private static final Set<JobStatus> ACTIVE_STATUSES = EnumSet.of(JobStatus.QUEUED, JobStatus.RUNNING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private PublishJobRepository publishJobRepository;
+
+    @Autowired
+    private PublishReleaseRepository publishReleaseRepository;
+
+    @Autowired
+    private DatasetPublisherService datasetPublisherService;
+
+    @Autowired
+    private PublishJobMapper publishJobMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${publisher.jobs.workers:1}")
+    private int workers;
+
+    @Value("${publisher.jobs.progress-flush-interval:PT2S}")
+    private Duration progressFlushInterval;
+
+    @Value("${publisher.jobs.lease-duration:PT15M}")
+    private Duration leaseDuration;
+
+    @Value("${publisher.jobs.node-id:}")
+    private String nodeId;
+
+    private final Map<UUID, JobProgress> runningJobs = new ConcurrentHashMap<>();
+    private ExecutorService workerPool;
+
+    /**
+     * Progress flushes are reported from inside the exporter's read-only snapshot transaction; they suspend it so
+     * the heartbeat and lease renewal commit immediately and cancel requests are read outside the snapshot.
+     */
+    private TransactionTemplate progressTransactionTemplate;
+
+    @PostConstruct
+    void startWorkers() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        log.info("Publish workers running as node {}", nodeId);
+        progressTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        progressTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        workerPool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("publish-worker-", 0).factory());
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        runningJobs.values().forEach(JobProgress::cancel);
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * Jobs this node left RUNNING cannot be resumed mid-export; they are failed and their lease released so the
+     * release can be queued again. This node's QUEUED jobs are handed to the workers. Jobs of other nodes are left
+     * alone until their lease expires.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeQueuedJobs() {
+        transactionTemplate.executeWithoutResult(status -> publishJobRepository
+                .findByStatusOrderByCreatedAtAsc(JobStatus.RUNNING).stream()
+                .filter(job -> nodeId.equals(job.getWorkerId()))
+                .forEach(job -> {
+                    job.setStatus(JobStatus.FAILED);
+                    job.setErrorMessage("Interrupted by application shutdown");
+                    job.setFinishedAt(clock.instant());
+                    publishJobRepository.save(job);
+                    publishReleaseRepository.releasePublishLease(job.getReleaseId(), nodeId);
+                }));
+        publishJobRepository.findByStatusOrderByCreatedAtAsc(JobStatus.QUEUED).stream()
+                .filter(job -> nodeId.equals(job.getWorkerId()))
+                .forEach(job -> submit(job.getId()));
+    }
+
+    @Override
+    public PublishJobDto enqueue(UUID releaseId) {
+        return enqueueIfUnclaimed(releaseId)
+                .orElseThrow(() -> new IllegalStateException("Release is already published or being published"));
+    }
+
+    @Override
+    public Optional<PublishJobDto> enqueueIfUnclaimed(UUID releaseId) {
+        PublishJob job = transactionTemplate.execute(status -> {
+            PublishRelease release = publishReleaseRepository.findById(releaseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Release not found"));
+            if (release.getStatus() != ReleaseStatus.APPROVED) {
+                throw new IllegalStateException("Release must be approved before publishing");
+            }
+            Instant now = clock.instant();
+            if (publishReleaseRepository.claimForPublish(
+                    releaseId, ReleaseStatus.APPROVED, nodeId, now, now.plus(leaseDuration)) == 0) {
+                return null;
+            }
+            failOrphanedJobs(releaseId, now);
+            PublishJob newJob = new PublishJob();
+            newJob.setReleaseId(releaseId);
+            newJob.setWorkerId(nodeId);
+            return publishJobRepository.save(newJob);
+        });
+        if (job == null) {
+            return Optional.empty();
+        }
+        submit(job.getId());
+        return Optional.of(publishJobMapper.toDto(job));
+    }
+
+    @Override
+    public PublishJobDto retry(UUID releaseId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            PublishRelease release = publishReleaseRepository.findById(releaseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Release not found"));
+            if (release.getStatus() != ReleaseStatus.FAILED) {
+                throw new IllegalStateException("Only failed releases can be retried");
+            }
+            release.setStatus(ReleaseStatus.APPROVED);
+            publishReleaseRepository.save(release);
+        });
+        return enqueue(releaseId);
+    }
+
+    @Override
+    public PublishJobDto getJob(UUID jobId) {
+        PublishJob job = findJob(jobId);
+        JobProgress progress = runningJobs.get(jobId);
+        if (progress != null) {
+            progress.applyTo(job);
+        }
+        return publishJobMapper.toDto(job);
+    }
+
+    @Override
+    public PublishJobDto cancel(UUID jobId) {
+        PublishJob job = transactionTemplate.execute(status -> {
+            PublishJob current = findJob(jobId);
+            if (current.isFinished()) {
+                return current;
+            }
+            current.setCancelRequested(true);
+            if (current.getStatus() == JobStatus.QUEUED) {
+                // No worker will pick the job up, so nothing else would release the lease
+                current.setStatus(JobStatus.CANCELLED);
+                current.setFinishedAt(clock.instant());
+                publishReleaseRepository.releasePublishLease(current.getReleaseId(), current.getWorkerId());
+            }
+            return publishJobRepository.save(current);
+        });
+        JobProgress progress = runningJobs.get(jobId);
+        if (progress != null) {
+            progress.cancel();
+        }
+        return publishJobMapper.toDto(job);
+    }
+
+    @Override
+    public boolean hasActiveJob(UUID releaseId) {
+        return publishJobRepository.existsByReleaseIdAndStatusIn(releaseId, ACTIVE_STATUSES);
+    }
+
+    /**
+     * Active jobs left behind by the previous lease holder. Their node stopped renewing the lease, so they are
+     * either dead or will notice the lost lease at their next flush.
+     */
+    private void failOrphanedJobs(UUID releaseId, Instant now) {
+        publishJobRepository.findByReleaseIdAndStatusIn(releaseId, ACTIVE_STATUSES).forEach(job -> {
+            log.warn("Failing publish job {} of node {} whose lease expired", job.getId(), job.getWorkerId());
+            job.setStatus(JobStatus.FAILED);
+            job.setErrorMessage("Publish lease expired");
+            job.setFinishedAt(now);
+            publishJobRepository.save(job);
+        });
+    }
+
+    private void submit(UUID jobId) {
+        workerPool.execute(() -> run(jobId));
+    }
+
+    private void run(UUID jobId) {
+        PublishJob job;
+        try {
+            job = transactionTemplate.execute(status -> {
+                PublishJob current = publishJobRepository.findById(jobId).orElse(null);
+                if (current == null || current.getStatus() != JobStatus.QUEUED) {
+                    return null;
+                }
+                if (publishReleaseRepository.renewPublishLease(
+                        current.getReleaseId(), nodeId, clock.instant().plus(leaseDuration)) == 0) {
+                    current.setStatus(JobStatus.FAILED);
+                    current.setErrorMessage("Publish lease lost before the job started");
+                    current.setFinishedAt(clock.instant());
+                    publishJobRepository.save(current);
+                    return null;
+                }
+                current.setStatus(JobStatus.RUNNING);
+                current.setStartedAt(clock.instant());
+                return publishJobRepository.save(current);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Publish job {} changed before it started, skipping", jobId);
+            return;
+        }
+        if (job == null) {
+            return;
+        }
+
+        JobProgress progress = new JobProgress(jobId, job.getReleaseId());
+        runningJobs.put(jobId, progress);
+        try {
+            datasetPublisherService.publishRelease(job.getReleaseId(), progress);
+            finish(jobId, progress, JobStatus.SUCCEEDED, null);
+        } catch (CancellationException e) {
+            if (progress.isLeaseLost()) {
+                finish(jobId, progress, JobStatus.FAILED, "Publish lease lost to another node");
+            } else {
+                finish(jobId, progress, JobStatus.CANCELLED, null);
+            }
+        } catch (RuntimeException e) {
+            log.error("Publish job {} failed", jobId, e);
+            finish(jobId, progress, JobStatus.FAILED, errorMessage(e));
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    private void finish(UUID jobId, JobProgress progress, JobStatus status, String errorMessage) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            PublishJob job = findJob(jobId);
+            progress.applyTo(job);
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage);
+            job.setFinishedAt(clock.instant());
+            publishJobRepository.save(job);
+            publishReleaseRepository.releasePublishLease(job.getReleaseId(), nodeId);
+        });
+        log.info("Publish job {} finished with status {}", jobId, status);
+    }
+
+    private PublishJob findJob(UUID jobId) {
+        return publishJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Publish job not found"));
+    }
+
+    private static String errorMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        String message = root.getClass().getSimpleName() + ": " + root.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    /**
+     * Progress of one job running in this process. Reports arrive from exporter threads; the database copy is
+     * refreshed at most once per flush interval, which is also when the publish lease is renewed and a cancel
+     * request from another node is seen.
+     */
+    private final class JobProgress implements PublishProgress {
+
+        private final UUID jobId;
+        private final UUID releaseId;
+        private final AtomicLong herbsExported = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicBoolean leaseLost = new AtomicBoolean();
+        private volatile PublishJob.Stage stage;
+        private volatile Instant lastFlush = Instant.MIN;
+
+        JobProgress(UUID jobId, UUID releaseId) {
+            this.jobId = jobId;
+            this.releaseId = releaseId;
+        }
+
+        @Override
+        public void stage(PublishJob.Stage stage) {
+            this.stage = stage;
+            flush();
+        }
+
+        @Override
+        public void herbsExported(long herbCount) {
+            herbsExported.set(herbCount);
+            flushIfDue();
+        }
+
+        @Override
+        public void bytesWritten(long byteCount) {
+            bytesWritten.set(byteCount);
+            flushIfDue();
+        }
+
+        @Override
+        public void checkCancelled() {
+            flushIfDue();
+            if (cancelled.get() || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Publish job " + jobId + " was cancelled");
+            }
+        }
+
+        void cancel() {
+            cancelled.set(true);
+        }
+
+        boolean isLeaseLost() {
+            return leaseLost.get();
+        }
+
+        void applyTo(PublishJob job) {
+            job.setStage(stage);
+            job.setHerbsExported(herbsExported.get());
+            job.setBytesWritten(bytesWritten.get());
+        }
+
+        private void flushIfDue() {
+            if (clock.instant().isAfter(lastFlush.plus(progressFlushInterval))) {
+                flush();
+            }
+        }
+
+        private synchronized void flush() {
+            lastFlush = clock.instant();
+            Boolean cancelRequested = progressTransactionTemplate.execute(status -> {
+                publishJobRepository.updateProgress(
+                        jobId, stage, herbsExported.get(), bytesWritten.get(), lastFlush);
+                if (publishReleaseRepository.renewPublishLease(releaseId, nodeId, lastFlush.plus(leaseDuration)) == 0) {
+                    log.warn("Publish job {} lost the lease on release {}", jobId, releaseId);
+                    leaseLost.set(true);
+                    return true;
+                }
+                return publishJobRepository.isCancelRequested(jobId);
+            });
+            if (Boolean.TRUE.equals(cancelRequested)) {
+                cancelled.set(true);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.tcm.backend.domain.PublishRelease;
 import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
 import com.tcm.backend.dto.PublishReleaseDto;
 import com.tcm.backend.mapper.PublishReleaseMapper;
+import com.tcm.backend.publisher.DatasetEncoding;
 import com.tcm.backend.repository.PublishReleaseRepository;
 import com.tcm.backend.service.PublishReleaseService;
 import jakarta.transaction.Transactional;
@@ -26,9 +27,10 @@ public class PublishReleaseServiceImpl implements PublishReleaseService {
 
     @Override
     @Transactional
-    public PublishReleaseDto createDraft(String versionName) {
+    public PublishReleaseDto createDraft(String versionName, DatasetEncoding encoding) {
         PublishRelease release = new PublishRelease();
         release.setVersionName(versionName);
+        release.setEncoding(encoding);
         release.setStatus(ReleaseStatus.DRAFT);
         PublishRelease saved = publishReleaseRepository.save(release);
         return publishReleaseMapper.toDto(saved);
@@ -56,6 +58,19 @@ public class PublishReleaseServiceImpl implements PublishReleaseService {
         return publishReleaseMapper.toDto(saved);
     }
 
+    @Override
+    @Transactional
+    public PublishReleaseDto setPinned(UUID releaseId, boolean pinned) {
+        PublishRelease release = publishReleaseRepository.findById(releaseId)
+                .orElseThrow(() -> new IllegalArgumentException("Release not found"));
+        if (pinned && release.getStatus() == ReleaseStatus.ARCHIVED) {
+            throw new IllegalArgumentException("Archived releases cannot be pinned");
+        }
+        release.setPinned(pinned);
+        PublishRelease saved = publishReleaseRepository.save(release);
+        return publishReleaseMapper.toDto(saved);
+    }
+
     @Override
     @Transactional
     public Page<PublishReleaseDto> listReleases(Pageable pageable) {
@@ -70,4 +85,13 @@ public class PublishReleaseServiceImpl implements PublishReleaseService {
                 .orElseThrow(() -> new IllegalArgumentException("No approved releases"));
         return publishReleaseMapper.toDto(release);
     }
+
+    @Override
+    @Transactional
+    public PublishReleaseDto getPublished(String versionName) {
+        PublishRelease release = publishReleaseRepository
+                .findByVersionNameAndStatusAndStorageUrlIsNotNull(versionName, ReleaseStatus.APPROVED)
+                .orElseThrow(() -> new IllegalArgumentException("Release not found"));
+        return publishReleaseMapper.toDto(release);
+    }
 }
@@ -0,0 +1,115 @@
+package com.tcm.backend.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RangedFileResponseTest {
+
+    private static final String ETAG = "\"abc123\"";
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        file = Files.write(tempDir.resolve("v1.zip"), content);
+    }
+
+    @Test
+    void parsesSingleRanges() {
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=0-99", 1000))
+                .isEqualTo(new RangedFileResponse.ByteRange(0, 99));
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=900-", 1000))
+                .isEqualTo(new RangedFileResponse.ByteRange(900, 999));
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=-100", 1000))
+                .isEqualTo(new RangedFileResponse.ByteRange(900, 999));
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=500-5000", 1000))
+                .isEqualTo(new RangedFileResponse.ByteRange(500, 999));
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=1000-", 1000))
+                .isSameAs(RangedFileResponse.ByteRange.UNSATISFIABLE);
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=1200-1100", 1000))
+                .isSameAs(RangedFileResponse.ByteRange.UNSATISFIABLE);
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=0-1,5-6", 1000)).isNull();
+        assertThat(RangedFileResponse.ByteRange.parse("bytes=9-3", 1000)).isNull();
+        assertThat(RangedFileResponse.ByteRange.parse("items=0-1", 1000)).isNull();
+    }
+
+    @Test
+    void servesRequestedRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/public/v1/datasets/v1/archive");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/1000");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 100, 200));
+    }
+
+    @Test
+    void staleIfRangeSendsWholeFile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/public/v1/datasets/v1/archive");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"previous\"");
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/public/v1/datasets/v1/archive");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void rangePastEndIsNotSatisfiable() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/public/v1/datasets/v1/archive");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2000-");
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */1000");
+    }
+
+    @Test
+    void sendfileIsHandedToTheConnector() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/public/v1/datasets/v1/archive");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        MockHttpServletResponse response = send(request);
+
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getContentLengthLong()).isEqualTo(990);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(10L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(1000L);
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RangedFileResponse.send(request, response, file, ETAG, "application/zip", "v1.zip");
+        return response;
+    }
+}
@@ -0,0 +1,152 @@
+package com.tcm.backend.config.security;
+
+import com.tcm.backend.domain.AdminUser;
+import com.tcm.backend.domain.Permission;
+import com.tcm.backend.domain.Role;
+import com.tcm.backend.domain.TokenRevocation;
+import com.tcm.backend.repository.AdminUserRepository;
+import com.tcm.backend.repository.PermissionRepository;
+import com.tcm.backend.repository.RoleRepository;
+import com.tcm.backend.repository.TokenRevocationRepository;
+import com.tcm.backend.service.JwtTokenService;
+import com.tcm.backend.service.PermissionRegistry;
+import com.tcm.backend.service.PrincipalCache;
+import com.tcm.backend.service.TokenRevocationRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hmac-sha-256-signatures";
+
+    private final JwtTokenService jwtTokenService = new JwtTokenService(SECRET, 15, 7, "tcm-app-backend");
+    private final AdminUserRepository adminUserRepository = mock(AdminUserRepository.class);
+    private final TokenRevocationRepository tokenRevocationRepository = mock(TokenRevocationRepository.class);
+    private final TokenRevocationRegistry tokenRevocationRegistry =
+            new TokenRevocationRegistry(tokenRevocationRepository, 15);
+    private final PermissionRegistry permissionRegistry =
+            new PermissionRegistry(mock(PermissionRepository.class), mock(RoleRepository.class));
+    private final PrincipalCache principalCache = new PrincipalCache(adminUserRepository, tokenRevocationRegistry,
+            permissionRegistry, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtTokenService, principalCache,
+            tokenRevocationRegistry, permissionRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "statelessAuthentication", true);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void accessTokenAuthenticatesWithoutLoadingTheUser() throws Exception {
+        filter.doFilter(request(jwtTokenService.generateAccessToken(user("user-1"))), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isInstanceOfSatisfying(AdminUser.class, principal -> {
+            assertThat(principal.getId()).isEqualTo("user-1");
+            assertThat(principal.getEmail()).isEqualTo("user-1@example.com");
+            assertThat(principal.hasPermission("HERB_UPDATE")).isTrue();
+        });
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("EDITOR", "HERB_UPDATE");
+        assertThat(authentication).isInstanceOfSatisfying(PermissionAuthenticationToken.class, token -> {
+            assertThat(token.getPermissionSet().contains(permissionRegistry.authorityId("HERB_UPDATE"))).isTrue();
+            assertThat(token.getPermissionSet().contains(permissionRegistry.authorityId("EDITOR"))).isTrue();
+            assertThat(token.getPermissionSet().size()).isEqualTo(2);
+        });
+        verifyNoMoreInteractions(adminUserRepository);
+    }
+
+    @Test
+    void tokensRevokedHereOrOnAnotherNodeAreRejected() throws Exception {
+        AdminUser local = user("user-1");
+        AdminUser remote = user("user-2");
+        String localToken = jwtTokenService.generateAccessToken(local);
+        String remoteToken = jwtTokenService.generateAccessToken(remote);
+
+        tokenRevocationRegistry.revoke(local.getId());
+        when(tokenRevocationRepository.findRevokedSince(any()))
+                .thenReturn(List.of(new TokenRevocation(remote.getId(), Instant.now())));
+        tokenRevocationRegistry.refresh();
+
+        for (String token : List.of(localToken, remoteToken)) {
+            filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+            assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        }
+        verify(tokenRevocationRepository).findRevokedSince(any());
+        verifyNoInteractions(adminUserRepository);
+    }
+
+    @Test
+    void databaseModeLoadsTheUserOnceUntilItChanges() throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessAuthentication", false);
+        AdminUser user = user("user-1");
+        when(adminUserRepository.findByIdAndIsEnabledTrue("user-1")).thenReturn(Optional.of(user));
+        String token = jwtTokenService.generateAccessToken(user);
+
+        List<Object> principals = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+            principals.add(SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        }
+        verify(adminUserRepository, times(1)).findByIdAndIsEnabledTrue("user-1");
+        assertThat(principals).allSatisfy(principal -> assertThat(principal).isSameAs(principals.get(0)));
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("EDITOR", "HERB_UPDATE");
+
+        principalCache.invalidate("user-1");
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+        verify(adminUserRepository, times(2)).findByIdAndIsEnabledTrue("user-1");
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/herbs");
+        request.setServletPath("/api/v1/herbs");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static AdminUser user(String id) {
+        Permission permission = new Permission();
+        permission.setName("HERB_UPDATE");
+        Role role = new Role();
+        role.setName("EDITOR");
+        role.getPermissions().add(permission);
+        AdminUser user = new AdminUser();
+        user.setId(id);
+        user.setEmail(id + "@example.com");
+        user.setRoles(Set.of(role));
+        return user;
+    }
+}
@@ -0,0 +1,132 @@
+package com.tcm.backend.config.security;
+
+import com.tcm.backend.domain.AdminUser;
+import com.tcm.backend.domain.Permission;
+import com.tcm.backend.domain.Role;
+import com.tcm.backend.repository.PermissionRepository;
+import com.tcm.backend.repository.RoleRepository;
+import com.tcm.backend.service.PermissionRegistry;
+import com.tcm.backend.service.PrincipalSnapshot;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cost of the authorization checks of one {@code @PreAuthorize("hasRole('EDITOR') and hasAuthority('HERB_UPDATE')
+ * and hasPermission(#id, 'herb', 'update')")} call: Spring's expression root and the evaluator walking the user's
+ * roles, against bit tests on the principal's permission set. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class PermissionCheckBenchmark {
+
+    private static final int WARMUP_CALLS = 200_000;
+    private static final int MEASURED_CALLS = 1_000_000;
+    private static final List<String> RESOURCES = List.of("HERB", "FORMULA", "USER", "ROLE", "RELEASE");
+    private static final List<String> ACTIONS = List.of("CREATE", "READ", "UPDATE", "DELETE");
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final PermissionRegistry permissionRegistry =
+            new PermissionRegistry(mock(PermissionRepository.class), mock(RoleRepository.class));
+    private final CustomPermissionEvaluator permissionEvaluator = new CustomPermissionEvaluator(permissionRegistry);
+    private int sink;
+
+    @Test
+    void bitTestsAreFasterAndDoNotAllocate() throws Exception {
+        PrincipalSnapshot user = PrincipalSnapshot.of(user(), Instant.now(), permissionRegistry);
+        MethodInvocation invocation = new SimpleMethodInvocation(this,
+                PermissionCheckBenchmark.class.getDeclaredMethod("update", String.class), "herb-1");
+
+        DefaultMethodSecurityExpressionHandler defaultHandler = new DefaultMethodSecurityExpressionHandler();
+        defaultHandler.setPermissionEvaluator(permissionEvaluator);
+        PermissionMethodSecurityExpressionHandler bitsetHandler =
+                new PermissionMethodSecurityExpressionHandler(permissionRegistry);
+        bitsetHandler.setPermissionEvaluator(permissionEvaluator);
+
+        MethodSecurityExpressionOperations before = root(defaultHandler, invocation,
+                new UsernamePasswordAuthenticationToken(user.principal(), null, user.authorities()));
+        MethodSecurityExpressionOperations after = root(bitsetHandler, invocation,
+                new PermissionAuthenticationToken(user.principal(), user.authorities(), user.permissionSet()));
+        assertThat(check(before)).isEqualTo(check(after)).isTrue();
+
+        Cost roleWalk = measure(before);
+        Cost bitTest = measure(after);
+        System.out.printf("authority walk: %.1f ns/call, %.1f B/call; bit test: %.1f ns/call, %.1f B/call (%.1fx)%n",
+                roleWalk.nanos(), roleWalk.bytes(), bitTest.nanos(), bitTest.bytes(),
+                roleWalk.nanos() / bitTest.nanos());
+
+        assertThat(bitTest.nanos()).isLessThan(roleWalk.nanos() / 2);
+        assertThat(bitTest.bytes()).isLessThan(1.0);
+    }
+
+    private Cost measure(MethodSecurityExpressionOperations root) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink += check(root) ? 1 : 0;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long started = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            sink += check(root) ? 1 : 0;
+        }
+        double nanos = (double) (threads.getCurrentThreadCpuTime() - started) / MEASURED_CALLS;
+        double bytes = (double) (threads.getCurrentThreadAllocatedBytes() - allocated) / MEASURED_CALLS;
+        return new Cost(nanos, bytes);
+    }
+
+    private static boolean check(MethodSecurityExpressionOperations root) {
+        return root.hasRole("EDITOR")
+                && root.hasAuthority("HERB_UPDATE")
+                && root.hasPermission("herb-1", "herb", "update");
+    }
+
+    private static MethodSecurityExpressionOperations root(DefaultMethodSecurityExpressionHandler handler,
+                                                           MethodInvocation invocation,
+                                                           Authentication authentication) {
+        return (MethodSecurityExpressionOperations) handler.createEvaluationContext(() -> authentication, invocation)
+                .getRootObject().getValue();
+    }
+
+    private static AdminUser user() {
+        Set<Role> roles = new HashSet<>();
+        for (String roleName : List.of("ROLE_VIEWER", "ROLE_REVIEWER", "ROLE_PUBLISHER", "ROLE_EDITOR")) {
+            Role role = new Role();
+            role.setName(roleName);
+            for (String resource : RESOURCES) {
+                for (String action : ACTIONS) {
+                    if (roleName.equals("ROLE_EDITOR") || action.equals("READ")) {
+                        Permission permission = new Permission();
+                        permission.setName(resource + "_" + action);
+                        role.getPermissions().add(permission);
+                    }
+                }
+            }
+            roles.add(role);
+        }
+        AdminUser user = new AdminUser();
+        user.setId("user-1");
+        user.setEmail("user-1@example.com");
+        user.setRoles(roles);
+        return user;
+    }
+
+    @SuppressWarnings("unused")
+    void update(String id) {
+    }
+
+    private record Cost(double nanos, double bytes) {
+    }
+}
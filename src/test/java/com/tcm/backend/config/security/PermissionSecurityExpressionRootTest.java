@@ -0,0 +1,141 @@
+package com.tcm.backend.config.security;
+
+import com.tcm.backend.domain.AdminUser;
+import com.tcm.backend.domain.Permission;
+import com.tcm.backend.domain.Role;
+import com.tcm.backend.repository.PermissionRepository;
+import com.tcm.backend.repository.RoleRepository;
+import com.tcm.backend.service.PermissionRegistry;
+import com.tcm.backend.service.PrincipalSnapshot;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PermissionSecurityExpressionRootTest {
+
+    private final PermissionRepository permissionRepository = mock(PermissionRepository.class);
+    private final RoleRepository roleRepository = mock(RoleRepository.class);
+    private final PermissionRegistry permissionRegistry = new PermissionRegistry(permissionRepository, roleRepository);
+    private final CustomPermissionEvaluator permissionEvaluator = new CustomPermissionEvaluator(permissionRegistry);
+
+    @Test
+    void bitTestsAnswerLikeTheRoleWalk() throws Exception {
+        Permission unassigned = permission("RELEASE_PUBLISH");
+        when(permissionRepository.findAll()).thenReturn(List.of(unassigned, permission("HERB_UPDATE")));
+        when(roleRepository.findAll()).thenReturn(List.of(role("ROLE_ADMIN", unassigned)));
+        permissionRegistry.load();
+
+        PrincipalSnapshot user = PrincipalSnapshot.of(user(), Instant.now(), permissionRegistry);
+        MethodSecurityExpressionOperations before = root(new DefaultMethodSecurityExpressionHandler(),
+                new UsernamePasswordAuthenticationToken(user.principal(), null, user.authorities()));
+        MethodSecurityExpressionOperations after = root(
+                new PermissionMethodSecurityExpressionHandler(permissionRegistry),
+                new PermissionAuthenticationToken(user.principal(), user.authorities(), user.permissionSet()));
+
+        List<Predicate<MethodSecurityExpressionOperations>> checks = List.of(
+                root -> root.hasRole("EDITOR"),
+                root -> root.hasRole("ROLE_EDITOR"),
+                root -> root.hasRole("ADMIN"),
+                root -> root.hasRole("UNKNOWN"),
+                root -> root.hasAnyRole("ADMIN", "EDITOR"),
+                root -> root.hasAuthority("HERB_UPDATE"),
+                root -> root.hasAuthority("herb_update"),
+                root -> root.hasAuthority("RELEASE_PUBLISH"),
+                root -> root.hasAnyAuthority("RELEASE_PUBLISH", "ROLE_EDITOR"),
+                root -> root.hasPermission(null, "herb_update"),
+                root -> root.hasPermission(null, "RELEASE_PUBLISH"),
+                root -> root.hasPermission(null, "ROLE_EDITOR"),
+                root -> root.hasPermission(null, "role_admin"),
+                root -> root.hasPermission("editor-1", "role", "editor"),
+                root -> root.hasPermission("herb-1", "herb", "update"),
+                root -> root.hasPermission("herb-1", "HERB", "UPDATE"),
+                root -> root.hasPermission("herb-1", "formula", "update"),
+                root -> root.hasPermission("user-1", "user", "read"),
+                root -> root.hasPermission("user-2", "user", "write"),
+                root -> root.hasPermission("herb-1", "herb", "delete"));
+        for (Predicate<MethodSecurityExpressionOperations> check : checks) {
+            assertThat(check.test(after)).isEqualTo(check.test(before));
+        }
+        assertThat(after.hasRole("EDITOR")).isTrue();
+        assertThat(after.hasPermission("herb-1", "herb", "update")).isTrue();
+        assertThat(after.hasPermission("user-1", "user", "read")).isTrue();
+        assertThat(after.hasAuthority("RELEASE_PUBLISH")).isFalse();
+        assertThat(after.hasAuthority("ROLE_EDITOR")).isTrue();
+        assertThat(after.hasPermission(null, "ROLE_EDITOR")).isFalse();
+    }
+
+    @Test
+    void roleNamesAreNotPermissions() throws Exception {
+        Role admin = new Role();
+        admin.setName("ADMIN");
+        AdminUser user = user();
+        user.setRoles(Set.of(admin, role("ROLE_EDITOR", permission("HERB_UPDATE"))));
+        PrincipalSnapshot snapshot = PrincipalSnapshot.of(user, Instant.now(), permissionRegistry);
+        MethodSecurityExpressionOperations root = root(
+                new PermissionMethodSecurityExpressionHandler(permissionRegistry),
+                new PermissionAuthenticationToken(
+                        snapshot.principal(), snapshot.authorities(), snapshot.permissionSet()));
+
+        assertThat(root.hasAuthority("ADMIN")).isTrue();
+        assertThat(root.hasPermission(null, "ADMIN")).isFalse();
+        assertThat(root.hasPermission(null, "admin")).isFalse();
+        assertThat(root.hasPermission(null, "ROLE_EDITOR")).isFalse();
+        assertThat(root.hasPermission(null, "HERB_UPDATE")).isTrue();
+    }
+
+    @Test
+    void authoritiesCreatedAfterStartupGetTheirOwnIds() {
+        PrincipalSnapshot user = PrincipalSnapshot.of(user(), Instant.now(), permissionRegistry);
+
+        int created = permissionRegistry.registerPermission("HERB_ARCHIVE");
+
+        assertThat(created).isGreaterThan(permissionRegistry.authorityId("HERB_UPDATE"));
+        assertThat(permissionRegistry.permissionId("herb_archive")).isEqualTo(created);
+        assertThat(user.permissionSet().contains(created)).isFalse();
+        assertThat(permissionRegistry.permissionId("herb_unknown")).isEqualTo(-1);
+        permissionRegistry.register("ROLE_ARCHIVIST");
+        assertThat(permissionRegistry.permissionId("role_archivist")).isEqualTo(-1);
+    }
+
+    private MethodSecurityExpressionOperations root(DefaultMethodSecurityExpressionHandler handler,
+                                                    Authentication authentication) throws NoSuchMethodException {
+        handler.setPermissionEvaluator(permissionEvaluator);
+        MethodInvocation invocation = new SimpleMethodInvocation(this, Object.class.getMethod("toString"));
+        return (MethodSecurityExpressionOperations) handler.createEvaluationContext(() -> authentication, invocation)
+                .getRootObject().getValue();
+    }
+
+    private static AdminUser user() {
+        AdminUser user = new AdminUser();
+        user.setId("user-1");
+        user.setEmail("user-1@example.com");
+        user.setRoles(Set.of(role("ROLE_EDITOR", permission("HERB_UPDATE"))));
+        return user;
+    }
+
+    private static Role role(String name, Permission permission) {
+        Role role = new Role();
+        role.setName(name);
+        role.getPermissions().add(permission);
+        return role;
+    }
+
+    private static Permission permission(String name) {
+        Permission permission = new Permission();
+        permission.setName(name);
+        return permission;
+    }
+}
@@ -0,0 +1,70 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compression CPU time and archive size on an image-heavy synthetic dataset, deflating every entry versus storing
+ * already-compressed images. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ArchiveCompressionBenchmark {
+
+    private static final int HERB_COUNT = 2_000;
+    private static final int IMAGE_BYTES = 64 * 1024;
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void storingCompressedImagesSavesCpu() throws IOException {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase("archive-compression-benchmark");
+        SyntheticHerbDataset.populate(jdbcTemplate, HERB_COUNT, IMAGE_BYTES);
+        HerbExportReader reader = new HerbExportReader(jdbcTemplate);
+        ReflectionTestUtils.setField(reader, "fetchSize", 500);
+        DatasetSnapshot snapshot = SyntheticHerbDataset.snapshot(jdbcTemplate);
+
+        System.out.printf("%-12s %12s %10s %10s%n", "policy", "archive B", "herbs cpu", "images cpu");
+        double deflateAllCpu = run("deflate-all", Set.of(), reader, snapshot);
+        double storedCpu = run("store-media", Set.of("image/jpeg", "image/png"), reader, snapshot);
+
+        assertThat(storedCpu).isLessThan(deflateAllCpu / 2);
+    }
+
+    private double run(String label, Set<String> storedMediaTypes, HerbExportReader reader, DatasetSnapshot snapshot)
+            throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ArchiveCompressionPolicy policy = new ArchiveCompressionPolicy(6, storedMediaTypes, meterRegistry);
+        JsonDatasetExportService exporter =
+                new JsonDatasetExportService(reader, new ObjectMapper(), snapshot, policy);
+        ReflectionTestUtils.setField(exporter, "tempDirectory", tempDirectory.toString());
+        ReflectionTestUtils.setField(exporter, "shardSize", 500);
+        ReflectionTestUtils.setField(exporter, "compressorParallelism", Runtime.getRuntime().availableProcessors());
+        ReflectionTestUtils.setField(exporter, "maxInFlight", 16);
+
+        try (DatasetExportService.ExportResult result = exporter.exportDataset()) {
+            double herbsCpu = cpuMillis(meterRegistry, "herbs");
+            double imagesCpu = cpuMillis(meterRegistry, "image");
+            System.out.printf("%-12s %12d %8.0fms %8.0fms%n", label, result.sizeBytes(), herbsCpu, imagesCpu);
+            return herbsCpu + imagesCpu;
+        }
+    }
+
+    private static double cpuMillis(SimpleMeterRegistry meterRegistry, String entry) {
+        return meterRegistry.get("dataset.export.compression.cpu").tag("entry", entry).timers().stream()
+                .mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS))
+                .sum();
+    }
+}
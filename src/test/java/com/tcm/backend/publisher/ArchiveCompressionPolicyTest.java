@@ -0,0 +1,54 @@
+package com.tcm.backend.publisher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveCompressionPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ArchiveCompressionPolicy policy =
+            new ArchiveCompressionPolicy(6, Set.of("image/jpeg", "image/png"), meterRegistry);
+
+    @Test
+    void storesCompressedMediaByMimeTypeOrMagicBytes() {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x00};
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A};
+        byte[] svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"></svg>".repeat(10).getBytes();
+
+        assertThat(policy.compressImage(image("image/jpeg"), new byte[]{1, 2, 3}))
+                .isInstanceOf(DatasetArchiveWriter.StoredPayload.class);
+        assertThat(policy.compressImage(image(null), jpeg)).isInstanceOf(DatasetArchiveWriter.StoredPayload.class);
+        assertThat(policy.compressImage(image("application/octet-stream"), png))
+                .isInstanceOf(DatasetArchiveWriter.StoredPayload.class);
+        assertThat(policy.compressImage(image("image/svg+xml"), svg))
+                .isInstanceOf(DatasetArchiveWriter.DeflatedSegment.class);
+    }
+
+    @Test
+    void recordsBytesPerEntryTypeAndMethod() {
+        byte[] text = "[{\"id\":1}]".repeat(100).getBytes();
+        DatasetArchiveWriter.DeflatedSegment segment = policy.compressText(text);
+        policy.compressImage(image("image/jpeg"), new byte[512]);
+
+        assertThat(counter("bytes.in", "herbs", "deflated")).isEqualTo(text.length);
+        assertThat(counter("bytes.out", "herbs", "deflated")).isEqualTo(segment.compressed().length);
+        assertThat(counter("bytes.out", "image", "stored")).isEqualTo(512);
+        assertThat(meterRegistry.get("dataset.export.compression.cpu")
+                .tags("entry", "image", "method", "stored").timer().count()).isEqualTo(1);
+    }
+
+    private double counter(String name, String entry, String method) {
+        return meterRegistry.get("dataset.export.compression." + name)
+                .tags("entry", entry, "method", method)
+                .counter()
+                .count();
+    }
+
+    private static HerbExportRecord.ImageRecord image(String mime) {
+        return new HerbExportRecord.ImageRecord(1, "herb.bin", mime, null, null);
+    }
+}
@@ -0,0 +1,48 @@
+package com.tcm.backend.publisher;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChecksumOutputStreamTest {
+
+    @Test
+    void computesWholeAndChunkDigestsInOnePass() throws Exception {
+        byte[] data = new byte[25];
+        Arrays.fill(data, (byte) 7);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        ChecksumOutputStream stream = new ChecksumOutputStream(target, 10);
+        stream.write(data, 0, 3);
+        stream.write(data[3]);
+        stream.write(data, 4, 21);
+        DatasetDigest digest = stream.getDigest();
+
+        assertThat(target.toByteArray()).isEqualTo(data);
+        assertThat(digest.sizeBytes()).isEqualTo(25);
+        assertThat(digest.sha256()).isEqualTo(sha256(data));
+        assertThat(digest.chunkSize()).isEqualTo(10);
+        assertThat(digest.chunkSha256()).containsExactly(
+                sha256(Arrays.copyOfRange(data, 0, 10)),
+                sha256(Arrays.copyOfRange(data, 10, 20)),
+                sha256(Arrays.copyOfRange(data, 20, 25)));
+    }
+
+    @Test
+    void emptyStreamHasNoChunks() throws Exception {
+        ChecksumOutputStream stream = new ChecksumOutputStream(new ByteArrayOutputStream(), 10);
+        stream.close();
+
+        assertThat(stream.getDigest().chunkSha256()).isEmpty();
+        assertThat(stream.getChecksum()).isEqualTo(sha256(new byte[0]));
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
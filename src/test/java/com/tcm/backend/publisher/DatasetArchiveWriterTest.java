@@ -0,0 +1,75 @@
+package com.tcm.backend.publisher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetArchiveWriterTest {
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void archivesBeyond65535EntriesUseZip64() throws Exception {
+        int entryCount = 70_001;
+        Path archive = tempDirectory.resolve("many.zip");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archive));
+             DatasetArchiveWriter writer = new DatasetArchiveWriter(out)) {
+            writer.writeEntry("herbs.json", DatasetArchiveWriter.deflate(bytes("[]"), 6));
+            for (int i = 1; i < entryCount; i++) {
+                writer.writeEntry("images/" + i, DatasetArchiveWriter.StoredPayload.of(bytes("image " + i)));
+            }
+        }
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertThat(zip.size()).isEqualTo(entryCount);
+            assertThat(zip.getInputStream(zip.getEntry("images/" + (entryCount - 1))).readAllBytes())
+                    .isEqualTo(bytes("image " + (entryCount - 1)));
+        }
+        int streamed = 0;
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals("herbs.json")) {
+                    assertThat(zip.readAllBytes()).isEqualTo(bytes("[]"));
+                }
+                streamed++;
+            }
+        }
+        assertThat(streamed).isEqualTo(entryCount);
+    }
+
+    @Test
+    void smallArchivesHaveNoZip64Records() throws Exception {
+        Path archive = tempDirectory.resolve("small.zip");
+        try (OutputStream out = Files.newOutputStream(archive);
+             DatasetArchiveWriter writer = new DatasetArchiveWriter(out)) {
+            writer.writeEntry("herbs.json", DatasetArchiveWriter.deflate(bytes("[]"), 6));
+        }
+
+        byte[] content = Files.readAllBytes(archive);
+        // Plain end of central directory record, not preceded by the 20-byte zip64 locator
+        assertThat(Arrays.copyOfRange(content, content.length - 22, content.length - 18))
+                .containsExactly(0x50, 0x4b, 0x05, 0x06);
+        assertThat(Arrays.copyOfRange(content, content.length - 42, content.length - 38))
+                .isNotEqualTo(new byte[]{0x50, 0x4b, 0x06, 0x07});
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertThat(zip.size()).isEqualTo(1);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
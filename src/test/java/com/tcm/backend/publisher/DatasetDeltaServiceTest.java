@@ -0,0 +1,129 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishRelease;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetDeltaServiceTest {
+
+    private static final Set<DatasetVariant> VARIANTS = EnumSet.allOf(DatasetVariant.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void everyVariantGetsItsOwnDeltaFromTheSameBase() throws Exception {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase("variant-delta");
+        SyntheticHerbDataset.populate(jdbcTemplate, 20, 64);
+        HerbExportReader reader = new HerbExportReader(jdbcTemplate);
+        ReflectionTestUtils.setField(reader, "fetchSize", 50);
+        DatasetDeltaService deltaService = deltaService(reader);
+        PublishRelease base = release("1.0.0");
+        try (DatasetDeltaService.PreparedDelta delta = prepareDelta(deltaService, reader, base, null)) {
+            assertThat(deltaService.storeDelta(delta)).isEmpty();
+        }
+
+        jdbcTemplate.update("UPDATE herbs SET desc_zh = '改', desc_en = 'edited' WHERE id = 1");
+        jdbcTemplate.update("INSERT INTO herb_images (id, herb_id, filename, mime, size_bytes, content_hash) "
+                + "VALUES (100, 2, 'new.png', 'image/png', 1, 'new-hash')");
+        jdbcTemplate.update("INSERT INTO herb_image_payloads (image_id, data) VALUES (100, X'01')");
+
+        Map<DatasetVariant, DatasetDeltaService.DeltaResult> stored;
+        try (DatasetDeltaService.PreparedDelta delta =
+                     prepareDelta(deltaService, reader, release("1.0.1"), base)) {
+            assertThat(delta.archives()).containsOnlyKeys(VARIANTS);
+            for (Map.Entry<DatasetVariant, DatasetDeltaService.DeltaArchive> entry : delta.archives().entrySet()) {
+                assertDelta(entry.getKey(), entry.getValue().archivePath());
+            }
+            stored = deltaService.storeDelta(delta);
+        }
+
+        assertThat(stored).containsOnlyKeys(VARIANTS);
+        assertThat(stored.values()).extracting(DatasetDeltaService.DeltaResult::url).doesNotHaveDuplicates();
+        assertThat(stored.values()).allSatisfy(result -> {
+            assertThat(result.baseVersion()).isEqualTo("1.0.0");
+            assertThat(result.chainLength()).isEqualTo(1);
+        });
+    }
+
+    private void assertDelta(DatasetVariant variant, Path archivePath) throws IOException {
+        JsonNode delta = null;
+        List<String> imageEntries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archivePath))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(DatasetDeltaService.DELTA_ENTRY)) {
+                    delta = objectMapper.readTree(zip.readAllBytes());
+                } else {
+                    imageEntries.add(entry.getName());
+                }
+            }
+        }
+
+        assertThat(delta).as(variant.key()).isNotNull();
+        JsonNode upserted = delta.get("upserted_herbs");
+        assertThat(upserted).as(variant.key()).hasSize(2);
+        JsonNode edited = upserted.get(0);
+        assertThat(edited.get("id").asInt()).isEqualTo(1);
+        assertThat(edited.get("descZh").isNull()).as(variant.key()).isEqualTo(variant == DatasetVariant.EN);
+        assertThat(edited.get("descEn").isNull()).as(variant.key()).isEqualTo(variant == DatasetVariant.ZH);
+        assertThat(upserted.get(1).get("images")).as(variant.key()).hasSize(variant.includesImages() ? 2 : 0);
+        if (variant.includesImages()) {
+            assertThat(delta.get("added_images")).extracting(JsonNode::asText).containsExactly("new-hash");
+            assertThat(imageEntries).containsExactly("images/new-hash");
+        } else {
+            assertThat(delta.get("added_images")).isEmpty();
+            assertThat(imageEntries).isEmpty();
+        }
+    }
+
+    /**
+     * Feeds the builder the way the export's scan does.
+     */
+    private DatasetDeltaService.PreparedDelta prepareDelta(DatasetDeltaService deltaService, HerbExportReader reader,
+                                                           PublishRelease release, PublishRelease base) {
+        try (DatasetDeltaService.DeltaBuilder builder = deltaService.startDelta(release, base, VARIANTS)) {
+            reader.readHerbs(record ->
+                    builder.add(record, DatasetDeltaService.recordHash(objectMapper.writeValueAsBytes(record))));
+            return builder.finish();
+        }
+    }
+
+    private DatasetDeltaService deltaService(HerbExportReader reader) {
+        LocalDatasetStorageClient storageClient = new LocalDatasetStorageClient(Clock.systemUTC());
+        ReflectionTestUtils.setField(storageClient, "storageDirectory", tempDirectory.resolve("storage").toString());
+        ReflectionTestUtils.setField(storageClient, "blobGracePeriod", Duration.ofHours(1));
+        DatasetDeltaService deltaService = new DatasetDeltaService(reader, storageClient, objectMapper,
+                SyntheticHerbDataset.compressionPolicy());
+        ReflectionTestUtils.setField(deltaService, "tempDirectory", tempDirectory.toString());
+        ReflectionTestUtils.setField(deltaService, "maxChainLength", 10);
+        return deltaService;
+    }
+
+    private static PublishRelease release(String versionName) {
+        PublishRelease release = new PublishRelease();
+        release.setVersionName(versionName);
+        return release;
+    }
+}
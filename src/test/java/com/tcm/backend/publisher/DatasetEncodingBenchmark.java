@@ -0,0 +1,73 @@
+package com.tcm.backend.publisher;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Archive size, export time and herbs decode time per archive encoding on a 10k-herb synthetic dataset. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class DatasetEncodingBenchmark {
+
+    private static final int HERB_COUNT = 10_000;
+    private static final int IMAGE_BYTES = 4 * 1024;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void compareEncodings() throws IOException {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase("dataset-encoding-benchmark");
+        SyntheticHerbDataset.populate(jdbcTemplate, HERB_COUNT, IMAGE_BYTES);
+        HerbExportReader reader = new HerbExportReader(jdbcTemplate);
+        ReflectionTestUtils.setField(reader, "fetchSize", 500);
+        DatasetSnapshot snapshot = SyntheticHerbDataset.snapshot(jdbcTemplate);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-9s %12s %12s %12s %10s %10s%n",
+                "encoding", "archive B", "herbs zip B", "herbs raw B", "export ms", "decode ms");
+        for (DatasetEncoding encoding : EnumSet.of(DatasetEncoding.JSON, DatasetEncoding.SMILE, DatasetEncoding.CBOR,
+                DatasetEncoding.COLUMNAR)) {
+            AbstractArchiveExportService exporter =
+                    DatasetEncodingTest.exporter(encoding, reader, snapshot, tempDirectory, cores);
+            ReflectionTestUtils.setField(exporter, "shardSize", 500);
+            exporter.exportDataset().close();
+
+            long exportMillis = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                exporter.exportDataset().close();
+                exportMillis = Math.min(exportMillis, (System.nanoTime() - start) / 1_000_000);
+            }
+
+            try (DatasetExportService.ExportResult result = exporter.exportDataset();
+                 ZipFile zip = new ZipFile(result.archivePath().toFile())) {
+                ZipEntry entry = zip.getEntry(DatasetEncodingTest.herbsEntry(encoding));
+                byte[] herbs = zip.getInputStream(entry).readAllBytes();
+                assertThat(DatasetEncodingTest.decodeHerbs(encoding, herbs)).hasSize(HERB_COUNT);
+
+                long decodeMillis = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    DatasetEncodingTest.decodeHerbs(encoding, herbs);
+                    decodeMillis = Math.min(decodeMillis, (System.nanoTime() - start) / 1_000_000);
+                }
+                System.out.printf("%-9s %12d %12d %12d %10d %10d%n", encoding, result.sizeBytes(),
+                        entry.getCompressedSize(), herbs.length, exportMillis, decodeMillis);
+            }
+        }
+    }
+}
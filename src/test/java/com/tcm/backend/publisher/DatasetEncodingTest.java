@@ -0,0 +1,150 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetEncodingTest {
+
+    private static final TypeReference<List<HerbExportRecord>> RECORDS = new TypeReference<>() {
+    };
+
+    private static HerbExportReader reader;
+    private static DatasetSnapshot snapshot;
+    private static List<HerbExportRecord> expected;
+
+    @TempDir
+    Path tempDirectory;
+
+    @BeforeAll
+    static void populate() {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase("dataset-encodings");
+        SyntheticHerbDataset.populate(jdbcTemplate, 120, 64);
+        reader = new HerbExportReader(jdbcTemplate);
+        ReflectionTestUtils.setField(reader, "fetchSize", 50);
+        snapshot = SyntheticHerbDataset.snapshot(jdbcTemplate);
+        List<HerbExportRecord> records = new ArrayList<>();
+        reader.readHerbs(records::add);
+        expected = records;
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetEncoding.class, names = {"JSON", "SMILE", "CBOR", "COLUMNAR"})
+    void herbsRoundTripThroughEveryArchiveEncoding(DatasetEncoding encoding) throws IOException {
+        AbstractArchiveExportService exporter = exporter(encoding, reader, snapshot, tempDirectory, 2);
+
+        try (DatasetExportService.ExportResult result = exporter.exportDataset();
+             ZipFile zip = new ZipFile(result.archivePath().toFile())) {
+            byte[] herbs = zip.getInputStream(zip.getEntry(herbsEntry(encoding))).readAllBytes();
+            assertThat(decodeHerbs(encoding, herbs)).isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetEncoding.class, names = {"JSON", "SMILE", "CBOR", "COLUMNAR"})
+    void exportsOfUnchangedDataAreByteIdentical(DatasetEncoding encoding) throws IOException {
+        try (DatasetExportService.ExportResult first =
+                     exporter(encoding, reader, snapshot, tempDirectory, 1).exportDataset();
+             DatasetExportService.ExportResult second =
+                     exporter(encoding, reader, snapshot, tempDirectory, 4).exportDataset()) {
+            assertThat(second.digest()).isEqualTo(first.digest());
+        }
+    }
+
+    @Test
+    void fingerprintDependsOnContentAndEncodingOnly() {
+        DatasetFingerprint fingerprint = new DatasetFingerprint(reader, new ObjectMapper(),
+                SyntheticHerbDataset.compressionPolicy());
+        ReflectionTestUtils.setField(fingerprint, "shardSize", 1000);
+
+        Set<DatasetVariant> variants = EnumSet.allOf(DatasetVariant.class);
+        String json = fingerprint.compute(DatasetEncoding.JSON, variants).orElseThrow();
+        assertThat(fingerprint.compute(DatasetEncoding.JSON, variants)).contains(json);
+        assertThat(fingerprint.compute(DatasetEncoding.CBOR, variants)).isPresent().get().isNotEqualTo(json);
+        assertThat(fingerprint.compute(DatasetEncoding.JSON, EnumSet.of(DatasetVariant.FULL)))
+                .isPresent().get().isNotEqualTo(json);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DatasetEncoding.class, names = {"JSON", "COLUMNAR"})
+    void variantsAreWrittenFromOneExport(DatasetEncoding encoding) throws IOException {
+        AbstractArchiveExportService exporter = exporter(encoding, reader, snapshot, tempDirectory, 2);
+
+        Map<DatasetVariant, DatasetExportService.ExportResult> results =
+                exporter.exportVariants(EnumSet.allOf(DatasetVariant.class), PublishProgress.NONE);
+        try {
+            for (DatasetVariant variant : DatasetVariant.values()) {
+                try (ZipFile zip = new ZipFile(results.get(variant).archivePath().toFile())) {
+                    byte[] herbs = zip.getInputStream(zip.getEntry(herbsEntry(encoding))).readAllBytes();
+                    assertThat(decodeHerbs(encoding, herbs)).isEqualTo(variant.apply(expected));
+                    assertThat(zip.stream().anyMatch(entry -> entry.getName().startsWith("images/")))
+                            .isEqualTo(variant.includesImages());
+                }
+            }
+            try (DatasetExportService.ExportResult full = exporter.exportDataset()) {
+                assertThat(full.digest()).isEqualTo(results.get(DatasetVariant.FULL).digest());
+            }
+        } finally {
+            for (DatasetExportService.ExportResult result : results.values()) {
+                result.close();
+            }
+        }
+    }
+
+    static AbstractArchiveExportService exporter(DatasetEncoding encoding, HerbExportReader reader,
+                                                 DatasetSnapshot snapshot, Path tempDirectory, int cores) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArchiveCompressionPolicy policy = SyntheticHerbDataset.compressionPolicy();
+        AbstractArchiveExportService exporter = switch (encoding) {
+            case JSON -> new JsonDatasetExportService(reader, objectMapper, snapshot, policy);
+            case SMILE -> new SmileDatasetExportService(reader, objectMapper, snapshot, policy);
+            case CBOR -> new CborDatasetExportService(reader, objectMapper, snapshot, policy);
+            case COLUMNAR -> new ColumnarDatasetExportService(reader, objectMapper, snapshot, policy);
+            case SQLITE -> throw new IllegalArgumentException("Not a zip archive encoding");
+        };
+        ReflectionTestUtils.setField(exporter, "tempDirectory", tempDirectory.toString());
+        ReflectionTestUtils.setField(exporter, "shardSize", 25);
+        ReflectionTestUtils.setField(exporter, "compressorParallelism", cores);
+        ReflectionTestUtils.setField(exporter, "maxInFlight", cores * 4);
+        return exporter;
+    }
+
+    static String herbsEntry(DatasetEncoding encoding) {
+        return switch (encoding) {
+            case JSON -> JsonDatasetExportService.HERBS_ENTRY;
+            case SMILE -> SmileDatasetExportService.HERBS_ENTRY;
+            case CBOR -> CborDatasetExportService.HERBS_ENTRY;
+            case COLUMNAR -> ColumnarDatasetExportService.HERBS_ENTRY;
+            case SQLITE -> throw new IllegalArgumentException("Not a zip archive encoding");
+        };
+    }
+
+    static List<HerbExportRecord> decodeHerbs(DatasetEncoding encoding, byte[] herbs) throws IOException {
+        return switch (encoding) {
+            case JSON -> new ObjectMapper().readValue(herbs, RECORDS);
+            case SMILE -> new ObjectMapper(new SmileFactory()).readValue(herbs, RECORDS);
+            case CBOR -> new ObjectMapper(new CBORFactory()).readValue(herbs, RECORDS);
+            case COLUMNAR -> new ObjectMapper(new CBORFactory()).readValue(herbs, ColumnarHerbTable.class).toRecords();
+            case SQLITE -> throw new IllegalArgumentException("Not a zip archive encoding");
+        };
+    }
+}
@@ -0,0 +1,203 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import com.tcm.backend.service.impl.DatasetPublisherServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Times a full export and an end-to-end publish of catalogue-shaped data at 1k, 10k and 100k herbs, and checks the
+ * 10k run against the 5 minute export budget in requirements.md. Run with {@code mvn test -Pbenchmark}; pass
+ * {@code -Dbenchmark.export.herb-counts=1000,10000} to skip the largest size.
+ * <p>
+ * Images are stored uncompressed, so their cost grows linearly with their size; the median is a third of the
+ * catalogue's to keep the 100k run within a few GB of temporary disk.
+ */
+@Tag("benchmark")
+class DatasetExportScaleBenchmark {
+
+    private static final Duration BUDGET = Duration.ofMinutes(5);
+    private static final int BUDGET_HERB_COUNT = 10_000;
+    private static final SyntheticHerbDataset.Shape SHAPE =
+            SyntheticHerbDataset.CATALOGUE.withMedianImageBytes(16 * 1024);
+    private static final List<DatasetVariant> VARIANTS = List.of(DatasetVariant.FULL, DatasetVariant.TEXT_ONLY);
+
+    private record Measurement(int herbCount, long exportNanos, long archiveBytes, long exportPeakHeap,
+                               long publishNanos, long publishPeakHeap) {
+
+        double nanosPerHerb() {
+            return (double) publishNanos / herbCount;
+        }
+    }
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void exportAndPublishScaleLinearlyWithinBudget() throws IOException {
+        System.out.printf("%-8s %10s %9s %11s %7s %10s %11s %11s%n", "herbs", "export ms", "herbs/s", "archive MB",
+                "MB/s", "publish ms", "export heap", "publish heap");
+        Measurement previous = null;
+        for (int herbCount : herbCounts()) {
+            Measurement measurement = measure(herbCount);
+            System.out.printf("%-8d %10d %9.0f %11.1f %7.1f %10d %9dMB %10dMB%n",
+                    herbCount,
+                    measurement.exportNanos() / 1_000_000,
+                    herbCount * 1e9 / measurement.exportNanos(),
+                    measurement.archiveBytes() / 1e6,
+                    measurement.archiveBytes() * 1e3 / measurement.exportNanos(),
+                    measurement.publishNanos() / 1_000_000,
+                    measurement.exportPeakHeap() >> 20,
+                    measurement.publishPeakHeap() >> 20);
+
+            if (herbCount == BUDGET_HERB_COUNT) {
+                assertThat(Duration.ofNanos(measurement.publishNanos())).isLessThan(BUDGET);
+            }
+            if (previous != null) {
+                assertThat(measurement.nanosPerHerb())
+                        .as("publish time per herb at %d herbs against %d herbs", herbCount, previous.herbCount())
+                        .isLessThan(previous.nanosPerHerb() * 3);
+            }
+            previous = measurement;
+        }
+    }
+
+    private Measurement measure(int herbCount) throws IOException {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase(tempDirectory, "export-scale-" + herbCount);
+        Path storageDirectory = tempDirectory.resolve("datasets-" + herbCount);
+        try {
+            SyntheticHerbDataset.populate(jdbcTemplate, herbCount, SHAPE);
+            HerbExportReader reader = new HerbExportReader(jdbcTemplate);
+            ReflectionTestUtils.setField(reader, "fetchSize", 500);
+            DatasetSnapshot snapshot = SyntheticHerbDataset.snapshot(jdbcTemplate);
+            AbstractArchiveExportService exporter = DatasetEncodingTest.exporter(DatasetEncoding.JSON, reader,
+                    snapshot, tempDirectory, Runtime.getRuntime().availableProcessors());
+            ReflectionTestUtils.setField(exporter, "shardSize", 500);
+
+            resetPeakHeap();
+            long started = System.nanoTime();
+            long archiveBytes;
+            try (DatasetExportService.ExportResult result = exporter.exportDataset()) {
+                archiveBytes = result.sizeBytes();
+            }
+            long exportNanos = System.nanoTime() - started;
+            long exportPeakHeap = peakHeapBytes();
+
+            PublishRelease release = new PublishRelease();
+            release.setId(UUID.randomUUID());
+            release.setVersionName("v" + herbCount);
+            release.setStatus(PublishRelease.ReleaseStatus.APPROVED);
+            DatasetPublisherServiceImpl publisher =
+                    publisher(release, reader, snapshot, exporter, storageDirectory);
+
+            resetPeakHeap();
+            started = System.nanoTime();
+            publisher.publishRelease(release.getId());
+            long publishNanos = System.nanoTime() - started;
+            assertThat(release.getManifestJson()).isNotNull();
+
+            return new Measurement(herbCount, exportNanos, archiveBytes, exportPeakHeap, publishNanos,
+                    peakHeapBytes());
+        } finally {
+            jdbcTemplate.execute("DROP ALL OBJECTS DELETE FILES");
+            FileSystemUtils.deleteRecursively(storageDirectory);
+        }
+    }
+
+    /**
+     * The production stages and publisher around a mocked release repository and local storage.
+     */
+    private DatasetPublisherServiceImpl publisher(PublishRelease release, HerbExportReader reader,
+                                                  DatasetSnapshot snapshot, DatasetExportService exporter,
+                                                  Path storageDirectory) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArchiveCompressionPolicy policy = SyntheticHerbDataset.compressionPolicy();
+        PublishReleaseRepository repository = mock(PublishReleaseRepository.class);
+        when(repository.findById(release.getId())).thenReturn(Optional.of(release));
+        when(repository.findFirstByStatusAndStorageUrlIsNotNullAndIdNotOrderByCreatedAtDesc(any(), any()))
+                .thenReturn(Optional.empty());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+        LocalDatasetStorageClient storageClient = new LocalDatasetStorageClient(Clock.systemUTC());
+        ReflectionTestUtils.setField(storageClient, "storageDirectory", storageDirectory.toString());
+        ReflectionTestUtils.setField(storageClient, "blobGracePeriod", Duration.ofHours(1));
+        DatasetDeltaService deltaService = new DatasetDeltaService(reader, storageClient, objectMapper, policy);
+        ReflectionTestUtils.setField(deltaService, "tempDirectory", tempDirectory.toString());
+        ReflectionTestUtils.setField(deltaService, "maxChainLength", 10);
+        DatasetFingerprint fingerprint = new DatasetFingerprint(reader, objectMapper, policy);
+        ReflectionTestUtils.setField(fingerprint, "shardSize", 500);
+
+        ExportPublishStage exportStage = new ExportPublishStage(List.of(exporter), fingerprint, deltaService,
+                objectMapper);
+        ReflectionTestUtils.setField(exportStage, "deltaEnabled", true);
+        ManifestPublishStage manifestStage = new ManifestPublishStage(
+                new DatasetManifestFactory(objectMapper, Clock.systemUTC()), repository, transactionTemplate,
+                mock(LatestManifestHolder.class));
+        ReflectionTestUtils.setField(manifestStage, "minAppVersion", "1.0.0");
+        PublishPipeline pipeline = new PublishPipeline(
+                List.of(exportStage, new DeltaPublishStage(),
+                        new UploadPublishStage(storageClient, deltaService), manifestStage),
+                snapshot, fingerprint, repository, transactionTemplate, objectMapper, new SimpleMeterRegistry(), 1,
+                Duration.ZERO);
+
+        DatasetPublisherServiceImpl publisher = new DatasetPublisherServiceImpl();
+        ReflectionTestUtils.setField(publisher, "publishReleaseRepository", repository);
+        ReflectionTestUtils.setField(publisher, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(publisher, "publishPipeline", pipeline);
+        ReflectionTestUtils.setField(publisher, "encoding", DatasetEncoding.JSON);
+        ReflectionTestUtils.setField(publisher, "variants", VARIANTS);
+        return publisher;
+    }
+
+    private static int[] herbCounts() {
+        return Arrays.stream(System.getProperty("benchmark.export.herb-counts", "1000,10000,100000").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim()))
+                .sorted()
+                .toArray();
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the per-pool peaks, so an upper bound of the real peak.
+     */
+    private static long peakHeapBytes() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+}
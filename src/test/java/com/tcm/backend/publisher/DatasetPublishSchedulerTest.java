@@ -0,0 +1,314 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishJob.JobStatus;
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
+import com.tcm.backend.dto.PublishJobDto;
+import com.tcm.backend.mapper.PublishJobMapper;
+import com.tcm.backend.repository.PublishJobRepository;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import com.tcm.backend.service.DatasetPublisherService;
+import com.tcm.backend.service.impl.PublishJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes, each with its own scheduler and job service, sharing one H2 database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatasetPublishSchedulerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration LEASE = Duration.ofMinutes(15);
+
+    @Autowired
+    private PublishReleaseRepository publishReleaseRepository;
+
+    @Autowired
+    private PublishJobRepository publishJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<PublishJobServiceImpl> jobServices = new ArrayList<>();
+    private final Queue<String> published = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        jobServices.forEach(service -> ReflectionTestUtils.invokeMethod(service, "stopWorkers"));
+        publishJobRepository.deleteAll();
+        publishReleaseRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentSchedulersQueueEachReleaseOnce() throws Exception {
+        List<UUID> releaseIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            releaseIds.add(approvedRelease("v" + i));
+        }
+        CountDownLatch publishGate = new CountDownLatch(1);
+        DatasetPublishScheduler nodeA = scheduler("node-a", Clock.fixed(NOW, ZoneOffset.UTC), publishGate);
+        DatasetPublishScheduler nodeB = scheduler("node-b", Clock.fixed(NOW, ZoneOffset.UTC), publishGate);
+
+        CyclicBarrier start = new CyclicBarrier(2);
+        CompletableFuture<Void> runA = CompletableFuture.runAsync(() -> runAfter(start, nodeA));
+        CompletableFuture<Void> runB = CompletableFuture.runAsync(() -> runAfter(start, nodeB));
+        CompletableFuture.allOf(runA, runB).get(30, TimeUnit.SECONDS);
+
+        List<PublishJob> jobs = publishJobRepository.findAll();
+        assertThat(jobs).extracting(PublishJob::getReleaseId).containsExactlyInAnyOrderElementsOf(releaseIds);
+        for (PublishJob job : jobs) {
+            PublishRelease release = publishReleaseRepository.findById(job.getReleaseId()).orElseThrow();
+            assertThat(release.getPublishLeaseOwner()).isEqualTo(job.getWorkerId());
+            assertThat(release.getPublishLeaseUntil()).isEqualTo(NOW.plus(LEASE));
+        }
+
+        // A second round while every release is leased queues nothing
+        nodeA.publishScheduledReleases();
+        nodeB.publishScheduledReleases();
+        assertThat(publishJobRepository.count()).isEqualTo(releaseIds.size());
+
+        publishGate.countDown();
+        awaitCondition(() -> publishJobRepository.findAll().stream()
+                .allMatch(job -> job.getStatus() == JobStatus.SUCCEEDED));
+        assertThat(published).hasSize(releaseIds.size()).doesNotHaveDuplicates();
+        assertThat(publishReleaseRepository.findAll()).allSatisfy(release ->
+                assertThat(release.getPublishLeaseOwner()).isNull());
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndOrphanedJobFails() throws Exception {
+        UUID releaseId = approvedRelease("v1");
+        CountDownLatch stalledGate = new CountDownLatch(1);
+        DatasetPublishScheduler nodeA = scheduler("node-a", Clock.fixed(NOW, ZoneOffset.UTC), stalledGate);
+        nodeA.publishScheduledReleases();
+        awaitCondition(() -> publishJobRepository.findAll().stream()
+                .anyMatch(job -> job.getStatus() == JobStatus.RUNNING));
+
+        // node-a stalls past its lease; node-b runs later and takes the release over
+        Clock later = Clock.fixed(NOW.plus(LEASE).plusSeconds(60), ZoneOffset.UTC);
+        DatasetPublishScheduler nodeB = scheduler("node-b", later, new CountDownLatch(0));
+        nodeB.publishScheduledReleases();
+        awaitCondition(() -> jobOf("node-b").getStatus() == JobStatus.SUCCEEDED);
+        assertThat(jobOf("node-a").getStatus()).isEqualTo(JobStatus.FAILED);
+
+        // node-a wakes up, fails to renew the lease at its next flush and stops without publishing
+        stalledGate.countDown();
+        awaitCondition(() -> jobOf("node-a").getFinishedAt() != null
+                && jobOf("node-a").getErrorMessage().contains("lease lost"));
+        assertThat(published).containsExactly("node-b:" + releaseId);
+        assertThat(publishJobRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void progressCommitsWhileTheExportHoldsItsSnapshot() throws Exception {
+        UUID releaseId = approvedRelease("v1");
+        MutableClock clock = new MutableClock(NOW);
+        CountDownLatch exporting = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        DatasetSnapshot snapshot = new DatasetSnapshot(transactionManager, Isolation.SERIALIZABLE);
+        DatasetPublishScheduler nodeA = scheduler("node-a", clock, new DatasetPublisherService() {
+            @Override
+            public void publishRelease(UUID id) {
+                publishRelease(id, PublishProgress.NONE);
+            }
+
+            @Override
+            public void publishRelease(UUID id, PublishProgress progress) {
+                snapshot.read(() -> {
+                    // Touch both tables so the snapshot is taken before any progress is reported
+                    publishReleaseRepository.findById(id).orElseThrow();
+                    publishJobRepository.count();
+                    clock.set(NOW.plus(Duration.ofMinutes(5)));
+                    progress.stage(PublishJob.Stage.EXPORT);
+                    exporting.countDown();
+                    await(resume);
+                    progress.stage(PublishJob.Stage.UPLOAD);
+                    progress.checkCancelled();
+                    published.add("node-a:" + id);
+                    return null;
+                });
+            }
+        });
+        PublishJobServiceImpl nodeB = jobService("node-b", clock, publisher("node-b", new CountDownLatch(0)));
+
+        nodeA.publishScheduledReleases();
+        assertThat(exporting.await(30, TimeUnit.SECONDS)).isTrue();
+
+        // Still inside node-a's snapshot: the heartbeat and the renewed lease are visible to everyone else
+        assertThat(publishReleaseRepository.findById(releaseId).orElseThrow().getPublishLeaseUntil())
+                .isEqualTo(NOW.plus(Duration.ofMinutes(5)).plus(LEASE));
+        assertThat(jobOf("node-a").getStage()).isEqualTo(PublishJob.Stage.EXPORT);
+
+        // A cancel recorded by another node is seen at node-a's next flush
+        nodeB.cancel(jobOf("node-a").getId());
+        resume.countDown();
+        awaitCondition(() -> jobOf("node-a").getStatus() == JobStatus.CANCELLED);
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void cancellingAQueuedJobReleasesTheLease() throws Exception {
+        UUID busyRelease = approvedRelease("v1");
+        UUID queuedRelease = approvedRelease("v2");
+        CountDownLatch publishGate = new CountDownLatch(1);
+        PublishJobServiceImpl jobService = jobService("node-a", Clock.fixed(NOW, ZoneOffset.UTC),
+                publisher("node-a", publishGate));
+
+        // The only worker is busy, so the second job waits in the queue
+        jobService.enqueue(busyRelease);
+        PublishJobDto queued = jobService.enqueue(queuedRelease);
+        assertThat(jobService.cancel(queued.id()).status()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(publishReleaseRepository.findById(queuedRelease).orElseThrow().getPublishLeaseOwner()).isNull();
+
+        PublishJobDto requeued = jobService.enqueue(queuedRelease);
+        publishGate.countDown();
+        awaitCondition(() -> publishJobRepository.findById(requeued.id()).orElseThrow().getStatus()
+                == JobStatus.SUCCEEDED);
+        assertThat(publishJobRepository.findById(queued.id()).orElseThrow().getStatus())
+                .isEqualTo(JobStatus.CANCELLED);
+        assertThat(published).contains("node-a:" + queuedRelease);
+    }
+
+    private DatasetPublishScheduler scheduler(String nodeId, Clock clock, CountDownLatch publishGate) {
+        return scheduler(nodeId, clock, publisher(nodeId, publishGate));
+    }
+
+    private DatasetPublishScheduler scheduler(String nodeId, Clock clock, DatasetPublisherService publisher) {
+        return new DatasetPublishScheduler(publishReleaseRepository, jobService(nodeId, clock, publisher), clock);
+    }
+
+    private PublishJobServiceImpl jobService(String nodeId, Clock clock, DatasetPublisherService publisher) {
+        PublishJobServiceImpl jobService = new PublishJobServiceImpl();
+        ReflectionTestUtils.setField(jobService, "publishJobRepository", publishJobRepository);
+        ReflectionTestUtils.setField(jobService, "publishReleaseRepository", publishReleaseRepository);
+        ReflectionTestUtils.setField(jobService, "datasetPublisherService", publisher);
+        ReflectionTestUtils.setField(jobService, "publishJobMapper", new PublishJobMapper());
+        ReflectionTestUtils.setField(jobService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(jobService, "clock", clock);
+        ReflectionTestUtils.setField(jobService, "workers", 1);
+        ReflectionTestUtils.setField(jobService, "progressFlushInterval", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(jobService, "leaseDuration", LEASE);
+        ReflectionTestUtils.setField(jobService, "nodeId", nodeId);
+        ReflectionTestUtils.invokeMethod(jobService, "startWorkers");
+        jobServices.add(jobService);
+        return jobService;
+    }
+
+    /**
+     * Stands in for the export: reports a stage, waits for the gate, then reports the next stage and checks for
+     * cancellation like the real publisher does between steps.
+     */
+    private DatasetPublisherService publisher(String nodeId, CountDownLatch gate) {
+        return new DatasetPublisherService() {
+            @Override
+            public void publishRelease(UUID releaseId) {
+                publishRelease(releaseId, PublishProgress.NONE);
+            }
+
+            @Override
+            public void publishRelease(UUID releaseId, PublishProgress progress) {
+                progress.stage(PublishJob.Stage.EXPORT);
+                await(gate);
+                progress.stage(PublishJob.Stage.UPLOAD);
+                progress.checkCancelled();
+                published.add(nodeId + ":" + releaseId);
+            }
+        };
+    }
+
+    private UUID approvedRelease(String versionName) {
+        PublishRelease release = new PublishRelease();
+        release.setVersionName(versionName);
+        release.setStatus(ReleaseStatus.APPROVED);
+        return publishReleaseRepository.save(release).getId();
+    }
+
+    private PublishJob jobOf(String nodeId) {
+        return publishJobRepository.findAll().stream()
+                .filter(job -> nodeId.equals(job.getWorkerId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void await(CountDownLatch gate) {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runAfter(CyclicBarrier start, DatasetPublishScheduler scheduler) {
+        try {
+            start.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        scheduler.publishScheduledReleases();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
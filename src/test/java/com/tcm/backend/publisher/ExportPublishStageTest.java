@@ -0,0 +1,103 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishRelease;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ExportPublishStageTest {
+
+    private static final int HERB_COUNT = 30;
+    private static final Set<DatasetVariant> VARIANTS = EnumSet.allOf(DatasetVariant.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDirectory;
+
+    private HerbExportReader reader;
+    private DatasetSnapshot snapshot;
+    private DatasetFingerprint fingerprint;
+    private ExportPublishStage exportStage;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase("export-stage-" + System.nanoTime());
+        SyntheticHerbDataset.populate(jdbcTemplate, HERB_COUNT, 64);
+        HerbExportReader jdbcReader = new HerbExportReader(jdbcTemplate);
+        ReflectionTestUtils.setField(jdbcReader, "fetchSize", 50);
+        reader = spy(jdbcReader);
+        snapshot = SyntheticHerbDataset.snapshot(jdbcTemplate);
+
+        ArchiveCompressionPolicy policy = SyntheticHerbDataset.compressionPolicy();
+        fingerprint = new DatasetFingerprint(reader, objectMapper, policy);
+        ReflectionTestUtils.setField(fingerprint, "shardSize", 25);
+        DatasetDeltaService deltaService =
+                new DatasetDeltaService(reader, mock(DatasetStorageClient.class), objectMapper, policy);
+        ReflectionTestUtils.setField(deltaService, "tempDirectory", tempDirectory.toString());
+        exportStage = new ExportPublishStage(
+                List.of(DatasetEncodingTest.exporter(DatasetEncoding.JSON, reader, snapshot, tempDirectory, 2)),
+                fingerprint, deltaService, objectMapper);
+        ReflectionTestUtils.setField(exportStage, "deltaEnabled", true);
+    }
+
+    @Test
+    void exportReadsTheHerbsOnceForArchivesFingerprintAndIndex() throws Exception {
+        try (PublishContext context = new PublishContext(release("1.0.1"), null, DatasetEncoding.JSON, VARIANTS)) {
+            snapshot.read(() -> {
+                exportStage.run(context, PublishProgress.NONE);
+                new DeltaPublishStage().run(context, PublishProgress.NONE);
+                return null;
+            });
+
+            verify(reader, times(1)).readHerbs(any(HerbExportReader.RecordHandler.class));
+            assertThat(context.getExports()).containsOnlyKeys(VARIANTS);
+            assertThat(context.getPreparedDelta().index().herbs()).hasSize(HERB_COUNT);
+            assertThat(context.getFingerprint())
+                    .isEqualTo(fingerprint.compute(DatasetEncoding.JSON, VARIANTS).orElseThrow());
+        }
+    }
+
+    @Test
+    void unchangedContentReusesThePreviousArchivesAndDiscardsTheExport() throws Exception {
+        PublishRelease previous = release("1.0.0");
+        previous.setContentFingerprint(fingerprint.compute(DatasetEncoding.JSON, VARIANTS).orElseThrow());
+        clearInvocations(reader);
+
+        try (PublishContext context = new PublishContext(release("1.0.1"), previous, DatasetEncoding.JSON, VARIANTS)) {
+            snapshot.read(() -> exportStage.run(context, PublishProgress.NONE));
+
+            verify(reader, times(1)).readHerbs(any(HerbExportReader.RecordHandler.class));
+            assertThat(context.isReusesPrevious()).isTrue();
+            assertThat(context.getExports()).isEmpty();
+            assertThat(context.getDeltaBuilder()).isNull();
+        }
+        try (Stream<Path> leftovers = Files.list(tempDirectory)) {
+            assertThat(leftovers).isEmpty();
+        }
+    }
+
+    private static PublishRelease release(String versionName) {
+        PublishRelease release = new PublishRelease();
+        release.setVersionName(versionName);
+        return release;
+    }
+}
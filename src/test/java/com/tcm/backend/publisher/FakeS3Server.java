@@ -0,0 +1,304 @@
+package com.tcm.backend.publisher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for one S3 bucket, covering what {@link S3DatasetStorageClient} uses: single and multipart
+ * uploads, copies, reads and deletes. Every request's signature and payload hash are verified, as are part
+ * checksums, so a request S3 would reject fails here too.
+ */
+final class FakeS3Server implements AutoCloseable {
+
+    static final String ACCESS_KEY = "test-access-key";
+    static final String SECRET_KEY = "test-secret-key";
+    static final String REGION = "eu-central-1";
+    static final String BUCKET = "datasets";
+
+    private static final Pattern SIGNED_HEADERS = Pattern.compile("SignedHeaders=([^,]+)");
+    private static final Pattern PART = Pattern.compile(
+            "<Part><PartNumber>(\\d+)</PartNumber><ETag>([^<]+)</ETag><ChecksumSHA256>([^<]+)</ChecksumSHA256></Part>");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final S3RequestSigner signer = new S3RequestSigner(ACCESS_KEY, SECRET_KEY, REGION);
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger partFailures = new AtomicInteger();
+    private final AtomicInteger partRequests = new AtomicInteger();
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger maxActiveUploads = new AtomicInteger();
+    private volatile long bytesPerSecond;
+
+    FakeS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    URI endpoint() {
+        return URI.create("http://" + server.getAddress().getAddress().getHostAddress() + ":"
+                + server.getAddress().getPort());
+    }
+
+    byte[] object(String key) {
+        return objects.get(key);
+    }
+
+    int pendingUploads() {
+        return uploads.size();
+    }
+
+    int partRequests() {
+        return partRequests.get();
+    }
+
+    int maxActiveUploads() {
+        return maxActiveUploads.get();
+    }
+
+    /**
+     * The next {@code count} part uploads fail with 500.
+     */
+    void failNextParts(int count) {
+        partFailures.set(count);
+    }
+
+    /**
+     * Limits each upload request to this rate, like one TCP stream to a remote store; 0 is unlimited.
+     */
+    void throttle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String method = exchange.getRequestMethod();
+            String rawPath = exchange.getRequestURI().getRawPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (!sha256Hex(body).equals(exchange.getRequestHeaders().getFirst("x-amz-content-sha256"))) {
+                respond(exchange, 400, error("XAmzContentSHA256Mismatch"));
+                return;
+            }
+            if (!signatureMatches(exchange, method, rawPath, query, sha256Hex(body))) {
+                respond(exchange, 403, error("SignatureDoesNotMatch"));
+                return;
+            }
+            String prefix = "/" + BUCKET + "/";
+            if (!rawPath.startsWith(prefix)) {
+                respond(exchange, 404, error("NoSuchBucket"));
+                return;
+            }
+            String key = URLDecoder.decode(rawPath.substring(prefix.length()), StandardCharsets.UTF_8);
+
+            if ("POST".equals(method) && query.containsKey("uploads")) {
+                String uploadId = UUID.randomUUID().toString();
+                uploads.put(uploadId, new ConcurrentSkipListMap<>());
+                respond(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+                        + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            } else if ("PUT".equals(method) && query.containsKey("partNumber")) {
+                uploadPart(exchange, query, body);
+            } else if ("POST".equals(method) && query.containsKey("uploadId")) {
+                completeUpload(exchange, key, query.get("uploadId"), new String(body, StandardCharsets.UTF_8));
+            } else if ("DELETE".equals(method) && query.containsKey("uploadId")) {
+                respond(exchange, uploads.remove(query.get("uploadId")) != null ? 204 : 404, "");
+            } else if ("PUT".equals(method) && exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+                String source = URLDecoder.decode(exchange.getRequestHeaders().getFirst("x-amz-copy-source"),
+                        StandardCharsets.UTF_8).substring(prefix.length());
+                byte[] content = objects.get(source);
+                if (content == null) {
+                    respond(exchange, 404, error("NoSuchKey"));
+                    return;
+                }
+                objects.put(key, content);
+                respond(exchange, 200, "<CopyObjectResult></CopyObjectResult>");
+            } else if ("PUT".equals(method)) {
+                if (!checksumMatches(exchange, body)) {
+                    respond(exchange, 400, error("BadDigest"));
+                    return;
+                }
+                receive(body.length);
+                objects.put(key, body);
+                respond(exchange, 200, "");
+            } else if ("GET".equals(method) || "HEAD".equals(method)) {
+                byte[] content = objects.get(key);
+                if (content == null) {
+                    respond(exchange, 404, "HEAD".equals(method) ? "" : error("NoSuchKey"));
+                } else if ("HEAD".equals(method)) {
+                    exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, content.length);
+                    exchange.getResponseBody().write(content);
+                }
+            } else if ("DELETE".equals(method)) {
+                objects.remove(key);
+                respond(exchange, 204, "");
+            } else {
+                respond(exchange, 405, error("MethodNotAllowed"));
+            }
+        }
+    }
+
+    private void uploadPart(HttpExchange exchange, Map<String, String> query, byte[] body) throws IOException {
+        partRequests.incrementAndGet();
+        Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+        if (parts == null) {
+            respond(exchange, 404, error("NoSuchUpload"));
+            return;
+        }
+        if (partFailures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            respond(exchange, 500, error("InternalError"));
+            return;
+        }
+        if (!checksumMatches(exchange, body)) {
+            respond(exchange, 400, error("BadDigest"));
+            return;
+        }
+        receive(body.length);
+        parts.put(Integer.parseInt(query.get("partNumber")), body);
+        exchange.getResponseHeaders().set("ETag", "\"" + sha256Hex(body).substring(0, 32) + "\"");
+        respond(exchange, 200, "");
+    }
+
+    private void completeUpload(HttpExchange exchange, String key, String uploadId, String request)
+            throws IOException {
+        Map<Integer, byte[]> parts = uploads.get(uploadId);
+        if (parts == null) {
+            respond(exchange, 404, error("NoSuchUpload"));
+            return;
+        }
+        Matcher matcher = PART.matcher(request);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int expectedPart = 1;
+        while (matcher.find()) {
+            byte[] part = parts.get(Integer.parseInt(matcher.group(1)));
+            if (Integer.parseInt(matcher.group(1)) != expectedPart++ || part == null
+                    || !matcher.group(2).equals("\"" + sha256Hex(part).substring(0, 32) + "\"")
+                    || !matcher.group(3).equals(base64Sha256(part))) {
+                respond(exchange, 400, error("InvalidPart"));
+                return;
+            }
+            content.write(part);
+        }
+        uploads.remove(uploadId);
+        objects.put(key, content.toByteArray());
+        respond(exchange, 200, "<CompleteMultipartUploadResult><Key>" + key + "</Key></CompleteMultipartUploadResult>");
+    }
+
+    private boolean signatureMatches(HttpExchange exchange, String method, String rawPath, Map<String, String> query,
+                                     String payloadHash) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null) {
+            return false;
+        }
+        Matcher signedHeaders = SIGNED_HEADERS.matcher(authorization);
+        if (!signedHeaders.find()) {
+            return false;
+        }
+        Map<String, String> headers = new TreeMap<>();
+        for (String name : signedHeaders.group(1).split(";")) {
+            String value = exchange.getRequestHeaders().getFirst(name);
+            if (value == null) {
+                return false;
+            }
+            headers.put(name, value);
+        }
+        return authorization.equals(signer.authorization(method, rawPath, S3RequestSigner.canonicalQuery(query),
+                headers, payloadHash));
+    }
+
+    private static boolean checksumMatches(HttpExchange exchange, byte[] body) {
+        return base64Sha256(body).equals(exchange.getRequestHeaders().getFirst("x-amz-checksum-sha256"));
+    }
+
+    /**
+     * Tracks concurrent uploads and holds each one for as long as the throttled transfer would take.
+     */
+    private void receive(int byteCount) {
+        int active = activeUploads.incrementAndGet();
+        maxActiveUploads.accumulateAndGet(active, Math::max);
+        try {
+            long rate = bytesPerSecond;
+            if (rate > 0) {
+                Thread.sleep(byteCount * 1000L / rate);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeUploads.decrementAndGet();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private static String error(String code) {
+        return "<Error><Code>" + code + "</Code></Error>";
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new TreeMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            query.put(URLDecoder.decode(separator < 0 ? parameter : parameter.substring(0, separator),
+                            StandardCharsets.UTF_8),
+                    separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(sha256(data));
+    }
+
+    private static String base64Sha256(byte[] data) {
+        return Base64.getEncoder().encodeToString(sha256(data));
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
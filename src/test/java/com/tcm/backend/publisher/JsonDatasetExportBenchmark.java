@@ -0,0 +1,84 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Export wall time for 1..N cores on a 10k-herb synthetic dataset. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class JsonDatasetExportBenchmark {
+
+    private static final int HERB_COUNT = 10_000;
+    private static final int IMAGE_BYTES = 4 * 1024;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void exportScalesWithCores() throws IOException {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase("json-export-benchmark");
+        SyntheticHerbDataset.populate(jdbcTemplate, HERB_COUNT, IMAGE_BYTES);
+        HerbExportReader reader = new HerbExportReader(jdbcTemplate);
+        ReflectionTestUtils.setField(reader, "fetchSize", 500);
+        DatasetSnapshot snapshot = SyntheticHerbDataset.snapshot(jdbcTemplate);
+
+        Set<String> checksums = new HashSet<>();
+        long baselineMillis = 0;
+        System.out.printf("%-6s %10s %8s%n", "cores", "best ms", "speedup");
+        for (int cores : coreCounts(Runtime.getRuntime().availableProcessors())) {
+            JsonDatasetExportService exporter = exporter(reader, snapshot, cores);
+            export(exporter, checksums);
+            long bestMillis = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                export(exporter, checksums);
+                bestMillis = Math.min(bestMillis, (System.nanoTime() - start) / 1_000_000);
+            }
+            if (cores == 1) {
+                baselineMillis = bestMillis;
+            }
+            System.out.printf("%-6d %10d %7.2fx%n", cores, bestMillis, (double) baselineMillis / bestMillis);
+        }
+
+        assertThat(checksums).as("archive bytes must not depend on parallelism").hasSize(1);
+    }
+
+    private JsonDatasetExportService exporter(HerbExportReader reader, DatasetSnapshot snapshot, int cores) {
+        JsonDatasetExportService exporter = new JsonDatasetExportService(reader, new ObjectMapper(), snapshot,
+                SyntheticHerbDataset.compressionPolicy());
+        ReflectionTestUtils.setField(exporter, "tempDirectory", tempDirectory.toString());
+        ReflectionTestUtils.setField(exporter, "shardSize", 500);
+        ReflectionTestUtils.setField(exporter, "compressorParallelism", cores);
+        ReflectionTestUtils.setField(exporter, "maxInFlight", cores * 4);
+        return exporter;
+    }
+
+    private static Set<Integer> coreCounts(int maxCores) {
+        Set<Integer> coreCounts = new TreeSet<>();
+        for (int cores = 1; cores < maxCores; cores *= 2) {
+            coreCounts.add(cores);
+        }
+        coreCounts.add(maxCores);
+        return coreCounts;
+    }
+
+    private static void export(JsonDatasetExportService exporter, Set<String> checksums) throws IOException {
+        try (DatasetExportService.ExportResult result = exporter.exportDataset()) {
+            checksums.add(result.checksum());
+        }
+    }
+}
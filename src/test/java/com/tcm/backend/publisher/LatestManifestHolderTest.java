@@ -0,0 +1,64 @@
+package com.tcm.backend.publisher;
+
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.domain.PublishRelease.ReleaseStatus;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LatestManifestHolderTest {
+
+    private final PublishReleaseRepository publishReleaseRepository = mock(PublishReleaseRepository.class);
+    private final LatestManifestHolder holder = new LatestManifestHolder(publishReleaseRepository);
+
+    @Test
+    void refreshSwapsInTheNewestPublishedManifest() {
+        assertThat(holder.get()).isEmpty();
+
+        when(publishReleaseRepository.findFirstByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus.APPROVED))
+                .thenReturn(Optional.of(release("v1", "aaa")));
+        holder.refresh();
+        LatestManifestHolder.LatestManifest first = holder.get().orElseThrow();
+        assertThat(first.versionName()).isEqualTo("v1");
+        assertThat(first.etag()).isEqualTo(DatasetManifestFactory.etag("{\"version\":\"v1\"}"));
+        assertThat(new String(first.json(), StandardCharsets.UTF_8)).isEqualTo("{\"version\":\"v1\"}");
+
+        when(publishReleaseRepository.findFirstByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus.APPROVED))
+                .thenReturn(Optional.of(release("v2", "bbb")));
+        holder.refresh();
+        assertThat(holder.get()).get().extracting(LatestManifestHolder.LatestManifest::versionName).isEqualTo("v2");
+    }
+
+    @Test
+    void reusedArchiveStillGetsANewManifestEtag() {
+        // v2 reuses the archive of v1, so both carry the same checksum
+        when(publishReleaseRepository.findFirstByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus.APPROVED))
+                .thenReturn(Optional.of(release("v1", "aaa")));
+        holder.refresh();
+        String first = holder.get().orElseThrow().etag();
+
+        when(publishReleaseRepository.findFirstByStatusAndStorageUrlIsNotNullOrderByCreatedAtDesc(ReleaseStatus.APPROVED))
+                .thenReturn(Optional.of(release("v2", "aaa")));
+        holder.refresh();
+        String second = holder.get().orElseThrow().etag();
+
+        assertThat(second).isNotEqualTo(first).doesNotContain("aaa");
+        assertThat(second).startsWith("\"").endsWith("\"");
+    }
+
+    private static PublishRelease release(String versionName, String checksum) {
+        PublishRelease release = new PublishRelease();
+        release.setVersionName(versionName);
+        release.setStatus(ReleaseStatus.APPROVED);
+        release.setChecksum(checksum);
+        release.setStorageUrl("/datasets/" + versionName + ".zip");
+        release.setManifestJson("{\"version\":\"" + versionName + "\"}");
+        return release;
+    }
+}
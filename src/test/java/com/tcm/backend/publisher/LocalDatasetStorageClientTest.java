@@ -0,0 +1,93 @@
+package com.tcm.backend.publisher;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalDatasetStorageClientTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path storageDirectory;
+
+    private LocalDatasetStorageClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = client(Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws Exception {
+        store(client, "v1.index.json", "same");
+        store(client, "v2.index.json", "same");
+        store(client, "v2.zip", "different");
+
+        assertThat(blobCount()).isEqualTo(2);
+        assertThat(Files.isSameFile(storageDirectory.resolve("v1.index.json"),
+                storageDirectory.resolve("v2.index.json"))).isTrue();
+        try (var in = client.openDataset("v2.index.json").orElseThrow()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("same");
+        }
+    }
+
+    @Test
+    void collectsOnlyUnreferencedBlobsPastTheGracePeriod() throws Exception {
+        store(client, "v1.index.json", "shared");
+        store(client, "v2.index.json", "shared");
+        store(client, "v1.zip", "only-v1");
+
+        assertThat(client.deleteDataset("v1.index.json")).isZero();
+        client.deleteDataset("v1.zip");
+        // Still within the grace period
+        assertThat(client.collectUnreferenced()).isZero();
+        assertThat(blobCount()).isEqualTo(2);
+
+        LocalDatasetStorageClient later = client(Clock.fixed(NOW.plus(Duration.ofHours(2)), ZoneOffset.UTC));
+        setBlobTimes(NOW);
+        assertThat(later.collectUnreferenced()).isEqualTo("only-v1".length());
+        assertThat(blobCount()).isEqualTo(1);
+        assertThat(later.openDataset("v2.index.json")).isPresent();
+    }
+
+    private LocalDatasetStorageClient client(Clock clock) {
+        LocalDatasetStorageClient storageClient = new LocalDatasetStorageClient(clock);
+        ReflectionTestUtils.setField(storageClient, "storageDirectory", storageDirectory.toString());
+        ReflectionTestUtils.setField(storageClient, "blobGracePeriod", Duration.ofHours(1));
+        return storageClient;
+    }
+
+    private static void store(LocalDatasetStorageClient client, String objectKey, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        client.storeDataset(objectKey, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private long blobCount() throws Exception {
+        try (Stream<Path> blobs = Files.list(storageDirectory.resolve(LocalDatasetStorageClient.BLOB_DIRECTORY))) {
+            return blobs.count();
+        }
+    }
+
+    private void setBlobTimes(Instant time) throws Exception {
+        try (Stream<Path> blobs = Files.list(storageDirectory.resolve(LocalDatasetStorageClient.BLOB_DIRECTORY))) {
+            for (Path blob : blobs.toList()) {
+                Files.setLastModifiedTime(blob, FileTime.from(time));
+            }
+        }
+    }
+}
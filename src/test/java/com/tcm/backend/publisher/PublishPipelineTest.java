@@ -0,0 +1,145 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishJob;
+import com.tcm.backend.domain.PublishRelease;
+import com.tcm.backend.repository.PublishReleaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PublishPipelineTest {
+
+    private final PublishReleaseRepository publishReleaseRepository = mock(PublishReleaseRepository.class);
+    private final DatasetFingerprint datasetFingerprint = mock(DatasetFingerprint.class);
+    private final DatasetSnapshot datasetSnapshot = mock(DatasetSnapshot.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<PublishJob.Stage> ran = new ArrayList<>();
+    private final PublishRelease release = new PublishRelease();
+
+    @BeforeEach
+    void setUp() {
+        release.setId(UUID.randomUUID());
+        release.setVersionName("v2");
+        when(datasetSnapshot.read(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        when(datasetFingerprint.compute(any(), any())).thenReturn(Optional.of("abc"));
+        when(publishReleaseRepository.findById(release.getId())).thenReturn(Optional.of(release));
+    }
+
+    @Test
+    void retryableStageIsRetriedInPlaceAndCheckpointed() {
+        int[] uploadFailures = {1};
+        PublishPipeline pipeline = pipeline(
+                stage(PublishJob.Stage.EXPORT, context -> context.setFingerprint("abc")),
+                stage(PublishJob.Stage.UPLOAD, context -> {
+                    if (uploadFailures[0]-- > 0) {
+                        throw new IllegalStateException("storage unavailable");
+                    }
+                    context.getStored().put(DatasetVariant.FULL, stored());
+                }),
+                stage(PublishJob.Stage.MANIFEST, context -> {
+                }));
+
+        pipeline.run(context(), PublishProgress.NONE);
+
+        assertThat(ran).containsExactly(PublishJob.Stage.EXPORT, PublishJob.Stage.UPLOAD, PublishJob.Stage.UPLOAD,
+                PublishJob.Stage.MANIFEST);
+        assertThat(meterRegistry.get("dataset.publish.stage").tags("stage", "upload", "outcome", "failure")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("dataset.publish.stage").tags("stage", "upload", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(release.getCheckpointStage()).isEqualTo(PublishJob.Stage.UPLOAD);
+        assertThat(release.getCheckpointJson()).contains("\"fingerprint\":\"abc\"");
+        verify(datasetFingerprint, never()).compute(any(), any());
+    }
+
+    @Test
+    void publishResumesAfterCheckpointOnlyWhileContentIsUnchanged() throws Exception {
+        release.setCheckpointStage(PublishJob.Stage.UPLOAD);
+        release.setCheckpointJson(objectMapper.writeValueAsString(
+                new PublishContext.Checkpoint("abc", Map.of(DatasetVariant.FULL, stored()), null)));
+        PublishPipeline pipeline = pipeline(
+                stage(PublishJob.Stage.EXPORT, context -> {
+                }),
+                stage(PublishJob.Stage.UPLOAD, context -> {
+                }),
+                stage(PublishJob.Stage.MANIFEST, context -> {
+                }));
+
+        PublishContext resumed = context();
+        pipeline.run(resumed, PublishProgress.NONE);
+        assertThat(ran).containsExactly(PublishJob.Stage.MANIFEST);
+        assertThat(resumed.getStored()).containsEntry(DatasetVariant.FULL, stored());
+
+        ran.clear();
+        when(datasetFingerprint.compute(any(), any())).thenReturn(Optional.of("changed"));
+        pipeline.run(context(), PublishProgress.NONE);
+        assertThat(ran).containsExactly(PublishJob.Stage.EXPORT, PublishJob.Stage.UPLOAD, PublishJob.Stage.MANIFEST);
+    }
+
+    private PublishPipeline pipeline(PublishStage... stages) {
+        return new PublishPipeline(List.of(stages), datasetSnapshot, datasetFingerprint, publishReleaseRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), objectMapper, meterRegistry, 3,
+                Duration.ZERO);
+    }
+
+    private PublishContext context() {
+        return new PublishContext(release, null, DatasetEncoding.JSON, EnumSet.of(DatasetVariant.FULL));
+    }
+
+    private static DatasetStorageClient.StorageResult stored() {
+        return new DatasetStorageClient.StorageResult("/datasets/v2.zip",
+                new DatasetDigest(3, "def", 1024, List.of("def")));
+    }
+
+    private PublishStage stage(PublishJob.Stage stage, Consumer<PublishContext> action) {
+        return new PublishStage() {
+            @Override
+            public PublishJob.Stage stage() {
+                return stage;
+            }
+
+            @Override
+            public boolean readsSnapshot() {
+                return stage == PublishJob.Stage.EXPORT;
+            }
+
+            @Override
+            public boolean retryable() {
+                return stage != PublishJob.Stage.EXPORT;
+            }
+
+            @Override
+            public boolean checkpoint() {
+                return stage == PublishJob.Stage.UPLOAD;
+            }
+
+            @Override
+            public Result run(PublishContext context, PublishProgress progress) {
+                ran.add(stage);
+                action.accept(context);
+                return Result.NONE;
+            }
+        };
+    }
+}
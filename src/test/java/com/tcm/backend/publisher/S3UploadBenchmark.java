@@ -0,0 +1,54 @@
+package com.tcm.backend.publisher;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upload throughput of one archive to the fake S3 server, with each request throttled like a single TCP stream to
+ * a remote store: one PUT versus parallel multipart uploads at several part sizes. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class S3UploadBenchmark {
+
+    private static final int ARCHIVE_BYTES = 96 * 1024 * 1024;
+    private static final long STREAM_BYTES_PER_SECOND = 32L * 1024 * 1024;
+    private static final int PARALLELISM = 4;
+
+    @Test
+    void parallelPartsBeatASingleStream() throws IOException {
+        byte[] archive = S3DatasetStorageClientTest.randomBytes(ARCHIVE_BYTES, 7);
+        try (FakeS3Server server = new FakeS3Server()) {
+            server.throttle(STREAM_BYTES_PER_SECOND);
+
+            System.out.printf("%-16s %10s %10s%n", "upload", "ms", "MB/s");
+            double single = run(server, "single stream", ARCHIVE_BYTES + 1, 1, archive);
+            double best = 0;
+            for (int partMegabytes : new int[]{5, 8, 16, 32}) {
+                best = Math.max(best, run(server, partMegabytes + " MB x" + PARALLELISM,
+                        partMegabytes * 1024 * 1024, PARALLELISM, archive));
+            }
+
+            assertThat(best).isGreaterThan(single * 1.5);
+        }
+    }
+
+    private static double run(FakeS3Server server, String label, int partSize, int parallelism, byte[] archive) {
+        S3DatasetStorageClient client = S3DatasetStorageClientTest.client(server, partSize, parallelism);
+        try {
+            long started = System.nanoTime();
+            client.storeDataset("benchmark.zip", new ByteArrayInputStream(archive), archive.length);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            double megabytesPerSecond = archive.length / 1024.0 / 1024.0 / seconds;
+            System.out.printf("%-16s %10.0f %10.1f%n", label, seconds * 1000, megabytesPerSecond);
+            return megabytesPerSecond;
+        } finally {
+            client.shutdown();
+        }
+    }
+}
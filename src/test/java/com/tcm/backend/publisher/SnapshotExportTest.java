@@ -0,0 +1,122 @@
+package com.tcm.backend.publisher;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcm.backend.domain.PublishJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotExportTest {
+
+    private static final int HERB_COUNT = 200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDirectory;
+
+    @Test
+    void archiveReflectsOnePointInTimeWhileEditorsWrite() throws Exception {
+        JdbcTemplate jdbcTemplate = SyntheticHerbDataset.createDatabase("snapshot-export");
+        SyntheticHerbDataset.populate(jdbcTemplate, HERB_COUNT, 64);
+        JsonDatasetExportService exporter = exporter(jdbcTemplate);
+
+        AtomicBoolean edited = new AtomicBoolean();
+        PublishProgress editDuringExport = new PublishProgress() {
+            @Override
+            public void stage(PublishJob.Stage stage) {
+            }
+
+            @Override
+            public void herbsExported(long herbCount) {
+                // Runs on another thread so the edit commits on its own connection, outside the snapshot
+                if (edited.compareAndSet(false, true)) {
+                    CompletableFuture.runAsync(() -> edit(jdbcTemplate)).join();
+                }
+            }
+
+            @Override
+            public void bytesWritten(long byteCount) {
+            }
+
+            @Override
+            public void checkCancelled() {
+            }
+        };
+
+        try (DatasetExportService.ExportResult result = exporter.exportDataset(editDuringExport)) {
+            assertThat(edited).isTrue();
+            assertThat(jdbcTemplate.queryForObject("SELECT desc_en FROM herbs WHERE id = ?", String.class, HERB_COUNT))
+                    .isEqualTo("edited");
+
+            Set<String> referencedImages = new HashSet<>();
+            Set<String> imageEntries = new HashSet<>();
+            JsonNode herbs = null;
+            try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(result.archivePath()))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (entry.getName().equals(JsonDatasetExportService.HERBS_ENTRY)) {
+                        herbs = objectMapper.readTree(nonClosing(zip));
+                    } else {
+                        imageEntries.add(entry.getName());
+                    }
+                }
+            }
+
+            assertThat(herbs).hasSize(HERB_COUNT);
+            for (JsonNode herb : herbs) {
+                assertThat(herb.get("descEn").asText()).isNotEqualTo("edited");
+                assertThat(herb.get("flavors")).hasSize(3);
+                herb.get("images").forEach(image -> referencedImages.add("images/" + image.get("contentHash").asText()));
+            }
+            assertThat(imageEntries).isEqualTo(referencedImages);
+        }
+    }
+
+    private JsonDatasetExportService exporter(JdbcTemplate jdbcTemplate) {
+        HerbExportReader reader = new HerbExportReader(jdbcTemplate);
+        ReflectionTestUtils.setField(reader, "fetchSize", 50);
+        JsonDatasetExportService exporter = new JsonDatasetExportService(
+                reader, objectMapper, SyntheticHerbDataset.snapshot(jdbcTemplate),
+                SyntheticHerbDataset.compressionPolicy());
+        ReflectionTestUtils.setField(exporter, "tempDirectory", tempDirectory.toString());
+        ReflectionTestUtils.setField(exporter, "shardSize", 20);
+        ReflectionTestUtils.setField(exporter, "compressorParallelism", 2);
+        ReflectionTestUtils.setField(exporter, "maxInFlight", 2);
+        return exporter;
+    }
+
+    private static void edit(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("UPDATE herbs SET desc_en = 'edited' WHERE id IN (1, ?)", HERB_COUNT);
+        jdbcTemplate.update("INSERT INTO herbs (id, name_zh, name_pinyin, desc_en) VALUES (?, 'new', 'new', 'edited')",
+                HERB_COUNT + 1);
+        jdbcTemplate.update("DELETE FROM herb_flavors WHERE herb_id = ?", HERB_COUNT - 1);
+        jdbcTemplate.update("UPDATE herb_images SET content_hash = 'edited-hash' WHERE id = ?", HERB_COUNT - 50);
+        jdbcTemplate.update("UPDATE herb_image_payloads SET data = X'00' WHERE image_id = ?", HERB_COUNT - 50);
+    }
+
+    private static InputStream nonClosing(InputStream inputStream) {
+        return new FilterInputStream(inputStream) {
+            @Override
+            public void close() throws IOException {
+                // leave the zip stream open for the next entry
+            }
+        };
+    }
+}
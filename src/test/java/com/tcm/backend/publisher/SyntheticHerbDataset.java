@@ -0,0 +1,192 @@
+package com.tcm.backend.publisher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.annotation.Isolation;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds an in-memory H2 database with the herb export tables and fills it with reproducible synthetic herbs.
+ */
+final class SyntheticHerbDataset {
+
+    /**
+     * Child rows per herb and image sizes to generate. Counts and image sizes are log-normal around their mean and
+     * median with the given spread; a spread of 0 gives every herb exactly the same rows.
+     */
+    record Shape(double flavorsPerHerb, double formulasPerHerb, double indicationsPerHerb, double meridiansPerHerb,
+                 int medianImageBytes, int maxImageBytes, double spread) {
+
+        Shape withMedianImageBytes(int medianImageBytes) {
+            return new Shape(flavorsPerHerb, formulasPerHerb, indicationsPerHerb, meridiansPerHerb, medianImageBytes,
+                    maxImageBytes, spread);
+        }
+    }
+
+    /**
+     * Proportions of the production catalogue in tasks/tables.sql: 390 herbs with 613 flavors, 28,718 formulas,
+     * 1,735 indications, 924 meridians and one image each. The dump carries no image bytes, so image sizes follow
+     * a typical compressed herb photo.
+     */
+    static final Shape CATALOGUE = new Shape(1.57, 73.6, 4.45, 2.37, 48 * 1024, 1024 * 1024, 0.8);
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE herbs (id INT PRIMARY KEY, source_url VARCHAR(500), name_zh VARCHAR(100), "
+                    + "name_pinyin VARCHAR(100), desc_zh TEXT, desc_en TEXT, appearance TEXT, property TEXT)",
+            "CREATE TABLE herb_flavors (id INT AUTO_INCREMENT PRIMARY KEY, herb_id INT NOT NULL, value VARCHAR(255))",
+            "CREATE TABLE herb_formulas (id INT AUTO_INCREMENT PRIMARY KEY, herb_id INT NOT NULL, value VARCHAR(255))",
+            "CREATE TABLE herb_indications (id INT AUTO_INCREMENT PRIMARY KEY, herb_id INT NOT NULL, value VARCHAR(255))",
+            "CREATE TABLE herb_meridians (id INT AUTO_INCREMENT PRIMARY KEY, herb_id INT NOT NULL, value VARCHAR(255))",
+            "CREATE TABLE herb_images (id INT PRIMARY KEY, herb_id INT NOT NULL, filename VARCHAR(255), "
+                    + "mime VARCHAR(64), size_bytes INT, content_hash CHAR(64))",
+            "CREATE TABLE herb_image_payloads (image_id INT PRIMARY KEY, data BLOB NOT NULL)",
+            "CREATE INDEX idx_herb_flavors_herb ON herb_flavors (herb_id, id)",
+            "CREATE INDEX idx_herb_formulas_herb ON herb_formulas (herb_id, id)",
+            "CREATE INDEX idx_herb_indications_herb ON herb_indications (herb_id, id)",
+            "CREATE INDEX idx_herb_meridians_herb ON herb_meridians (herb_id, id)",
+            "CREATE INDEX idx_herb_images_herb ON herb_images (herb_id, id)"
+    };
+    private static final String[] FLAVORS = {"甘", "苦", "辛", "酸", "咸", "淡", "涩"};
+    private static final String[] MERIDIANS = {"肺", "心", "脾", "肝", "肾", "胃", "大肠", "膀胱"};
+    private static final int BATCH_SIZE = 1000;
+
+    private SyntheticHerbDataset() {
+    }
+
+    static JdbcTemplate createDatabase(String name) {
+        return openDatabase("jdbc:h2:mem:" + name + ";MODE=MySQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1");
+    }
+
+    /**
+     * File-backed database for datasets too large to keep in the heap; drop it with
+     * {@code DROP ALL OBJECTS DELETE FILES}.
+     */
+    static JdbcTemplate createDatabase(Path directory, String name) {
+        return openDatabase("jdbc:h2:file:" + directory.resolve(name).toAbsolutePath()
+                + ";MODE=MySQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1");
+    }
+
+    private static JdbcTemplate openDatabase(String url) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+        return jdbcTemplate;
+    }
+
+    /**
+     * H2 takes REPEATABLE READ snapshots per table on first access; SERIALIZABLE gives the single whole-database
+     * snapshot that InnoDB provides for REPEATABLE READ.
+     */
+    static DatasetSnapshot snapshot(JdbcTemplate jdbcTemplate) {
+        return new DatasetSnapshot(new DataSourceTransactionManager(jdbcTemplate.getDataSource()), Isolation.SERIALIZABLE);
+    }
+
+    static ArchiveCompressionPolicy compressionPolicy() {
+        return new ArchiveCompressionPolicy(6, Set.of("image/jpeg", "image/png"), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Every herb gets three flavors and indications, two formulas and meridians, and an image of {@code imageBytes}.
+     */
+    static void populate(JdbcTemplate jdbcTemplate, int herbCount, int imageBytes) {
+        populate(jdbcTemplate, herbCount, new Shape(3, 2, 3, 2, imageBytes, imageBytes, 0));
+    }
+
+    /**
+     * Inserts {@code herbCount} herbs with child rows and one image each; every tenth image reuses an earlier
+     * payload so content deduplication is exercised.
+     */
+    static void populate(JdbcTemplate jdbcTemplate, int herbCount, Shape shape) {
+        Random random = new Random(herbCount);
+        List<Object[]> herbs = new ArrayList<>();
+        List<Object[]> flavors = new ArrayList<>();
+        List<Object[]> formulas = new ArrayList<>();
+        List<Object[]> indications = new ArrayList<>();
+        List<Object[]> meridians = new ArrayList<>();
+        List<Object[]> images = new ArrayList<>();
+        List<Object[]> payloads = new ArrayList<>();
+        byte[] sharedImage = image(random, shape.medianImageBytes());
+
+        for (int id = 1; id <= herbCount; id++) {
+            herbs.add(new Object[]{id, "https://example.com/herbs/" + id, "草药" + id, "cao yao " + id,
+                    "性味归经，功效主治。".repeat(20 + random.nextInt(20)),
+                    ("Herb " + id + " clears heat and resolves dampness. ").repeat(10 + random.nextInt(10)),
+                    "Dried root slices, yellowish brown.", "性寒"});
+            for (int i = count(random, shape.flavorsPerHerb(), shape.spread()); i > 0; i--) {
+                flavors.add(new Object[]{id, FLAVORS[random.nextInt(FLAVORS.length)]});
+            }
+            for (int i = count(random, shape.indicationsPerHerb(), shape.spread()); i > 0; i--) {
+                indications.add(new Object[]{id, "Indication " + random.nextInt(500)});
+            }
+            for (int i = count(random, shape.formulasPerHerb(), shape.spread()); i > 0; i--) {
+                formulas.add(new Object[]{id, "Formula " + random.nextInt(300)});
+            }
+            for (int i = count(random, shape.meridiansPerHerb(), shape.spread()); i > 0; i--) {
+                meridians.add(new Object[]{id, MERIDIANS[random.nextInt(MERIDIANS.length)]});
+            }
+            byte[] data = id % 10 == 0 ? sharedImage : image(random, imageSize(random, shape));
+            images.add(new Object[]{id, id, "herb-" + id + ".jpg", "image/jpeg", data.length, sha256Hex(data)});
+            payloads.add(new Object[]{id, data});
+
+            if (id % BATCH_SIZE == 0 || id == herbCount) {
+                flush(jdbcTemplate, "INSERT INTO herbs VALUES (?, ?, ?, ?, ?, ?, ?, ?)", herbs);
+                flush(jdbcTemplate, "INSERT INTO herb_flavors (herb_id, value) VALUES (?, ?)", flavors);
+                flush(jdbcTemplate, "INSERT INTO herb_formulas (herb_id, value) VALUES (?, ?)", formulas);
+                flush(jdbcTemplate, "INSERT INTO herb_indications (herb_id, value) VALUES (?, ?)", indications);
+                flush(jdbcTemplate, "INSERT INTO herb_meridians (herb_id, value) VALUES (?, ?)", meridians);
+                flush(jdbcTemplate, "INSERT INTO herb_images VALUES (?, ?, ?, ?, ?, ?)", images);
+                flush(jdbcTemplate, "INSERT INTO herb_image_payloads VALUES (?, ?)", payloads);
+            }
+        }
+    }
+
+    private static void flush(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+    }
+
+    /**
+     * At least one row, averaging {@code mean} rows per herb.
+     */
+    private static int count(Random random, double mean, double spread) {
+        if (spread == 0) {
+            return (int) Math.round(mean);
+        }
+        double factor = Math.exp(spread * random.nextGaussian() - spread * spread / 2);
+        return Math.max(1, (int) Math.round(mean * factor));
+    }
+
+    private static int imageSize(Random random, Shape shape) {
+        if (shape.spread() == 0) {
+            return shape.medianImageBytes();
+        }
+        double size = shape.medianImageBytes() * Math.exp(shape.spread() * random.nextGaussian());
+        return (int) Math.max(1, Math.min(shape.maxImageBytes(), Math.round(size)));
+    }
+
+    private static byte[] image(Random random, int size) {
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
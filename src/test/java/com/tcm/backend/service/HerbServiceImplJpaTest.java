@@ -0,0 +1,98 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.domain.Herb;
+import com.tcm.backend.domain.HerbImage;
+import com.tcm.backend.domain.HerbImagePayload;
+import com.tcm.backend.dto.HerbDto;
+import com.tcm.backend.mapper.HerbMapper;
+import com.tcm.backend.repository.HerbImagePayloadRepository;
+import com.tcm.backend.service.impl.HerbServiceImpl;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the SQL Hibernate runs, which a mocked repository cannot show.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.tcm.backend.service.HerbServiceImplJpaTest$RecordingStatementInspector",
+        // herb_flavors.value is a keyword in H2
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"})
+@Import({HerbServiceImpl.class, HerbMapper.class})
+class HerbServiceImplJpaTest {
+
+    private static final String PAYLOAD_TABLE = "herb_image_payloads";
+
+    @Autowired
+    private HerbService herbService;
+
+    @Autowired
+    private HerbImagePayloadRepository herbImagePayloadRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ImagePayloadCache imagePayloadCache;
+
+    @Test
+    void getHerbNeverSelectsImagePayloads() {
+        Herb herb = new Herb();
+        herb.setSourceUrl("https://example.com/bai-zhu");
+        herb.setNameZh("白术");
+        entityManager.persist(herb);
+        HerbImage image = new HerbImage();
+        image.setHerb(herb);
+        image.setFilename("bai-zhu.jpg");
+        image.setMime("image/jpeg");
+        image.setSizeBytes(4);
+        image.setContentHash("4f1c");
+        entityManager.persist(image);
+        HerbImagePayload payload = new HerbImagePayload();
+        payload.setImage(image);
+        payload.setData(new byte[]{1, 2, 3, 4});
+        entityManager.persist(payload);
+        entityManager.flush();
+        entityManager.clear();
+
+        RecordingStatementInspector.STATEMENTS.clear();
+        HerbDto result = herbService.getHerb(herb.getId());
+
+        assertThat(result.images()).singleElement().satisfies(imageDto -> {
+            assertThat(imageDto.sizeBytes()).isEqualTo(4);
+            assertThat(imageDto.contentHash()).isEqualTo("4f1c");
+            assertThat(imageDto.data()).isNull();
+        });
+        List<String> statements = List.copyOf(RecordingStatementInspector.STATEMENTS);
+        assertThat(statements).anyMatch(sql -> sql.contains("herb_images"));
+        assertThat(statements).noneMatch(sql -> sql.contains(PAYLOAD_TABLE));
+
+        // The inspector does see payload reads when they happen
+        entityManager.clear();
+        herbImagePayloadRepository.findById(image.getId());
+        assertThat(RecordingStatementInspector.STATEMENTS).anyMatch(sql -> sql.contains(PAYLOAD_TABLE));
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.toLowerCase(Locale.ROOT));
+            return sql;
+        }
+    }
+}
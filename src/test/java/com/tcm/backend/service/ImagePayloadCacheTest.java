@@ -0,0 +1,122 @@
+package com.tcm.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImagePayloadCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImagePayloadCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ImagePayloadCache(1024, 256, meterRegistry);
+    }
+
+    @Test
+    void repeatedReadsAreServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+        byte[] payload = {1, 2, 3, 4};
+
+        ByteBuffer first = cache.get("hash-1", () -> {
+            loads.incrementAndGet();
+            return payload;
+        });
+        ByteBuffer second = cache.get("hash-1", () -> {
+            loads.incrementAndGet();
+            return payload;
+        });
+
+        assertThat(bytes(first)).containsExactly(payload);
+        assertThat(bytes(second)).containsExactly(payload);
+        assertThat(second.isReadOnly()).isTrue();
+        assertThat(second.isDirect()).isTrue();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.residentBytes()).isEqualTo(payload.length);
+        assertThat(cache.hitRatio()).isEqualTo(0.5);
+        assertThat(meterRegistry.get("cache.bytes.resident").gauge().value()).isEqualTo(payload.length);
+    }
+
+    @Test
+    void oversizedPayloadsAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        byte[] payload = new byte[512];
+
+        cache.get("hash-large", () -> {
+            loads.incrementAndGet();
+            return payload;
+        });
+        cache.get("hash-large", () -> {
+            loads.incrementAndGet();
+            return payload;
+        });
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.residentBytes()).isZero();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] payload = {5, 6, 7};
+        Supplier<byte[]> slowLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return payload;
+        };
+
+        CompletableFuture<ByteBuffer> first = CompletableFuture.supplyAsync(() -> cache.get("hash-2", slowLoader));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        FutureTask<ByteBuffer> second = new FutureTask<>(() -> cache.get("hash-2", slowLoader));
+        Thread secondCaller = new Thread(second, "second-caller");
+        secondCaller.start();
+
+        // The load is still running, so a second caller that joins it blocks on the entry; one that ran its own
+        // load would be waiting in the loader instead
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (secondCaller.getState() != Thread.State.BLOCKED) {
+            assertThat(System.nanoTime()).as("second caller never blocked on the in-flight load").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        release.countDown();
+
+        assertThat(bytes(first.get(5, TimeUnit.SECONDS))).containsExactly(payload);
+        assertThat(bytes(second.get(5, TimeUnit.SECONDS))).containsExactly(payload);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void readersDoNotShareAPosition() {
+        byte[] payload = {1, 2, 3};
+        ByteBuffer first = cache.get("hash-3", () -> payload);
+        first.get();
+
+        assertThat(bytes(cache.get("hash-3", () -> payload))).containsExactly(payload);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+}
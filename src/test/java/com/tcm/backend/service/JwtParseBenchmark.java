@@ -0,0 +1,73 @@
+package com.tcm.backend.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CPU time per authenticated request of the token handling in {@code JwtAuthenticationFilter}: three full parses
+ * with a parser built each time, as the filter used to do, against one parse with the prebuilt parser. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class JwtParseBenchmark {
+
+    private static final int WARMUP_REQUESTS = 20_000;
+    private static final int MEASURED_REQUESTS = 100_000;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private int sink;
+
+    @Test
+    void oneParsePerRequestCostsLessThanHalf() {
+        JwtTokenService jwtTokenService =
+                new JwtTokenService(JwtTokenServiceTest.SECRET, 15, 7, "tcm-app-backend");
+        SecretKey key = Keys.hmacShaKeyFor(JwtTokenServiceTest.SECRET.getBytes());
+        String token = jwtTokenService.generateAccessToken(JwtTokenServiceTest.user());
+
+        ToIntFunction<String> threeParses = jwt -> {
+            Claims valid = legacyParse(key, jwt);
+            String userId = legacyParse(key, jwt).getSubject();
+            String type = (String) legacyParse(key, jwt).get("type");
+            return valid.hashCode() + userId.hashCode() + type.hashCode();
+        };
+        ToIntFunction<String> oneParse = jwt -> jwtTokenService.parse(jwt)
+                .map(parsed -> parsed.userId().hashCode() + parsed.type().hashCode())
+                .orElseThrow();
+
+        double before = cpuNanosPerRequest(threeParses, token);
+        double after = cpuNanosPerRequest(oneParse, token);
+        System.out.printf("three parses: %.1f us/request, one parse: %.1f us/request (%.1fx)%n",
+                before / 1000, after / 1000, before / after);
+
+        assertThat(after).isLessThan(before / 2);
+    }
+
+    private double cpuNanosPerRequest(ToIntFunction<String> request, String token) {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            sink += request.applyAsInt(token);
+        }
+        long started = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            sink += request.applyAsInt(token);
+        }
+        return (double) (threads.getCurrentThreadCpuTime() - started) / MEASURED_REQUESTS;
+    }
+
+    private static Claims legacyParse(SecretKey key, String token) {
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
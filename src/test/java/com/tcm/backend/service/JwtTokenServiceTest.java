@@ -0,0 +1,58 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.domain.AdminUser;
+import com.tcm.backend.domain.Permission;
+import com.tcm.backend.domain.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenServiceTest {
+
+    static final String SECRET = "test-secret-key-that-is-long-enough-for-hmac-sha-256-signatures";
+
+    private final JwtTokenService jwtTokenService = new JwtTokenService(SECRET, 15, 7, "tcm-app-backend");
+
+    @Test
+    void parsedAccessTokenCarriesEveryClaim() {
+        String token = jwtTokenService.generateAccessToken(user());
+
+        JwtTokenService.ParsedToken parsed = jwtTokenService.parse(token).orElseThrow();
+
+        assertThat(parsed.userId()).isEqualTo("user-1");
+        assertThat(parsed.email()).isEqualTo("editor@example.com");
+        assertThat(parsed.isAccessToken()).isTrue();
+        assertThat(parsed.roles()).containsExactly("EDITOR");
+        assertThat(parsed.permissions()).containsExactly("herb:update");
+        assertThat(jwtTokenService.parse(jwtTokenService.generateRefreshToken(user())))
+                .get().matches(JwtTokenService.ParsedToken::isRefreshToken);
+    }
+
+    @Test
+    void tamperedForeignAndExpiredTokensAreRejected() {
+        String token = jwtTokenService.generateAccessToken(user());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        JwtTokenService foreign = new JwtTokenService(SECRET.replace('t', 'x'), 15, 7, "tcm-app-backend");
+        JwtTokenService expiring = new JwtTokenService(SECRET, -1, 7, "tcm-app-backend");
+
+        assertThat(jwtTokenService.parse(tampered)).isEmpty();
+        assertThat(jwtTokenService.parse(foreign.generateAccessToken(user()))).isEmpty();
+        assertThat(jwtTokenService.parse(expiring.generateAccessToken(user()))).isEmpty();
+        assertThat(jwtTokenService.parse("not-a-token")).isEmpty();
+    }
+
+    static AdminUser user() {
+        Permission permission = new Permission();
+        permission.setName("herb:update");
+        Role role = new Role();
+        role.setName("EDITOR");
+        role.getPermissions().add(permission);
+        AdminUser user = new AdminUser();
+        user.setId("user-1");
+        user.setEmail("editor@example.com");
+        user.setRoles(Set.of(role));
+        return user;
+    }
+}
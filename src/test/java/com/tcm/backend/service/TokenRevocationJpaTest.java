@@ -0,0 +1,111 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.domain.AdminUser;
+import com.tcm.backend.dto.AuthenticationRequest;
+import com.tcm.backend.repository.AdminUserRepository;
+import com.tcm.backend.repository.SecurityAuditLogRepository;
+import com.tcm.backend.repository.TokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Revocations committed through the services, including those of rejected logins, seen by this node and by another node polling the same database.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AdminUserService.class, AuthenticationService.class, JwtTokenService.class, SecurityAuditService.class, TokenRevocationRegistry.class, PrincipalCache.class,
+        PermissionRegistry.class, SimpleMeterRegistry.class})
+class TokenRevocationJpaTest {
+
+    @Autowired
+    private AdminUserService adminUserService;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private AdminUserRepository adminUserRepository;
+
+    @Autowired
+    private SecurityAuditLogRepository securityAuditLogRepository;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockBean
+    private PasswordService passwordService;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        securityAuditLogRepository.deleteAll();
+        tokenRevocationRepository.deleteAll();
+        adminUserRepository.deleteAll();
+    }
+
+    @Test
+    void deletingAUserRevokesTheirTokensOnEveryNode() {
+        AdminUser user = adminUserRepository.save(user("deleted@example.com"));
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        TokenRevocationRegistry otherNode = new TokenRevocationRegistry(tokenRevocationRepository, 15);
+        otherNode.refresh();
+        assertThat(otherNode.isRevoked(user.getId(), issuedAt)).isFalse();
+
+        adminUserService.deleteUser(user.getId(), "127.0.0.1", "test");
+
+        assertThat(adminUserRepository.findById(user.getId())).isEmpty();
+        assertThat(tokenRevocationRegistry.isRevoked(user.getId(), issuedAt)).isTrue();
+        otherNode.refresh();
+        assertThat(otherNode.isRevoked(user.getId(), issuedAt)).isTrue();
+    }
+
+    @Test
+    void lockingAnAccountRevokesItsTokensOnEveryNode() {
+        AdminUser user = user("locked@example.com");
+        user.setFailedLoginAttempts(4);
+        user = adminUserRepository.save(user);
+        when(passwordEncoder.matches(any(), any())).thenReturn(false);
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        TokenRevocationRegistry otherNode = new TokenRevocationRegistry(tokenRevocationRepository, 15);
+        otherNode.refresh();
+
+        assertThatThrownBy(() -> authenticationService.authenticate(
+                new AuthenticationRequest("locked@example.com", "wrong"), "127.0.0.1", "test"))
+                .isInstanceOf(LockedException.class);
+
+        AdminUser stored = adminUserRepository.findById(user.getId()).orElseThrow();
+        assertThat(stored.getIsLocked()).isTrue();
+        assertThat(stored.getFailedLoginAttempts()).isEqualTo(5);
+        assertThat(tokenRevocationRegistry.isRevoked(user.getId(), issuedAt)).isTrue();
+        otherNode.refresh();
+        assertThat(otherNode.isRevoked(user.getId(), issuedAt)).isTrue();
+    }
+
+    private static AdminUser user(String email) {
+        AdminUser user = new AdminUser();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        return user;
+    }
+}
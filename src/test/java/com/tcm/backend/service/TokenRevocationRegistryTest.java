@@ -0,0 +1,56 @@
+package com.tcm.backend.service;
+
+import com.tcm.backend.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TokenRevocationRegistryTest {
+
+    private final TokenRevocationRegistry registry =
+            new TokenRevocationRegistry(mock(TokenRevocationRepository.class), 15);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void revocationAppliesWhenTheTransactionCommits() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.revoke("user-1");
+        assertThat(registry.isRevoked("user-1", issuedAt)).isFalse();
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertThat(registry.isRevoked("user-1", issuedAt)).isTrue();
+    }
+
+    @Test
+    void rolledBackRevocationIsNeverRecorded() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.revoke("user-1");
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(registry.isRevoked("user-1", Instant.now().minusSeconds(60))).isFalse();
+        assertThat(registry.validAfter("user-1")).isEmpty();
+    }
+
+    @Test
+    void revocationOutsideATransactionAppliesAtOnce() {
+        registry.revoke("user-1");
+
+        assertThat(registry.isRevoked("user-1", Instant.now().minusSeconds(60))).isTrue();
+    }
+}
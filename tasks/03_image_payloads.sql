@@ -0,0 +1,21 @@
+-- TCM App Backend - Image payload split
+-- Moves image bytes out of herb_images so herb graph loads only read metadata.
+
+CREATE TABLE herb_image_payloads (
+    image_id INT NOT NULL PRIMARY KEY,
+    data MEDIUMBLOB NOT NULL,
+    CONSTRAINT fk_herb_image_payloads_image FOREIGN KEY (image_id) REFERENCES herb_images (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE herb_images
+    ADD COLUMN size_bytes INT NULL,
+    ADD COLUMN content_hash CHAR(64) NULL;
+
+INSERT INTO herb_image_payloads (image_id, data)
+SELECT id, data FROM herb_images;
+
+UPDATE herb_images
+SET size_bytes = LENGTH(data),
+    content_hash = SHA2(data, 256);
+
+ALTER TABLE herb_images DROP COLUMN data;
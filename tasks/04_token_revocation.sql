@@ -0,0 +1,9 @@
+-- TCM App Backend - Access token revocation
+-- Cut-off per user for access tokens; nodes poll recent rows to honour forced logouts. Rows are not tied to
+-- admin_users, so the revocation of a deleted user still reaches every node.
+
+CREATE TABLE token_revocations (
+    user_id CHAR(36) NOT NULL PRIMARY KEY,
+    valid_after TIMESTAMP(6) NOT NULL,
+    INDEX idx_valid_after (valid_after)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;